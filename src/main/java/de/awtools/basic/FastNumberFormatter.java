@@ -0,0 +1,403 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic;
+
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.util.Locale;
+
+import org.apache.commons.lang.Validate;
+
+/**
+ * Formatiert Zahlen für einfache Pattern wie
+ * {@link NumberUtils#DEFAULT_DECIMAL_FORMAT} und
+ * {@link NumberUtils#DEFAULT_ZERO_FORMAT} ohne <code>DecimalFormat</code>.
+ * Die Zeichen werden direkt in einen <code>StringBuilder</code> oder ein
+ * <code>char[]</code> des Aufrufers geschrieben, es werden keine Objekte
+ * erzeugt. Das Ergebnis ist identisch zu <code>DecimalFormat</code>,
+ * einschliesslich Gruppierung, Mindeststellen und der Rundung
+ * <code>HALF_EVEN</code> auf den exakten binären Wert.<br/>
+ *
+ * Unterstützt werden Pattern ohne Präfix, Suffix, Exponent, Prozent und
+ * Währung mit höchstens {@link #MAX_FRACTION_DIGITS} Nachkommastellen.
+ * An <code>DecimalFormat</code> delegiert werden <code>NaN</code>,
+ * <code>Infinity</code>, Werte mit einem Betrag über etwa
+ * 10<sup>12</sup> / 10<sup>Nachkommastellen</sup> und Werte, die fast
+ * genau in der Mitte zwischen zwei Rundungsergebnissen liegen (z.B. 2.675
+ * mit zwei Nachkommastellen). <code>DecimalFormat</code> entscheidet diese
+ * Fälle anhand der kürzesten Dezimaldarstellung und nicht immer anhand des
+ * exakten Werts. Die Klasse ist unveränderlich und thread-sicher.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public final class FastNumberFormatter {
+
+    /** Die maximale Anzahl der Nachkommastellen. */
+    public static final int MAX_FRACTION_DIGITS = 9;
+
+    /**
+     * Bis zu diesem skalierten Betrag ist die Rundung exakt und stimmt mit
+     * der Ziffernfolge von <code>DecimalFormat</code> überein.
+     */
+    private static final double FAST_LIMIT = 0x1p40;
+
+    /** 2<sup>27</sup> + 1 für die Zerlegung nach Dekker. */
+    private static final double SPLITTER = 134217729.0;
+
+    private static final long[] POW10 = new long[19];
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+    }
+
+    private final DecimalFormat prototype;
+
+    private final char zeroDigit;
+
+    private final char minusSign;
+
+    private final char groupingSeparator;
+
+    private final char decimalSeparator;
+
+    /** Die Gruppengröße oder 0, wenn nicht gruppiert wird. */
+    private final int groupingSize;
+
+    private final int minIntegerDigits;
+
+    private final int minFractionDigits;
+
+    private final int maxFractionDigits;
+
+    private FastNumberFormatter(final DecimalFormat format) {
+        prototype = (DecimalFormat) format.clone();
+        DecimalFormatSymbols symbols = format.getDecimalFormatSymbols();
+        zeroDigit = symbols.getZeroDigit();
+        minusSign = symbols.getMinusSign();
+        groupingSeparator = symbols.getGroupingSeparator();
+        decimalSeparator = symbols.getDecimalSeparator();
+        groupingSize = format.isGroupingUsed() ? format.getGroupingSize() : 0;
+        minIntegerDigits = format.getMinimumIntegerDigits();
+        minFractionDigits = format.getMinimumFractionDigits();
+        maxFractionDigits = format.getMaximumFractionDigits();
+    }
+
+    /**
+     * Erzeugt einen Formatter für Locale und Pattern.
+     *
+     * @param locale Das Locale.
+     * @param pattern Das Pattern.
+     * @return Der Formatter.
+     * @throws IllegalArgumentException Das Pattern wird nicht unterstützt.
+     */
+    public static FastNumberFormatter of(final Locale locale,
+        final String pattern) {
+
+        Validate.notNull(locale, "locale is null.");
+        Validate.notNull(pattern, "pattern is null.");
+        DecimalFormat format =
+                (DecimalFormat) NumberFormat.getNumberInstance(locale);
+        format.applyPattern(pattern);
+        return of(format);
+    }
+
+    /**
+     * Erzeugt einen Formatter mit den Einstellungen eines
+     * <code>DecimalFormat</code>.
+     *
+     * @param format Das Format.
+     * @return Der Formatter.
+     * @throws IllegalArgumentException Das Format wird nicht unterstützt.
+     */
+    public static FastNumberFormatter of(final DecimalFormat format) {
+        Validate.isTrue(isSupported(format), "Unsupported format: "
+            + format.toPattern());
+        return new FastNumberFormatter(format);
+    }
+
+    /**
+     * Prüft, ob ein <code>DecimalFormat</code> unterstützt wird.
+     *
+     * @param format Das Format.
+     * @return <code>true</code>, wenn das Format unterstützt wird.
+     */
+    public static boolean isSupported(final DecimalFormat format) {
+        Validate.notNull(format, "format is null.");
+        DecimalFormatSymbols symbols = format.getDecimalFormatSymbols();
+        return format.getPositivePrefix().isEmpty()
+            && format.getPositiveSuffix().isEmpty()
+            && format.getNegativePrefix().equals(
+                String.valueOf(symbols.getMinusSign()))
+            && format.getNegativeSuffix().isEmpty()
+            && format.getMultiplier() == 1
+            && format.getRoundingMode() == RoundingMode.HALF_EVEN
+            && !format.isDecimalSeparatorAlwaysShown()
+            && !format.isParseBigDecimal()
+            && format.toPattern().indexOf('E') < 0
+            && format.getMaximumIntegerDigits() == Integer.MAX_VALUE
+            && format.getMaximumFractionDigits() <= MAX_FRACTION_DIGITS
+            && format.getMinimumIntegerDigits() <= POW10.length
+            && (!format.isGroupingUsed() || format.getGroupingSize() > 0);
+    }
+
+    /**
+     * Die maximale Länge einer formatierten <code>long</code> Zahl bzw.
+     * einer <code>double</code> Zahl im schnellen Wertebereich.
+     *
+     * @return Die maximale Anzahl der Zeichen.
+     */
+    public int getMaxLength() {
+        int digits = Math.max(POW10.length, minIntegerDigits);
+        int groups = (groupingSize > 0) ? (digits - 1) / groupingSize : 0;
+        return 1 + digits + groups + 1 + maxFractionDigits;
+    }
+
+    /**
+     * Formatiert ein <code>double</code>.
+     *
+     * @param value Der Wert.
+     * @return Der formatierte Wert.
+     */
+    public String format(final double value) {
+        return format(value, new StringBuilder(getMaxLength())).toString();
+    }
+
+    /**
+     * Formatiert ein <code>long</code>.
+     *
+     * @param value Der Wert.
+     * @return Der formatierte Wert.
+     */
+    public String format(final long value) {
+        return format(value, new StringBuilder(getMaxLength())).toString();
+    }
+
+    /**
+     * Hängt ein formatiertes <code>double</code> an.
+     *
+     * @param value Der Wert.
+     * @param sb Das Ziel.
+     * @return Das Ziel.
+     */
+    public StringBuilder format(final double value, final StringBuilder sb) {
+        long scaled = scale(value);
+        if (scaled < 0) {
+            return sb.append(fallback().format(value));
+        }
+        write(value, scaled, null, 0, sb);
+        return sb;
+    }
+
+    /**
+     * Hängt ein formatiertes <code>long</code> an.
+     *
+     * @param value Der Wert.
+     * @param sb Das Ziel.
+     * @return Das Ziel.
+     */
+    public StringBuilder format(final long value, final StringBuilder sb) {
+        if (value == Long.MIN_VALUE) {
+            return sb.append(fallback().format(value));
+        }
+        write(value < 0, Math.abs(value), 0, minFractionDigits, null, 0,
+            sb);
+        return sb;
+    }
+
+    /**
+     * Schreibt ein formatiertes <code>double</code> in ein Array.
+     *
+     * @param value Der Wert.
+     * @param buffer Das Ziel. Siehe {@link #getMaxLength()}.
+     * @param offset Die Startposition in <code>buffer</code>.
+     * @return Die Position hinter dem letzten geschriebenen Zeichen.
+     * @throws IndexOutOfBoundsException Das Array ist zu klein.
+     */
+    public int format(final double value, final char[] buffer,
+        final int offset) {
+
+        long scaled = scale(value);
+        if (scaled < 0) {
+            return copy(fallback().format(value), buffer, offset);
+        }
+        return write(value, scaled, buffer, offset, null);
+    }
+
+    /**
+     * Schreibt ein formatiertes <code>long</code> in ein Array.
+     *
+     * @param value Der Wert.
+     * @param buffer Das Ziel. Siehe {@link #getMaxLength()}.
+     * @param offset Die Startposition in <code>buffer</code>.
+     * @return Die Position hinter dem letzten geschriebenen Zeichen.
+     * @throws IndexOutOfBoundsException Das Array ist zu klein.
+     */
+    public int format(final long value, final char[] buffer,
+        final int offset) {
+
+        if (value == Long.MIN_VALUE) {
+            return copy(fallback().format(value), buffer, offset);
+        }
+        return write(value < 0, Math.abs(value), 0, minFractionDigits, buffer,
+            offset, null);
+    }
+
+    /**
+     * Skaliert und rundet den Betrag eines Werts.
+     *
+     * @param value Der Wert.
+     * @return Der gerundete Betrag mal 10<sup>Nachkommastellen</sup> oder
+     *         -1, wenn an <code>DecimalFormat</code> delegiert werden muss.
+     */
+    private long scale(final double value) {
+        double abs = Math.abs(value);
+        // Auch für NaN false.
+        if (!(abs * POW10[maxFractionDigits] < FAST_LIMIT)) {
+            return -1;
+        }
+        return roundHalfEven(abs, POW10[maxFractionDigits]);
+    }
+
+    private int write(final double value, final long scaled,
+        final char[] buffer, final int offset, final StringBuilder sb) {
+
+        // Das Vorzeichen bleibt wie bei DecimalFormat auch für -0.0 und für
+        // negative Werte, die auf 0 gerundet werden, erhalten.
+        boolean negative = Double.doubleToRawLongBits(value) < 0;
+        long pow = POW10[maxFractionDigits];
+
+        long fraction = scaled % pow;
+        int fractionDigits = maxFractionDigits;
+        while (fractionDigits > minFractionDigits && fraction % 10 == 0) {
+            fraction /= 10;
+            fractionDigits--;
+        }
+        return write(negative, scaled / pow, fraction, fractionDigits,
+            buffer, offset, sb);
+    }
+
+    private int write(final boolean negative, final long integer,
+        final long fraction, final int fractionDigits, final char[] buffer,
+        final int offset, final StringBuilder sb) {
+
+        int pos = offset;
+        if (negative) {
+            pos = put(minusSign, buffer, pos, sb);
+        }
+
+        int digits = 0;
+        while (digits < POW10.length && integer >= POW10[digits]) {
+            digits++;
+        }
+        digits = Math.max(digits, minIntegerDigits);
+
+        for (int i = digits - 1; i >= 0; i--) {
+            int digit =
+                    (i < POW10.length) ? (int) (integer / POW10[i] % 10) : 0;
+            pos = put((char) (zeroDigit + digit), buffer, pos, sb);
+            if (groupingSize > 0 && i > 0 && i % groupingSize == 0) {
+                pos = put(groupingSeparator, buffer, pos, sb);
+            }
+        }
+
+        if (fractionDigits > 0) {
+            pos = put(decimalSeparator, buffer, pos, sb);
+            for (int i = fractionDigits - 1; i >= 0; i--) {
+                int digit = (int) (fraction / POW10[i] % 10);
+                pos = put((char) (zeroDigit + digit), buffer, pos, sb);
+            }
+        } else if (digits == 0) {
+            // Wie DecimalFormat: Ohne Ziffern wird eine 0 ausgegeben.
+            pos = put(zeroDigit, buffer, pos, sb);
+        }
+        return pos;
+    }
+
+    private static int put(final char c, final char[] buffer, final int pos,
+        final StringBuilder sb) {
+
+        if (sb != null) {
+            sb.append(c);
+        } else {
+            buffer[pos] = c;
+        }
+        return pos + 1;
+    }
+
+    /**
+     * Rundet <code>value * pow</code> mit <code>HALF_EVEN</code>. Das
+     * Produkt wird dabei exakt als Summe <code>prod + err</code> betrachtet
+     * (Dekker), damit z.B. 1.005 nicht fälschlich als 100.5 erscheint.
+     *
+     * @param value Ein Wert &gt;= 0.
+     * @param pow Eine Zehnerpotenz.
+     * @return Der gerundete, skalierte Wert oder -1, wenn der Wert fast
+     *         genau in der Mitte liegt.
+     */
+    static long roundHalfEven(final double value, final long pow) {
+        double factor = pow;
+        double prod = value * factor;
+
+        double c = SPLITTER * value;
+        double valueHigh = c - (c - value);
+        double valueLow = value - valueHigh;
+        c = SPLITTER * factor;
+        double factorHigh = c - (c - factor);
+        double factorLow = factor - factorHigh;
+        double err = ((valueHigh * factorHigh - prod) + valueHigh * factorLow
+            + valueLow * factorHigh) + valueLow * factorLow;
+
+        double floor = Math.floor(prod);
+        // prod - floor ist exakt. Das Vorzeichen der Summe entscheidet.
+        double diff = ((prod - floor) - 0.5) + err;
+        if (Math.abs(diff) <= 2 * Math.ulp(prod)) {
+            return -1;
+        }
+        long result = (long) floor;
+        if (diff > 0) {
+            result++;
+        }
+        return result;
+    }
+
+    private DecimalFormat fallback() {
+        return (DecimalFormat) prototype.clone();
+    }
+
+    private static int copy(final String text, final char[] buffer,
+        final int offset) {
+
+        text.getChars(0, text.length(), buffer, offset);
+        return offset + text.length();
+    }
+
+}
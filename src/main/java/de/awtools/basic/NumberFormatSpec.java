@@ -0,0 +1,273 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic;
+
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+import java.text.ParseException;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.lang.Validate;
+
+/**
+ * Locale und Pattern eines Zahlenformats. Unveränderlich und thread-sicher.
+ * Instanzen werden über {@link #of(Locale, String)} aus einer globalen
+ * Registry geholt. Jede Kombination aus Locale und Pattern wird nur einmal
+ * angelegt. Dabei werden auch das <code>DecimalFormat</code>, der
+ * {@link FastNumberFormatter} und der {@link NumberParser} erzeugt. Ein
+ * wiederholter Aufruf kostet nur zwei Map-Zugriffe:
+ * <pre>
+ * NumberFormatSpec spec = NumberFormatSpec.of(Locale.GERMANY, "##,##0.00");
+ * String text = spec.format(1234.5); // 1.234,50
+ * </pre>
+ * Die Registry gibt keine Einträge frei. Sie ist für Pattern gedacht, die
+ * im Programm feststehen, und nicht für Pattern aus Benutzereingaben. Die
+ * Setter von {@link NumberUtils} tragen deshalb nichts in die Registry ein.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public final class NumberFormatSpec {
+
+    /** Die Registry: Locale, dann Pattern. */
+    private static final ConcurrentMap<Locale,
+        ConcurrentMap<String, NumberFormatSpec>> REGISTRY =
+            new ConcurrentHashMap<>();
+
+    private final Locale locale;
+
+    private final String pattern;
+
+    /** Das Format wird nie direkt verwendet, sondern nur kopiert. */
+    private final DecimalFormat prototype;
+
+    /** Der schnelle Formatter oder <code>null</code>. */
+    private final FastNumberFormatter fast;
+
+    /** Der schnelle Parser oder <code>null</code>. */
+    private final NumberParser parser;
+
+    /** Die Kopie des Formats für den aktuellen Thread. */
+    private final ThreadLocal<DecimalFormat> formats =
+            new ThreadLocal<DecimalFormat>() {
+                @Override
+                protected DecimalFormat initialValue() {
+                    return (DecimalFormat) prototype.clone();
+                }
+            };
+
+    private NumberFormatSpec(final Locale _locale, final String _pattern) {
+        locale = _locale;
+        pattern = _pattern;
+        prototype = (DecimalFormat) NumberFormat.getNumberInstance(locale);
+        prototype.applyPattern(pattern);
+        fast = FastNumberFormatter.isSupported(prototype)
+                ? FastNumberFormatter.of(prototype) : null;
+        parser = NumberParser.isSupported(prototype)
+                ? NumberParser.of(prototype) : null;
+    }
+
+    /**
+     * Liefert das Format für Locale und Pattern aus der Registry. Beim
+     * ersten Aufruf wird das Format angelegt.
+     *
+     * @param locale Das Locale.
+     * @param pattern Das Pattern für <code>DecimalFormat</code>.
+     * @return Das Format.
+     * @throws IllegalArgumentException Das Pattern ist ungültig.
+     */
+    public static NumberFormatSpec of(final Locale locale,
+        final String pattern) {
+
+        Validate.notNull(locale, "locale is null.");
+        Validate.notNull(pattern, "pattern is null.");
+
+        ConcurrentMap<String, NumberFormatSpec> patterns =
+                REGISTRY.get(locale);
+        if (patterns == null) {
+            patterns = new ConcurrentHashMap<>();
+            ConcurrentMap<String, NumberFormatSpec> other =
+                    REGISTRY.putIfAbsent(locale, patterns);
+            if (other != null) {
+                patterns = other;
+            }
+        }
+
+        NumberFormatSpec spec = patterns.get(pattern);
+        if (spec == null) {
+            spec = new NumberFormatSpec(locale, pattern);
+            NumberFormatSpec other = patterns.putIfAbsent(pattern, spec);
+            if (other != null) {
+                spec = other;
+            }
+        }
+        return spec;
+    }
+
+    /**
+     * Liefert das Format für Locale und Pattern aus der Registry, falls es
+     * dort schon existiert. Sonst wird ein neues Format angelegt, aber nicht
+     * in die Registry eingetragen. Für Pattern, die sich zur Laufzeit
+     * ändern, z.B. über {@link NumberUtils#setPattern(String)}.
+     *
+     * @param locale Das Locale.
+     * @param pattern Das Pattern für <code>DecimalFormat</code>.
+     * @return Das Format.
+     * @throws IllegalArgumentException Das Pattern ist ungültig.
+     */
+    static NumberFormatSpec lookupOrCreate(final Locale locale,
+        final String pattern) {
+
+        Validate.notNull(locale, "locale is null.");
+        Validate.notNull(pattern, "pattern is null.");
+
+        ConcurrentMap<String, NumberFormatSpec> patterns =
+                REGISTRY.get(locale);
+        NumberFormatSpec spec =
+                (patterns == null) ? null : patterns.get(pattern);
+        return (spec == null) ? new NumberFormatSpec(locale, pattern) : spec;
+    }
+
+    /**
+     * Das Locale.
+     *
+     * @return Das Locale.
+     */
+    public Locale getLocale() {
+        return locale;
+    }
+
+    /**
+     * Das Pattern.
+     *
+     * @return Das Pattern.
+     */
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * Formatiert ein <code>long</code>.
+     *
+     * @param value <code>long</code>
+     * @return Der formatierte Wert.
+     */
+    public String format(final long value) {
+        if (fast != null) {
+            return fast.format(value);
+        }
+        return getDecimalFormat().format(value);
+    }
+
+    /**
+     * Formatiert ein <code>double</code>.
+     *
+     * @param value <code>double</code>
+     * @return Der formatierte Wert.
+     */
+    public String format(final double value) {
+        if (fast != null) {
+            return fast.format(value);
+        }
+        return getDecimalFormat().format(value);
+    }
+
+    /**
+     * Hängt ein formatiertes <code>double</code> an einen
+     * <code>StringBuilder</code> an. Für einfache Pattern werden dabei
+     * keine Objekte erzeugt.
+     *
+     * @param value <code>double</code>
+     * @param sb Das Ziel.
+     * @return Das Ziel.
+     */
+    public StringBuilder format(final double value, final StringBuilder sb) {
+        if (fast != null) {
+            return fast.format(value, sb);
+        }
+        return sb.append(getDecimalFormat().format(value));
+    }
+
+    /**
+     * Formatiert ein <code>Number</code>.
+     *
+     * @param value <code>Number</code>
+     * @return Der formatierte Wert.
+     */
+    public String format(final Number value) {
+        return getDecimalFormat().format(value);
+    }
+
+    /**
+     * Parst einen <code>String</code> nach <code>Number</code>. Verhält
+     * sich wie <code>DecimalFormat.parse(String)</code>.
+     *
+     * @param value Ein String.
+     * @return Der übersetzte Wert als <code>Number</code>.
+     * @throws ParseException Der String konnte nicht geparst werden.
+     */
+    public Number parse(final String value) throws ParseException {
+        return getDecimalFormat().parse(value);
+    }
+
+    /**
+     * Erzeugt eine neue Kopie des Formats, die der Aufrufer verändern darf.
+     *
+     * @return Ein neues <code>DecimalFormat</code>.
+     */
+    public DecimalFormat newDecimalFormat() {
+        return (DecimalFormat) prototype.clone();
+    }
+
+    /**
+     * Liefert die Kopie des Formats für den aktuellen Thread. Sie darf
+     * nicht verändert oder an andere Threads weitergegeben werden.
+     *
+     * @return Ein <code>DecimalFormat</code>, das nur der aktuelle Thread
+     *         verwendet.
+     */
+    DecimalFormat getDecimalFormat() {
+        return formats.get();
+    }
+
+    /**
+     * Der schnelle Parser.
+     *
+     * @return Der Parser oder <code>null</code>, wenn das Pattern nicht
+     *         unterstützt wird.
+     */
+    NumberParser getParser() {
+        return parser;
+    }
+
+    @Override
+    public String toString() {
+        return locale + " / " + pattern;
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic;
+
+/**
+ * Ein Text konnte nicht als Zahl gelesen werden. Siehe
+ * {@link NumberParser}.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public class NumberParseException extends NumberFormatException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int errorIndex;
+
+    /**
+     * Konstruktor.
+     *
+     * @param text Der Text.
+     * @param _errorIndex Die Position des ersten ungültigen Zeichens.
+     */
+    public NumberParseException(final CharSequence text,
+        final int _errorIndex) {
+
+        super("Unparseable number: \"" + text + "\" at index " + _errorIndex);
+        errorIndex = _errorIndex;
+    }
+
+    /**
+     * Konstruktor.
+     *
+     * @param text Der Text.
+     * @param _errorIndex Die Position des ersten ungültigen Zeichens.
+     * @param cause Die Ursache.
+     */
+    public NumberParseException(final CharSequence text,
+        final int _errorIndex, final Throwable cause) {
+
+        this(text, _errorIndex);
+        initCause(cause);
+    }
+
+    /**
+     * Die Position des ersten ungültigen Zeichens.
+     *
+     * @return Die Position.
+     */
+    public int getErrorIndex() {
+        return errorIndex;
+    }
+
+}
@@ -0,0 +1,454 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.util.Locale;
+
+import org.apache.commons.lang.Validate;
+
+/**
+ * Liest Zahlen mit den Trennzeichen eines Locales direkt als
+ * <code>long</code> oder <code>double</code>, ohne <code>DecimalFormat</code>
+ * und ohne Objekte zu erzeugen. Der Text muss vollständig aus einer Zahl
+ * bestehen:
+ * <pre>
+ * [-] Ziffer (Ziffer | Gruppentrenner Ziffer)* [Dezimaltrenner Ziffer+]
+ * </pre>
+ * Gruppentrenner sind nur zwischen Ziffern erlaubt, ihre Position wird wie
+ * bei <code>DecimalFormat</code> nicht geprüft. Leerzeichen, '+' und
+ * Exponenten sind nicht erlaubt. Fehler werden entweder als
+ * {@link NumberParseException} oder über einen Default-Wert gemeldet. Für
+ * jeden Text, den diese Klasse akzeptiert, liefert
+ * <code>DecimalFormat.parse()</code> mit denselben Symbolen denselben Wert.
+ * Die Klasse ist unveränderlich und thread-sicher.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public final class NumberParser {
+
+    /** Die Zehnerpotenzen, die als <code>double</code> exakt sind. */
+    private static final double[] POW10 = new double[23];
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+    }
+
+    /** Bis hier ist ein <code>long</code> als <code>double</code> exakt. */
+    private static final long EXACT_DOUBLE = 1L << 53;
+
+    /** Mehr Ziffern passen nicht sicher in ein <code>long</code>. */
+    private static final int MAX_DIGITS = 18;
+
+    private final char zeroDigit;
+
+    private final char minusSign;
+
+    /** Der Gruppentrenner oder 0, wenn nicht gruppiert wird. */
+    private final char groupingSeparator;
+
+    private final char decimalSeparator;
+
+    private NumberParser(final DecimalFormatSymbols symbols,
+        final boolean grouping) {
+
+        zeroDigit = symbols.getZeroDigit();
+        minusSign = symbols.getMinusSign();
+        groupingSeparator = grouping ? symbols.getGroupingSeparator() : 0;
+        decimalSeparator = symbols.getDecimalSeparator();
+    }
+
+    /**
+     * Erzeugt einen Parser für die Trennzeichen eines Locales.
+     *
+     * @param locale Das Locale.
+     * @return Der Parser.
+     */
+    public static NumberParser of(final Locale locale) {
+        Validate.notNull(locale, "locale is null.");
+        return new NumberParser(DecimalFormatSymbols.getInstance(locale), true);
+    }
+
+    /**
+     * Erzeugt einen Parser mit den Einstellungen eines
+     * <code>DecimalFormat</code>.
+     *
+     * @param format Das Format.
+     * @return Der Parser.
+     * @throws IllegalArgumentException Das Format wird nicht unterstützt.
+     */
+    public static NumberParser of(final DecimalFormat format) {
+        Validate.isTrue(isSupported(format), "Unsupported format: "
+            + format.toPattern());
+        return new NumberParser(format.getDecimalFormatSymbols(),
+            format.isGroupingUsed());
+    }
+
+    /**
+     * Prüft, ob der Parser für ein <code>DecimalFormat</code> dieselben
+     * Werte liefert. Das Format darf keine Präfixe, Suffixe oder
+     * Multiplikatoren verwenden.
+     *
+     * @param format Das Format.
+     * @return <code>true</code>, wenn das Format unterstützt wird.
+     */
+    public static boolean isSupported(final DecimalFormat format) {
+        Validate.notNull(format, "format is null.");
+        return format.getPositivePrefix().isEmpty()
+            && format.getPositiveSuffix().isEmpty()
+            && format.getNegativePrefix().equals(
+                String.valueOf(format.getDecimalFormatSymbols()
+                    .getMinusSign()))
+            && format.getNegativeSuffix().isEmpty()
+            && format.getMultiplier() == 1
+            && !format.isParseBigDecimal()
+            && !format.isParseIntegerOnly();
+    }
+
+    /**
+     * Erzeugt einen Parser für Locale und Pattern. Siehe
+     * {@link #of(DecimalFormat)}.
+     *
+     * @param locale Das Locale.
+     * @param pattern Das Pattern.
+     * @return Der Parser.
+     */
+    public static NumberParser of(final Locale locale, final String pattern) {
+        DecimalFormat format =
+                (DecimalFormat) NumberFormat.getNumberInstance(locale);
+        format.applyPattern(pattern);
+        return of(format);
+    }
+
+    // -- long ----------------------------------------------------------------
+
+    /**
+     * Liest eine ganze Zahl.
+     *
+     * @param text Der Text.
+     * @return Die Zahl.
+     * @throws NumberParseException Der Text ist keine ganze Zahl.
+     */
+    public long parseLong(final CharSequence text) {
+        return parseLong(text, 0, text.length());
+    }
+
+    /**
+     * Liest eine ganze Zahl aus einem Ausschnitt.
+     *
+     * @param text Der Text.
+     * @param from Der Start (inklusive).
+     * @param to Das Ende (exklusive).
+     * @return Die Zahl.
+     * @throws NumberParseException Der Ausschnitt ist keine ganze Zahl.
+     */
+    public long parseLong(final CharSequence text, final int from,
+        final int to) {
+
+        long result = parseLong(text, from, to, Long.MIN_VALUE);
+        if (result == Long.MIN_VALUE) {
+            // Fehler oder tatsächlich Long.MIN_VALUE?
+            int errorIndex = scanLong(text, from, to);
+            if (errorIndex >= 0) {
+                throw new NumberParseException(
+                    text.subSequence(from, to), errorIndex - from);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Liest eine ganze Zahl aus einem Ausschnitt. Wirft keine Exception.
+     *
+     * @param text Der Text.
+     * @param from Der Start (inklusive).
+     * @param to Das Ende (exklusive).
+     * @param defaultValue Das Ergebnis, wenn der Ausschnitt keine ganze
+     *            Zahl ist.
+     * @return Die Zahl oder <code>defaultValue</code>.
+     */
+    public long parseLong(final CharSequence text, final int from,
+        final int to, final long defaultValue) {
+
+        int i = from;
+        boolean negative = false;
+        if (i < to && text.charAt(i) == minusSign) {
+            negative = true;
+            i++;
+        }
+
+        // Wie Long.parseLong() negativ aufsummieren, damit auch
+        // Long.MIN_VALUE gelesen werden kann.
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multmin = limit / 10;
+        long result = 0;
+        boolean digitSeen = false;
+        boolean groupingSeen = false;
+        for (; i < to; i++) {
+            char c = text.charAt(i);
+            int digit = digit(c);
+            if (digit >= 0) {
+                if (result < multmin) {
+                    return defaultValue;
+                }
+                result *= 10;
+                if (result < limit + digit) {
+                    return defaultValue;
+                }
+                result -= digit;
+                digitSeen = true;
+                groupingSeen = false;
+            } else if (c == groupingSeparator && c != 0 && digitSeen
+                && !groupingSeen) {
+
+                groupingSeen = true;
+            } else {
+                return defaultValue;
+            }
+        }
+        if (!digitSeen || groupingSeen) {
+            return defaultValue;
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * Sucht den ersten Fehler einer ganzen Zahl.
+     *
+     * @return Die Position des Fehlers oder -1.
+     */
+    private int scanLong(final CharSequence text, final int from,
+        final int to) {
+
+        int errorIndex = scanDouble(text, from, to);
+        if (errorIndex >= 0) {
+            return errorIndex;
+        }
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) == decimalSeparator) {
+                return i;
+            }
+        }
+        // Entweder Long.MIN_VALUE oder ein Überlauf.
+        return (parseLong(text, from, to, 0) == Long.MIN_VALUE) ? -1 : from;
+    }
+
+    // -- double --------------------------------------------------------------
+
+    /**
+     * Liest eine Zahl.
+     *
+     * @param text Der Text.
+     * @return Die Zahl.
+     * @throws NumberParseException Der Text ist keine Zahl.
+     */
+    public double parseDouble(final CharSequence text) {
+        return parseDouble(text, 0, text.length());
+    }
+
+    /**
+     * Liest eine Zahl aus einem Ausschnitt.
+     *
+     * @param text Der Text.
+     * @param from Der Start (inklusive).
+     * @param to Das Ende (exklusive).
+     * @return Die Zahl.
+     * @throws NumberParseException Der Ausschnitt ist keine Zahl.
+     */
+    public double parseDouble(final CharSequence text, final int from,
+        final int to) {
+
+        double result = parseDouble(text, from, to, Double.NaN);
+        if (Double.isNaN(result)) {
+            throw new NumberParseException(text.subSequence(from, to),
+                scanDouble(text, from, to) - from);
+        }
+        return result;
+    }
+
+    /**
+     * Liest eine Zahl aus einem Ausschnitt. Wirft keine Exception. Mit
+     * <code>Double.NaN</code> als Default-Wert ist ein Fehler eindeutig
+     * erkennbar.
+     *
+     * @param text Der Text.
+     * @param from Der Start (inklusive).
+     * @param to Das Ende (exklusive).
+     * @param defaultValue Das Ergebnis, wenn der Ausschnitt keine Zahl ist.
+     * @return Die Zahl oder <code>defaultValue</code>.
+     */
+    public double parseDouble(final CharSequence text, final int from,
+        final int to, final double defaultValue) {
+
+        int i = from;
+        boolean negative = false;
+        if (i < to && text.charAt(i) == minusSign) {
+            negative = true;
+            i++;
+        }
+
+        long significand = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean exact = true;
+        boolean digitSeen = false;
+        boolean groupingSeen = false;
+        for (; i < to; i++) {
+            char c = text.charAt(i);
+            int digit = digit(c);
+            if (digit >= 0) {
+                if (digits < MAX_DIGITS) {
+                    significand = significand * 10 + digit;
+                    if (significand > 0) {
+                        digits++;
+                    }
+                } else {
+                    exponent++;
+                    exact &= (digit == 0);
+                }
+                digitSeen = true;
+                groupingSeen = false;
+            } else if (c == groupingSeparator && c != 0 && digitSeen
+                && !groupingSeen) {
+
+                groupingSeen = true;
+            } else if (c == decimalSeparator && digitSeen && !groupingSeen) {
+                break;
+            } else {
+                return defaultValue;
+            }
+        }
+        if (!digitSeen || groupingSeen) {
+            return defaultValue;
+        }
+
+        if (i < to) {
+            // Nachkommastellen. Mindestens eine Ziffer.
+            i++;
+            if (i == to) {
+                return defaultValue;
+            }
+            for (; i < to; i++) {
+                int digit = digit(text.charAt(i));
+                if (digit < 0) {
+                    return defaultValue;
+                }
+                if (digits < MAX_DIGITS) {
+                    significand = significand * 10 + digit;
+                    if (significand > 0) {
+                        digits++;
+                    }
+                    exponent--;
+                } else {
+                    exact &= (digit == 0);
+                }
+            }
+        }
+
+        double result;
+        if (exact && significand < EXACT_DOUBLE && exponent >= -22
+            && exponent <= 22) {
+
+            // Beide Operanden sind exakt, das Ergebnis wird korrekt gerundet.
+            result = (exponent >= 0) ? significand * POW10[exponent]
+                    : significand / POW10[-exponent];
+        } else {
+            result = parseSlow(text, from, to);
+        }
+        return negative ? -result : result;
+    }
+
+    /**
+     * Der seltene Fall mit mehr als 15 signifikanten Stellen. Erzeugt einen
+     * String für <code>Double.parseDouble()</code>.
+     */
+    private double parseSlow(final CharSequence text, final int from,
+        final int to) {
+
+        StringBuilder sb = new StringBuilder(to - from);
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            int digit = digit(c);
+            if (digit >= 0) {
+                sb.append((char) ('0' + digit));
+            } else if (c == decimalSeparator) {
+                sb.append('.');
+            }
+        }
+        return Double.parseDouble(sb.toString());
+    }
+
+    /**
+     * Sucht den ersten Fehler einer Zahl.
+     *
+     * @return Die Position des Fehlers oder -1.
+     */
+    private int scanDouble(final CharSequence text, final int from,
+        final int to) {
+
+        int i = from;
+        if (i < to && text.charAt(i) == minusSign) {
+            i++;
+        }
+        boolean digitSeen = false;
+        boolean groupingSeen = false;
+        boolean decimalSeen = false;
+        for (; i < to; i++) {
+            char c = text.charAt(i);
+            if (digit(c) >= 0) {
+                digitSeen = true;
+                groupingSeen = false;
+            } else if (c == groupingSeparator && c != 0 && digitSeen
+                && !groupingSeen && !decimalSeen) {
+
+                groupingSeen = true;
+            } else if (c == decimalSeparator && digitSeen && !groupingSeen
+                && !decimalSeen) {
+
+                decimalSeen = true;
+                digitSeen = false;
+            } else {
+                return i;
+            }
+        }
+        return (!digitSeen || groupingSeen) ? to : -1;
+    }
+
+    private int digit(final char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        int digit = c - zeroDigit;
+        return (digit >= 0 && digit <= 9) ? digit : -1;
+    }
+
+}
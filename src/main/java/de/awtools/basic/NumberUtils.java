@@ -25,16 +25,40 @@
 
 package de.awtools.basic;
 
-import java.text.DecimalFormat;
-import java.text.NumberFormat;
 import java.text.ParseException;
+import java.text.ParsePosition;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
 import java.util.Locale;
+import java.util.RandomAccess;
+import java.util.concurrent.RecursiveTask;
 
 import javax.swing.text.MaskFormatter;
 
+import org.apache.commons.lang.Validate;
+
 /**
  * Eine Utility Klasse für das Formatieren von Zahlen sowie für das Parsen
  * von Zahlen aus Strings heraus.
+ *
+ * Locale und Pattern stehen in einer unveränderlichen
+ * {@link NumberFormatSpec}. Das <code>DecimalFormat</code> wird je
+ * {@link NumberFormatSpec} nur einmal erzeugt, jeder Thread arbeitet auf
+ * einer eigenen Kopie. Eine Instanz kann deshalb von mehreren Threads
+ * gleichzeitig verwendet werden. Die Setter für Locale und Pattern tragen
+ * nichts in die globale Registry von
+ * {@link NumberFormatSpec#of(Locale, String)} ein. Wer viele Instanzen mit
+ * demselben Format braucht, teilt sich besser eine {@link NumberFormatSpec}
+ * über {@link #NumberUtils(NumberFormatSpec)}. Für einfache Pattern wie
+ * {@link #DEFAULT_DECIMAL_FORMAT} und {@link #DEFAULT_ZERO_FORMAT}
+ * verwenden {@link #formatLong(long)} und {@link #formatDouble(double)}
+ * den {@link FastNumberFormatter}. Die Methoden <code>toXxx</code> lesen
+ * einfache Zahlen über den {@link NumberParser} und verwenden das
+ * <code>DecimalFormat</code> nur noch für alle anderen Texte.
+ * {@link #toLongs(List, long[])} und {@link #toDoubles(List, double[])}
+ * lesen ganze Spalten ohne Boxing und ohne Exceptions.
  * 
  * @version $LastChangedRevision: 3981 $ $LastChangedDate: 2015-01-07 19:20:13 +0100 (Mi, 07. Jan 2015) $
  * @author by Andre Winkler, $LastChangedBy: andrewinkler $
@@ -42,8 +66,6 @@ import javax.swing.text.MaskFormatter;
  * @todo Es wird das Default-Locale für alle Formatierungsaufgaben verwendet.
  * Zusätzlich wird momentan der deutsche Dezimaltrenner ',' durch ein '.'
  * ersetzt. 
- *
- * @todo Ein Cache für die verschiedenen Formatierungsklassen?
  */
 public class NumberUtils {
 
@@ -56,11 +78,44 @@ public class NumberUtils {
     /** the empty string (placeholder) */
     private static final String EMPTY = "";
 
-    /** Das Default-Locale. */
-    private Locale locale = Locale.getDefault();
+    /** Locale und Pattern. Wird nur als Ganzes ausgetauscht. */
+    private volatile NumberFormatSpec spec =
+            NumberFormatSpec.of(Locale.getDefault(), DEFAULT_DECIMAL_FORMAT);
+
+    /**
+     * Konstruktor mit dem Default-Locale und
+     * {@link #DEFAULT_DECIMAL_FORMAT}.
+     */
+    public NumberUtils() {
+    }
+
+    /**
+     * Konstruktor.
+     *
+     * @param _spec Locale und Pattern.
+     */
+    public NumberUtils(final NumberFormatSpec _spec) {
+        setSpec(_spec);
+    }
 
-    /** Das Default-Pattern. */
-    private String pattern = DEFAULT_DECIMAL_FORMAT;
+    /**
+     * Locale und Pattern.
+     *
+     * @return Locale und Pattern.
+     */
+    public NumberFormatSpec getSpec() {
+        return spec;
+    }
+
+    /**
+     * Setzt Locale und Pattern neu.
+     *
+     * @param _spec Locale und Pattern.
+     */
+    public void setSpec(final NumberFormatSpec _spec) {
+        Validate.notNull(_spec, "spec is null.");
+        spec = _spec;
+    }
 
     /**
      * Setzt das Pattern neu.
@@ -68,7 +123,7 @@ public class NumberUtils {
      * @param _pattern Das zu verwendende Pattern.
      */
     public void setPattern(final String _pattern) {
-        setPatternAndLocale(locale, _pattern);
+        setPatternAndLocale(spec.getLocale(), _pattern);
     }
 
     /**
@@ -77,34 +132,33 @@ public class NumberUtils {
      * @param _locale Das zu verwendende Locale.
      */
     public void setLocale(final Locale _locale) {
-        setPatternAndLocale(_locale, pattern);
+        setPatternAndLocale(_locale, spec.getPattern());
     }
 
     /**
-     * Setzt das Pattern und das Locale neu.
+     * Setzt das Pattern und das Locale neu. Steht die Kombination nicht in
+     * der Registry von {@link NumberFormatSpec}, erhält diese Instanz ein
+     * eigenes Format.
      *
      * @param _locale Das zu verwendende Locale.
      * @param _pattern Das zu verwendende Pattern.
      */
     public void setPatternAndLocale(final Locale _locale, final String _pattern) {
+        Locale locale;
         if (_locale == null) {
             locale = Locale.getDefault();
         } else {
             locale = _locale;
         }
 
+        String pattern;
         if (_pattern == null) {
             pattern = DEFAULT_DECIMAL_FORMAT;
         } else {
             pattern = _pattern;
         }
-    }
 
-    private DecimalFormat createNumberFormatter() {
-        DecimalFormat decimalFormat =
-                (DecimalFormat) NumberFormat.getNumberInstance(locale);
-        decimalFormat.applyPattern(pattern);
-        return decimalFormat;
+        spec = NumberFormatSpec.lookupOrCreate(locale, pattern);
     }
 
     // -------------------------------------------------------------------------
@@ -127,66 +181,358 @@ public class NumberUtils {
     }
 
     // ------------------------------------------------------------------------
-    // Abschnitt mit den toInt, toDouble, toXxx Methoden. Alle Methoden
-    // basieren auf der Methode #toNumber(String) und werfen eine
-    // RuntimeException.
+    // Abschnitt mit den toInt, toDouble, toXxx Methoden. Einfache Zahlen
+    // liest der NumberParser ohne Objekte zu erzeugen. Alle anderen Texte
+    // gehen wie bisher über #toNumber(String). Fehler werden als
+    // NumberParseException gemeldet.
     //
 
+    /**
+     * Liest eine ganze Zahl über den {@link NumberParser}.
+     *
+     * @param current Locale und Pattern.
+     * @param value Der Text.
+     * @return Die Zahl oder <code>Long.MIN_VALUE</code>, wenn der Text
+     *         über das <code>DecimalFormat</code> gelesen werden muss.
+     */
+    private static long parseLongFast(final NumberFormatSpec current,
+        final CharSequence value) {
+
+        NumberParser parser = current.getParser();
+        if (parser == null || value == null) {
+            return Long.MIN_VALUE;
+        }
+        return parser.parseLong(value, 0, value.length(), Long.MIN_VALUE);
+    }
+
+    /**
+     * Liest eine Zahl über den {@link NumberParser}.
+     *
+     * @param current Locale und Pattern.
+     * @param value Der Text.
+     * @return Die Zahl oder <code>Double.NaN</code>, wenn der Text über das
+     *         <code>DecimalFormat</code> gelesen werden muss.
+     */
+    private static double parseDoubleFast(final NumberFormatSpec current,
+        final CharSequence value) {
+
+        NumberParser parser = current.getParser();
+        if (parser == null || value == null) {
+            return Double.NaN;
+        }
+        return parser.parseDouble(value, 0, value.length(), Double.NaN);
+    }
+
     /**
      * Parst einen String nach <code>int</code>. Falls eine Ausnahme auftritt,
-     * wird eine <code>RuntimeException</code> geworfen.
+     * wird eine {@link NumberParseException} geworfen.
      * 
      * @param value Der zu parsende String
      * @return Der geparste Wert.
      */
     public int toInt(final String value) {
+        NumberFormatSpec current = spec;
+        long l = parseLongFast(current, value);
+        if (l != Long.MIN_VALUE) {
+            return (int) l;
+        }
+        double d = parseDoubleFast(current, value);
+        if (!Double.isNaN(d)) {
+            return (int) d;
+        }
         return (toNumber(value).intValue());
     }
 
     /**
      * Parst einen String nach <code>short</code>. Falls eine Ausnahme
-     * auftritt, wird eine <code>RuntimeException</code> geworfen.
+     * auftritt, wird eine {@link NumberParseException} geworfen.
      * 
      * @param value Der zu parsende String
      * @return Der geparste Wert.
      */
     public short toShort(final String value) {
+        NumberFormatSpec current = spec;
+        long l = parseLongFast(current, value);
+        if (l != Long.MIN_VALUE) {
+            return (short) l;
+        }
+        double d = parseDoubleFast(current, value);
+        if (!Double.isNaN(d)) {
+            return (short) d;
+        }
         return (toNumber(value).shortValue());
     }
 
     /**
      * Parst einen String nach <code>long</code>. Falls eine Ausnahme
-     * auftritt, wird eine <code>RuntimeException</code> geworfen.
+     * auftritt, wird eine {@link NumberParseException} geworfen.
      * 
      * @param value Der zu parsende String
      * @return Der geparste Wert.
      */
     public long toLong(final String value) {
+        NumberFormatSpec current = spec;
+        long l = parseLongFast(current, value);
+        if (l != Long.MIN_VALUE) {
+            return l;
+        }
+        double d = parseDoubleFast(current, value);
+        if (!Double.isNaN(d)) {
+            return (long) d;
+        }
         return (toNumber(value).longValue());
     }
 
     /**
      * Parst einen String nach <code>double</code>. Falls eine Ausnahme
-     * auftritt, wird eine <code>RuntimeException</code> geworfen.
+     * auftritt, wird eine {@link NumberParseException} geworfen.
      * 
      * @param value Der zu parsende String
      * @return Der geparste Wert.
      */
     public double toDouble(final String value) {
+        double d = parseDoubleFast(spec, value);
+        if (!Double.isNaN(d)) {
+            return d;
+        }
         return (toNumber(value).doubleValue());
     }
 
     /**
      * Parst einen String nach <code>float</code>. Falls eine Ausnahme
-     * auftritt, wird eine <code>RuntimeException</code> geworfen.
+     * auftritt, wird eine {@link NumberParseException} geworfen.
      * 
      * @param value Der zu parsende String
      * @return Der geparste Wert.
      */
     public float toFloat(final String value) {
+        NumberFormatSpec current = spec;
+        long l = parseLongFast(current, value);
+        if (l != Long.MIN_VALUE) {
+            return (float) l;
+        }
+        double d = parseDoubleFast(current, value);
+        if (!Double.isNaN(d)) {
+            return (float) d;
+        }
         return (toNumber(value).floatValue());
     }
 
+    // -- bulk ----------------------------------------------------------------
+
+    /**
+     * Die Größe eines Blocks bei der Massenumwandlung. Größere Eingaben
+     * werden parallel im <code>ForkJoinPool.commonPool()</code> gelesen.
+     */
+    static final int BULK_CHUNK_SIZE = 4096;
+
+    /**
+     * Liest eine Spalte von Texten nach <code>long</code>. Jeder Eintrag wird
+     * wie bei {@link #toLong(String)} gelesen, es werden aber keine
+     * Exceptions geworfen. Nicht lesbare Einträge werden im Ergebnis als 0
+     * eingetragen und im gelieferten <code>BitSet</code> markiert. Große
+     * Eingaben werden in Blöcken parallel gelesen.
+     *
+     * @param values Die Texte. <code>null</code> Einträge gelten als Fehler.
+     * @param result Das Ergebnis. Mindestens so lang wie
+     *            <code>values</code>.
+     * @return Die Indizes der nicht lesbaren Einträge.
+     */
+    public BitSet toLongs(final List<? extends CharSequence> values,
+        final long[] result) {
+
+        Validate.notNull(result, "result is null.");
+        return convert(values, result, null, result.length);
+    }
+
+    /**
+     * Liest eine Spalte von Texten nach <code>long</code>. Siehe
+     * {@link #toLongs(List, long[])}.
+     *
+     * @param values Die Texte.
+     * @param result Das Ergebnis.
+     * @return Die Indizes der nicht lesbaren Einträge.
+     */
+    public BitSet toLongs(final CharSequence[] values, final long[] result) {
+        Validate.notNull(values, "values is null.");
+        return toLongs(Arrays.asList(values), result);
+    }
+
+    /**
+     * Liest eine Spalte von Texten nach <code>double</code>. Jeder Eintrag
+     * wird wie bei {@link #toDouble(String)} gelesen, es werden aber keine
+     * Exceptions geworfen. Nicht lesbare Einträge werden im Ergebnis als
+     * <code>Double.NaN</code> eingetragen und im gelieferten
+     * <code>BitSet</code> markiert. Große Eingaben werden in Blöcken
+     * parallel gelesen.
+     *
+     * @param values Die Texte. <code>null</code> Einträge gelten als Fehler.
+     * @param result Das Ergebnis. Mindestens so lang wie
+     *            <code>values</code>.
+     * @return Die Indizes der nicht lesbaren Einträge.
+     */
+    public BitSet toDoubles(final List<? extends CharSequence> values,
+        final double[] result) {
+
+        Validate.notNull(result, "result is null.");
+        return convert(values, null, result, result.length);
+    }
+
+    /**
+     * Liest eine Spalte von Texten nach <code>double</code>. Siehe
+     * {@link #toDoubles(List, double[])}.
+     *
+     * @param values Die Texte.
+     * @param result Das Ergebnis.
+     * @return Die Indizes der nicht lesbaren Einträge.
+     */
+    public BitSet toDoubles(final CharSequence[] values,
+        final double[] result) {
+
+        Validate.notNull(values, "values is null.");
+        return toDoubles(Arrays.asList(values), result);
+    }
+
+    private BitSet convert(final List<? extends CharSequence> values,
+        final long[] longs, final double[] doubles, final int length) {
+
+        Validate.notNull(values, "values is null.");
+        Validate.isTrue(length >= values.size(), "result is too short.");
+
+        // Die Blöcke greifen über den Index zu.
+        List<? extends CharSequence> input = values;
+        if (!(input instanceof RandomAccess)) {
+            input = new ArrayList<>(values);
+        }
+
+        // Kleine Eingaben laufen im aufrufenden Thread, größere Blöcke
+        // landen über fork() im ForkJoinPool.commonPool().
+        return new BulkTask(spec, input, longs, doubles, 0, input.size())
+            .invoke();
+    }
+
+    /**
+     * Liest einen Eintrag nach <code>long</code> wie {@link #toLong(String)}.
+     *
+     * @return <code>false</code>, wenn der Eintrag nicht lesbar ist.
+     */
+    private boolean toLong(final NumberFormatSpec current,
+        final CharSequence value, final long[] result, final int index) {
+
+        if (value == null) {
+            return false;
+        }
+        long l = parseLongFast(current, value);
+        if (l != Long.MIN_VALUE) {
+            result[index] = l;
+            return true;
+        }
+        double d = parseDoubleFast(current, value);
+        if (!Double.isNaN(d)) {
+            result[index] = (long) d;
+            return true;
+        }
+        Number number = current.getDecimalFormat().parse(value.toString(),
+            new ParsePosition(0));
+        if (number == null) {
+            return false;
+        }
+        result[index] = number.longValue();
+        return true;
+    }
+
+    /**
+     * Liest einen Eintrag nach <code>double</code> wie
+     * {@link #toDouble(String)}.
+     *
+     * @return <code>false</code>, wenn der Eintrag nicht lesbar ist.
+     */
+    private boolean toDouble(final NumberFormatSpec current,
+        final CharSequence value, final double[] result, final int index) {
+
+        if (value == null) {
+            return false;
+        }
+        double d = parseDoubleFast(current, value);
+        if (Double.isNaN(d)) {
+            Number number = current.getDecimalFormat().parse(
+                value.toString(), new ParsePosition(0));
+            if (number == null) {
+                return false;
+            }
+            d = number.doubleValue();
+        }
+        result[index] = d;
+        return true;
+    }
+
+    /**
+     * Liest einen Abschnitt einer Spalte. Abschnitte mit mehr als
+     * {@link #BULK_CHUNK_SIZE} Einträgen werden geteilt. Jeder Block hat ein
+     * eigenes <code>BitSet</code>, die Ergebnisse werden beim
+     * <code>join()</code> zusammengeführt.
+     */
+    private final class BulkTask extends RecursiveTask<BitSet> {
+
+        private static final long serialVersionUID = 1L;
+
+        /** Alle Blöcke verwenden dasselbe Format. */
+        private final NumberFormatSpec current;
+
+        private final List<? extends CharSequence> values;
+
+        /** Genau eines der beiden Ergebnisse ist gesetzt. */
+        private final long[] longs;
+
+        private final double[] doubles;
+
+        private final int from;
+
+        private final int to;
+
+        private BulkTask(final NumberFormatSpec _current,
+            final List<? extends CharSequence> _values, final long[] _longs,
+            final double[] _doubles, final int _from, final int _to) {
+
+            current = _current;
+            values = _values;
+            longs = _longs;
+            doubles = _doubles;
+            from = _from;
+            to = _to;
+        }
+
+        @Override
+        protected BitSet compute() {
+            if (to - from > BULK_CHUNK_SIZE) {
+                int middle = (from + to) >>> 1;
+                BulkTask left = new BulkTask(current, values, longs, doubles,
+                    from, middle);
+                left.fork();
+                BitSet failed = new BulkTask(current, values, longs, doubles,
+                    middle, to).compute();
+                failed.or(left.join());
+                return failed;
+            }
+
+            BitSet failed = new BitSet();
+            for (int i = from; i < to; i++) {
+                CharSequence value = values.get(i);
+                if (longs != null) {
+                    if (!toLong(current, value, longs, i)) {
+                        longs[i] = 0;
+                        failed.set(i);
+                    }
+                } else if (!toDouble(current, value, doubles, i)) {
+                    doubles[i] = Double.NaN;
+                    failed.set(i);
+                }
+            }
+            return failed;
+        }
+
+    }
+
     // -- formatter -----------------------------------------------------------
 
     /**
@@ -196,7 +542,7 @@ public class NumberUtils {
      * @return Der formatierte Wert.
      */
     public String formatLong(final long value) {
-        return (format(new Double(value)));
+        return spec.format(value);
     }
 
     /**
@@ -206,7 +552,22 @@ public class NumberUtils {
      * @return Der formatierte Wert.
      */
     public String formatDouble(final double value) {
-        return (format(new Double(value)));
+        return spec.format(value);
+    }
+
+    /**
+     * Hängt ein formatiertes <code>double</code> an einen
+     * <code>StringBuilder</code> an. Für einfache Pattern werden dabei
+     * keine Objekte erzeugt.
+     *
+     * @param value <code>double</code>
+     * @param sb Das Ziel.
+     * @return Das Ziel.
+     */
+    public StringBuilder formatDouble(final double value,
+        final StringBuilder sb) {
+
+        return spec.format(value, sb);
     }
 
     /**
@@ -216,11 +577,10 @@ public class NumberUtils {
      * @return Der formatierte Wert.
      */
     public String format(final Number value) {
-        DecimalFormat decimalFormat = createNumberFormatter();
         if (value == null) {
             return EMPTY;
         } else {
-            return (decimalFormat.format(value));
+            return spec.format(value);
         }
     }
 
@@ -229,6 +589,7 @@ public class NumberUtils {
      * 
      * @param value Ein String.
      * @return Der übersetzte Wert als <code>Number</code>.
+     * @throws NumberParseException Der String konnte nicht geparst werden.
      * 
      * @see #parseNumber(String)
      */
@@ -237,7 +598,7 @@ public class NumberUtils {
         try {
             number = parseNumber(value);
         } catch (ParseException ex) {
-            throw new RuntimeException(ex);
+            throw new NumberParseException(value, ex.getErrorOffset(), ex);
         }
         return number;
     }
@@ -250,8 +611,7 @@ public class NumberUtils {
      * @throws ParseException Der String konnte nicht geparst werden.
      */
     public Number parseNumber(final String value) throws ParseException {
-        DecimalFormat decimalFormat = createNumberFormatter();
-        return (decimalFormat.parse(value));
+        return spec.parse(value);
     }
 
 }
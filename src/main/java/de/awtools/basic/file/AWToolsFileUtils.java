@@ -69,6 +69,31 @@ public class AWToolsFileUtils {
     public static final Pattern WINDOWS_ROOT_PATTERN =
             Pattern.compile("^[a-zA-Z]:");
 
+    /** Ein Puffer pro Thread für {@link #normalizePath(String)}. */
+    private static final ThreadLocal<PathNormalizer> NORMALIZER =
+            new ThreadLocal<PathNormalizer>() {
+                @Override
+                protected PathNormalizer initialValue() {
+                    return new PathNormalizer();
+                }
+            };
+
+    /**
+     * Bis zu dieser Verzeichnistiefe sind die Pfade von
+     * {@link #pathToRoot(int)} vorberechnet.
+     */
+    public static final int MAX_CACHED_LEVEL = 64;
+
+    /** Die vorberechneten Pfade von {@link #pathToRoot(int)}. */
+    private static final String[] PATHS_TO_ROOT =
+            new String[MAX_CACHED_LEVEL + 1];
+
+    static {
+        for (int i = 0; i <= MAX_CACHED_LEVEL; i++) {
+            PATHS_TO_ROOT[i] = buildPathToRoot(i);
+        }
+    }
+
     /** Utility Klassen werden nicht instanziert. */
     private AWToolsFileUtils() {
     }
@@ -147,50 +172,28 @@ public class AWToolsFileUtils {
      *
      * @param basePath Ein Basisverzeichnis.
      * @param relativeFileName Ein relativer Filename (ab Basis).
+     *
+     * @see DirectoryCreator
      */
     public static void createFilePath(final String basePath,
         final String relativeFileName) {
 
-        if (StringUtils.contains(relativeFileName, '\\')) {
-            createFilePath(basePath, relativeFileName, '\\');
-        } else if (StringUtils.contains(relativeFileName, '/')) {
-            createFilePath(basePath, relativeFileName, '/');
-        } else {
+        PathSlice parent = PathSlice.of(relativeFileName).getParent();
+        if (parent.isRoot()) {
             log.debug("Directory creation not necessary!");
+            return;
         }
-    }
 
-    /**
-     * Unterstützt die {@link #createFilePath(String, String)} bei ihrer
-     * Arbeit.
-     *
-     * @param basePath Ein Basisverzeichnis.
-     * @param relativeFileName Ein relativer Filename (ab Basis).
-     * @param separator Der Separator für Verzeichnisse.
-     */
-    private static void createFilePath(final String basePath,
-        final String relativeFileName, final char separator) {
-
-        StringBuilder path = new StringBuilder(basePath);
-
-        // Alle möglichen Verzeichnisse/Unterverzeichnisse ermitteln ...
-        String[] split = StringUtils.split(relativeFileName, separator);
-
-        // ... und anlegen. Der letzte Eintrag bezeichnet die eigentliche Datei.
-        for (int i = 0, max = split.length - 1; i < max; i++) {
-            if ((!path.toString().endsWith("/"))
-                && (!path.toString().endsWith("\\"))) {
-                path.append(AWToolsFileUtils.FILESEPARATOR);
-            }
-            path.append(split[i]);
-
-            File newDirFile = new File(path.toString());
-            if (!newDirFile.exists()) {
-                if (log.isDebugEnabled()) {
-                    log.info("mkdir " + path);
-                }
-                newDirFile.mkdirs();
+        // Ein Aufruf für den ganzen Pfad. mkdirs() legt alle fehlenden
+        // Verzeichnisse an.
+        File dir =
+                new File(basePath, parent.subSequence(1, parent.length())
+                    .toString());
+        if (!dir.isDirectory()) {
+            if (log.isDebugEnabled()) {
+                log.debug("mkdir " + dir);
             }
+            dir.mkdirs();
         }
     }
 
@@ -202,33 +205,32 @@ public class AWToolsFileUtils {
      *
      * @param fileName Die gesuchte Datei.
      * @return Anzahl der Verzeichnistiefen.
+     *
+     * @see PathSlice#getDirLevel()
      */
     public static int countDirLevel(final String fileName) {
-        // Normalisieren und ...
-        String newFileName = AWToolsFileUtils.normalizePath(fileName);
-
-        /*
-        // ... nur noch die '/' zählen und fertig (ohne Root!)
-        int correction = 0;
-
-        if (fileName.startsWith(WINFILE_SEPERATOR)) {
-            correction = 1;
-        } else if (WINDOWS_ROOT_PATTERN.matcher(newFileName).find()) {
-            correction = 1;
-        }
-        */
-        //return (StringUtils.countMatches(newFileName, "/") - correction);
-        return (StringUtils.countMatches(newFileName, "/") - 1);
+        return PathSlice.of(fileName).getDirLevel();
     }
 
     /**
-     * Erstellt einen relativen Pfad anhand der übergebenen Level-Nummer.
+     * Erstellt einen relativen Pfad anhand der übergebenen Level-Nummer. Die
+     * Pfade bis zur Level-Nummer {@link #MAX_CACHED_LEVEL} sind vorberechnet.
      *
      * @param level Die Level-Nummer.
      * @return Der generierte relative Pfad.
      */
     public static String pathToRoot(final int level) {
-        StringBuilder buf = new StringBuilder("./");
+        if (level < 0) {
+            return PATHS_TO_ROOT[0];
+        } else if (level <= MAX_CACHED_LEVEL) {
+            return PATHS_TO_ROOT[level];
+        }
+        return buildPathToRoot(level);
+    }
+
+    private static String buildPathToRoot(final int level) {
+        StringBuilder buf = new StringBuilder(2 + level * UP.length());
+        buf.append("./");
         for (int i = 0; i < level; i++) {
             buf.append(UP);
         }
@@ -245,7 +247,7 @@ public class AWToolsFileUtils {
      * @return Ein relativer Pfad zur Wurzel.
      */
     public static String pathToRoot(final String fileName) {
-        return AWToolsFileUtils.pathToRoot(AWToolsFileUtils.countDirLevel(fileName));
+        return PathSlice.of(fileName).getPathToRoot();
     }
 
     /**
@@ -302,6 +304,8 @@ public class AWToolsFileUtils {
      * @return Eine Liste der Dateien, die den selben Dateibezeichner haben
      *  wie im <code>fileName</code> und auf dem Pfad zwischen Basisverzeichnis
      *  und der gesuchten Datei liegen.
+     *
+     * @see FileFinder
      */
     public static List<File> findFiles(final File basePath,
         final String relativePath, final String fileName) {
@@ -313,14 +317,10 @@ public class AWToolsFileUtils {
             filesWithSameName.add(fileInBase);
         }
 
-        String newRelativePath = AWToolsFileUtils.normalizePath(relativePath);
-        String[] split = StringUtils.split(newRelativePath, "/");
-
-        StringBuilder intermediateDir = new StringBuilder();
-        for (int i = 0; i < split.length; i++) {
-            intermediateDir.append(split[i]).append(File.separatorChar);
-
-            File currentDir = new File(basePath, intermediateDir.toString());
+        PathSlice path = PathSlice.of(relativePath);
+        File currentDir = basePath;
+        for (int i = 0, max = path.getSegmentCount(); i < max; i++) {
+            currentDir = new File(currentDir, path.getSegment(i).toString());
             File checkMyExistence = new File(currentDir, fileName);
 
             if (checkMyExistence.exists()) {
@@ -334,9 +334,12 @@ public class AWToolsFileUtils {
     /**
      * Normalisiert einen Pfadausdruck. D.h. aus den Windows-Trenner werden
      * Unix-Trenner, aus /./ wird /. Falls / vorne fehlt, wird dieser
-     * vorangestellt. Doppelte // werden durch / ersetzt. Windows
+     * vorangestellt. Mehrfache // werden durch / ersetzt. Windows
      * Laufwerksbezeichner werden eliminiert.<br/>
      *
+     * Der Pfad wird in einem Durchlauf in einen wiederverwendbaren Puffer
+     * (pro Thread) geschrieben. Siehe {@link PathNormalizer}.<br/>
+     *
      * <b>ACHTUNG:</b> URL wie file://c:/temp werden nicht korrekt verarbeitet,
      * da das // ebenfalls durch / ersetzt wird. 
      *
@@ -344,38 +347,9 @@ public class AWToolsFileUtils {
      * @return Der normalisierte Dateiname.
      */
     public static String normalizePath(final String fileName) {
-        // Alle Windows Trenner durch Unix Trenner ersetzen.
-        String newFileName =
-                StringUtils.replace(fileName, "\\", WINFILE_SEPERATOR);
-
-        // Alle // durch / ersetzen.
-        newFileName = StringUtils.replace(newFileName, "//", WINFILE_SEPERATOR);
-        newFileName =
-                StringUtils.replace(newFileName, "///", WINFILE_SEPERATOR);
-
-        // Alle /./ durch / ersetzen. 
-        newFileName =
-                StringUtils.replace(newFileName, "/./", WINFILE_SEPERATOR);
-
-        // Startsymbole normalisieren.
-        if (newFileName.startsWith("./")) {
-            newFileName = StringUtils.replace(newFileName, ".", "", 1);
-        }
-
-        if (WINDOWS_ROOT_PATTERN.matcher(newFileName).find()) {
-            newFileName = newFileName.substring(2);
-        }
-
-        if (!newFileName.startsWith(WINFILE_SEPERATOR)) {
-            newFileName = WINFILE_SEPERATOR + newFileName;
-        }
-
-        // / Endsymbol bei Verzeichnissen entfernen
-        if (newFileName.endsWith(WINFILE_SEPERATOR)) {
-            newFileName = StringUtils.removeEnd(newFileName, WINFILE_SEPERATOR);
-        }
-
-        return newFileName;
+        PathNormalizer normalizer = NORMALIZER.get();
+        normalizer.normalize(fileName);
+        return normalizer.toString();
     }
 
     /**
@@ -388,14 +362,11 @@ public class AWToolsFileUtils {
      * @param fileName Der Dateibezeichner dessen Verzeichnispfad ermittelt
      *  werden soll.
      * @return Der Verzeichnispfad.
+     *
+     * @see PathSlice#getParent()
      */
     public static String getParent(final String fileName) {
-        String tmp = AWToolsFileUtils.normalizePath(fileName);
-        if (StringUtils.contains(tmp, "/")) {
-            return StringUtils.substringBeforeLast(tmp, "/");
-        } else {
-            return "";
-        }
+        return PathSlice.of(fileName).getParent().toString();
     }
 
     /**
@@ -403,14 +374,11 @@ public class AWToolsFileUtils {
      * 
      * @param fileName Der zu untersuchende Dateibezeichner. 
      * @return Liefert den Dateibezeichner ohne Pfadangaben.
+     *
+     * @see PathSlice#getName()
      */
     public static String getFileName(final String fileName) {
-        String tmp = AWToolsFileUtils.normalizePath(fileName);
-        if (StringUtils.contains(tmp, "/")) {
-            return StringUtils.substringAfterLast(tmp, "/");
-        } else {
-            return tmp;
-        }
+        return PathSlice.of(fileName).getName().toString();
     }
 
 }
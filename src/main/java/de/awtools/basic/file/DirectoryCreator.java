@@ -0,0 +1,192 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.file;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang.Validate;
+import org.slf4j.Logger;
+
+import de.awtools.basic.LoggerFactory;
+
+/**
+ * Legt die Verzeichnisse für Dateien unterhalb eines Basisverzeichnisses an
+ * (siehe {@link AWToolsFileUtils#createFilePath(String, String)}). Alle
+ * Verzeichnisse, die angelegt oder geprüft wurden, werden gemerkt. Ein
+ * weiterer Aufruf für ein bekanntes Verzeichnis kommt ohne Zugriff auf das
+ * Dateisystem aus. Das ist z.B. beim Entpacken vieler Dateien in einen
+ * Verzeichnisbaum hilfreich:
+ * <pre>
+ * DirectoryCreator creator = new DirectoryCreator(Paths.get("/tmp/www"));
+ * creator.createParentDirectories(entryNames);
+ * </pre>
+ * Verzeichnisse, die nachträglich von außen gelöscht werden, erkennt die
+ * Klasse nicht. Siehe {@link #clear()}. Die Klasse ist thread-sicher und
+ * kann von mehreren schreibenden Threads gemeinsam verwendet werden.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public class DirectoryCreator {
+
+    /** Der private Logger der Klasse. */
+    private static final Logger log = LoggerFactory.make();
+
+    /** Sortiert die tiefsten Verzeichnisse nach vorne. */
+    private static final Comparator<PathSlice> DEEPEST_FIRST =
+            new Comparator<PathSlice>() {
+                @Override
+                public int compare(final PathSlice o1, final PathSlice o2) {
+                    return Integer.compare(o2.getSegmentCount(),
+                        o1.getSegmentCount());
+                }
+            };
+
+    /** Das Basisverzeichnis. */
+    private final Path baseDir;
+
+    /** Die Verzeichnisse, die angelegt oder geprüft wurden. */
+    private final Set<Path> knownDirectories = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Konstruktor.
+     *
+     * @param _baseDir Das Basisverzeichnis.
+     */
+    public DirectoryCreator(final Path _baseDir) {
+        Validate.notNull(_baseDir, "baseDir is null.");
+        baseDir = _baseDir;
+    }
+
+    /**
+     * Legt alle Verzeichnisse an, die für die Datei
+     * <code>relativeFileName</code> notwendig sind. Die Datei selbst wird
+     * nicht angelegt.
+     *
+     * @param relativeFileName Ein relativer Dateiname (ab Basis). '/' und '\'
+     *  sind Verzeichnistrenner.
+     * @return Das Verzeichnis der Datei.
+     * @throws IOException Das Verzeichnis konnte nicht angelegt werden.
+     */
+    public Path createParentDirectories(final String relativeFileName)
+        throws IOException {
+
+        return createDirectory(PathSlice.of(relativeFileName).getParent());
+    }
+
+    /**
+     * Legt alle Verzeichnisse an, die für die Dateien
+     * <code>relativeFileNames</code> notwendig sind. Jedes Verzeichnis wird
+     * nur einmal betrachtet. Die tiefsten Verzeichnisse werden zuerst
+     * angelegt, damit die übergeordneten Verzeichnisse nicht mehr geprüft
+     * werden müssen.
+     *
+     * @param relativeFileNames Relative Dateinamen (ab Basis).
+     * @return Die Anzahl der Verzeichnisse, die an das Dateisystem übergeben
+     *  wurden.
+     * @throws IOException Ein Verzeichnis konnte nicht angelegt werden.
+     */
+    public int createParentDirectories(
+        final Collection<String> relativeFileNames) throws IOException {
+
+        Set<PathSlice> unique = new LinkedHashSet<>();
+        for (String relativeFileName : relativeFileNames) {
+            unique.add(PathSlice.of(relativeFileName).getParent());
+        }
+
+        List<PathSlice> parents = new ArrayList<>(unique);
+        Collections.sort(parents, DEEPEST_FIRST);
+
+        int created = 0;
+        for (PathSlice parent : parents) {
+            Path dir = resolve(parent);
+            if (!knownDirectories.contains(dir)) {
+                createDirectory(dir);
+                created++;
+            }
+        }
+        return created;
+    }
+
+    /**
+     * Prüft, ob ein Verzeichnis bereits angelegt oder geprüft wurde.
+     *
+     * @param relativeDirectory Ein relatives Verzeichnis (ab Basis).
+     * @return <code>true</code>, wenn das Verzeichnis bekannt ist.
+     */
+    public boolean isKnown(final String relativeDirectory) {
+        return knownDirectories.contains(
+            resolve(PathSlice.of(relativeDirectory)));
+    }
+
+    /**
+     * Vergisst alle bekannten Verzeichnisse.
+     */
+    public void clear() {
+        knownDirectories.clear();
+    }
+
+    private Path createDirectory(final PathSlice directory) throws IOException {
+        Path dir = resolve(directory);
+        if (!knownDirectories.contains(dir)) {
+            createDirectory(dir);
+        }
+        return dir;
+    }
+
+    private void createDirectory(final Path dir) throws IOException {
+        if (log.isDebugEnabled()) {
+            log.debug("mkdir " + dir);
+        }
+        Files.createDirectories(dir);
+
+        // Alle Verzeichnisse bis zur Basis existieren jetzt.
+        Path current = dir;
+        while (current != null && current.startsWith(baseDir)
+            && knownDirectories.add(current)) {
+            current = current.getParent();
+        }
+    }
+
+    private Path resolve(final PathSlice directory) {
+        if (directory.isRoot()) {
+            return baseDir;
+        }
+        return baseDir.resolve(directory.subSequence(1, directory.length())
+            .toString());
+    }
+
+}
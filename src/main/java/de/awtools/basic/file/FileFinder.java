@@ -0,0 +1,542 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.file;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.apache.commons.lang.Validate;
+import org.slf4j.Logger;
+
+import de.awtools.basic.LoggerFactory;
+
+/**
+ * Sucht rekursiv nach Dateien unterhalb eines Basisverzeichnisses. Jedes
+ * Unterverzeichnis wird als eigene Aufgabe in einem
+ * <code>ForkJoinPool</code> abgearbeitet. Die Treffer werden über einen
+ * <code>Stream</code> geliefert, sobald sie gefunden werden:
+ * <pre>
+ * FileFinder finder = new FileFinder(Paths.get("/var/www"));
+ * finder.setGlob("**&#47;*.png");
+ * finder.setMaxDepth(8);
+ * try (Stream&lt;Path&gt; pngs = finder.stream()) {
+ *     pngs.forEach(...);
+ * }
+ * </pre>
+ * Der Matcher wird auf den Pfad relativ zum Basisverzeichnis angewendet.
+ * Das Basisverzeichnis selbst ist nie Teil des Ergebnisses. Wird der
+ * <code>Stream</code> geschlossen oder ist das Limit erreicht, bricht die
+ * Suche ab. Die Reihenfolge der Treffer ist nicht definiert.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public class FileFinder {
+
+    /** Der private Logger der Klasse. */
+    private static final Logger log = LoggerFactory.make();
+
+    /** Ein Matcher, der alles akzeptiert. */
+    private static final PathMatcher ALL = new PathMatcher() {
+        @Override
+        public boolean matches(final Path path) {
+            return true;
+        }
+    };
+
+    /** Markiert das Ende der Suche in der Ergebnis-Queue. */
+    private static final Object END = new Object();
+
+    /** Die Default-Größe der Ergebnis-Queue. */
+    private static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    /** Das Basisverzeichnis. */
+    private final Path root;
+
+    private PathMatcher matcher = ALL;
+
+    private int maxDepth = Integer.MAX_VALUE;
+
+    private boolean followLinks = false;
+
+    private boolean includeDirectories = false;
+
+    private long limit = Long.MAX_VALUE;
+
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+
+    /**
+     * Konstruktor.
+     *
+     * @param _root Das Basisverzeichnis der Suche.
+     */
+    public FileFinder(final Path _root) {
+        Validate.notNull(_root, "root is null.");
+        root = _root;
+    }
+
+    /**
+     * Setzt ein Glob-Pattern, z.B. <code>**&#47;*.html</code>. Siehe
+     * {@link FileSystem#getPathMatcher(String)}.
+     *
+     * @param glob Ein Glob-Pattern.
+     */
+    public void setGlob(final String glob) {
+        setMatcher(root.getFileSystem().getPathMatcher("glob:" + glob));
+    }
+
+    /**
+     * Setzt einen regulären Ausdruck. Siehe
+     * {@link FileSystem#getPathMatcher(String)}.
+     *
+     * @param regex Ein regulärer Ausdruck.
+     */
+    public void setRegex(final String regex) {
+        setMatcher(root.getFileSystem().getPathMatcher("regex:" + regex));
+    }
+
+    /**
+     * Setzt einen beliebigen Matcher. <code>PathMatcher</code> ist ein
+     * funktionales Interface und kann z.B. als Lambda übergeben werden.
+     *
+     * @param _matcher Der Matcher.
+     */
+    public void setMatcher(final PathMatcher _matcher) {
+        Validate.notNull(_matcher, "matcher is null.");
+        matcher = _matcher;
+    }
+
+    /**
+     * Die maximale Suchtiefe. 1 durchsucht nur das Basisverzeichnis.
+     * Default ist unbegrenzt.
+     *
+     * @param _maxDepth Die maximale Suchtiefe.
+     */
+    public void setMaxDepth(final int _maxDepth) {
+        Validate.isTrue(_maxDepth >= 0, "maxDepth must not be negative.");
+        maxDepth = _maxDepth;
+    }
+
+    /**
+     * Symbolischen Links folgen? Default ist <code>false</code>. Zyklen
+     * werden erkannt und nur einmal durchsucht.
+     *
+     * @param _followLinks <code>true</code>, symbolischen Links folgen.
+     */
+    public void setFollowLinks(final boolean _followLinks) {
+        followLinks = _followLinks;
+    }
+
+    /**
+     * Sollen auch Verzeichnisse geliefert werden? Default ist
+     * <code>false</code>.
+     *
+     * @param _includeDirectories <code>true</code>, Verzeichnisse liefern.
+     */
+    public void setIncludeDirectories(final boolean _includeDirectories) {
+        includeDirectories = _includeDirectories;
+    }
+
+    /**
+     * Die maximale Anzahl von Treffern. Danach wird die Suche abgebrochen.
+     *
+     * @param _limit Die maximale Anzahl von Treffern.
+     */
+    public void setLimit(final long _limit) {
+        Validate.isTrue(_limit >= 0, "limit must not be negative.");
+        limit = _limit;
+    }
+
+    /**
+     * Der Pool für die Suche. Default ist der
+     * {@link ForkJoinPool#commonPool()}.
+     *
+     * @param _pool Der Pool.
+     */
+    public void setPool(final ForkJoinPool _pool) {
+        Validate.notNull(_pool, "pool is null.");
+        pool = _pool;
+    }
+
+    /**
+     * Die Anzahl der Treffer, die gepuffert werden, bevor die Suche auf den
+     * Verbraucher wartet.
+     *
+     * @param _queueCapacity Die Größe des Puffers.
+     */
+    public void setQueueCapacity(final int _queueCapacity) {
+        Validate.isTrue(_queueCapacity > 0,
+            "queueCapacity must be positive.");
+        queueCapacity = _queueCapacity;
+    }
+
+    /**
+     * Startet die Suche. Der <code>Stream</code> sollte geschlossen werden,
+     * damit eine nicht vollständig gelesene Suche sofort abgebrochen wird.
+     * Ein nicht geschlossener <code>Stream</code>, z.B. nach
+     * <code>findFirst()</code>, wird spätestens abgebrochen, wenn der
+     * Garbage Collector seinen Iterator eingesammelt hat.
+     *
+     * @return Die gefundenen Dateien.
+     */
+    public Stream<Path> stream() {
+        Search search = new Search();
+        Results results = new Results(search);
+        search.start(results);
+        return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(results,
+                Spliterator.NONNULL | Spliterator.DISTINCT), false).onClose(
+            search::cancel);
+    }
+
+    /**
+     * Sucht und liefert alle Treffer als Liste.
+     *
+     * @return Die gefundenen Dateien.
+     */
+    public List<Path> find() {
+        try (Stream<Path> paths = stream()) {
+            return paths.collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Eine laufende Suche. Die Aufgaben im Pool kennen den Iterator über die
+     * Treffer ({@link Results}) nur über eine <code>WeakReference</code>.
+     * Wird der Iterator nicht mehr verwendet und eingesammelt, bricht die
+     * Suche ab, statt im Pool auf einen Verbraucher zu warten, den es nicht
+     * mehr gibt.
+     */
+    private final class Search {
+
+        private final BlockingQueue<Object> queue =
+                new ArrayBlockingQueue<>(queueCapacity);
+
+        private final Set<Object> visited = ConcurrentHashMap.newKeySet();
+
+        private final LinkOption[] linkOptions =
+                followLinks ? new LinkOption[0]
+                        : new LinkOption[] { LinkOption.NOFOLLOW_LINKS };
+
+        private volatile boolean cancelled;
+
+        private volatile RuntimeException failure;
+
+        private WeakReference<Results> consumer;
+
+        void start(final Results results) {
+            consumer = new WeakReference<>(results);
+            if (followLinks) {
+                try {
+                    enter(Files.readAttributes(root, BasicFileAttributes.class),
+                        root);
+                } catch (IOException ex) {
+                    log.debug("Unable to read attributes of {}", root, ex);
+                }
+            }
+
+            pool.execute(new RecursiveAction() {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected void compute() {
+                    try {
+                        new DirectoryTask(Search.this, root, 0).invoke();
+                    } catch (RuntimeException ex) {
+                        failure = ex;
+                    } finally {
+                        publish(END);
+                    }
+                }
+            });
+        }
+
+        void cancel() {
+            cancelled = true;
+            queue.clear();
+        }
+
+        boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Merkt sich ein Verzeichnis, wenn symbolischen Links gefolgt wird.
+         *
+         * @return <code>false</code>, wenn das Verzeichnis schon besucht
+         *  wurde.
+         */
+        boolean enter(final BasicFileAttributes attrs, final Path dir) {
+            if (!followLinks) {
+                return true;
+            }
+            Object key = attrs.fileKey();
+            if (key == null) {
+                try {
+                    key = dir.toRealPath();
+                } catch (IOException ex) {
+                    return false;
+                }
+            }
+            return visited.add(key);
+        }
+
+        /**
+         * Stellt einen Treffer in die Queue. Ist die Queue voll, wird über
+         * <code>ForkJoinPool.managedBlock()</code> gewartet, damit der Pool
+         * blockierte Threads ausgleichen kann.
+         */
+        void publish(final Object element) {
+            if (cancelled || queue.offer(element)) {
+                return;
+            }
+            try {
+                ForkJoinPool.managedBlock(new Publisher(element));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                cancel();
+            }
+        }
+
+        /**
+         * Wartet, bis ein Treffer in die Queue passt oder die Suche
+         * abgebrochen wird.
+         */
+        private final class Publisher implements ForkJoinPool.ManagedBlocker {
+
+            private final Object element;
+
+            private boolean done;
+
+            private Publisher(final Object _element) {
+                element = _element;
+            }
+
+            @Override
+            public boolean block() throws InterruptedException {
+                while (!done) {
+                    if (queue.offer(element, 100, TimeUnit.MILLISECONDS)) {
+                        done = true;
+                    } else if (cancelled) {
+                        done = true;
+                    } else if (consumer.get() == null) {
+                        log.debug("Search in {} abandoned.", root);
+                        cancel();
+                        done = true;
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public boolean isReleasable() {
+                if (!done && (cancelled || queue.offer(element))) {
+                    done = true;
+                }
+                return done;
+            }
+
+        }
+
+    }
+
+    /**
+     * Der Iterator über die Treffer einer Suche. Wird nur vom Verbraucher
+     * referenziert.
+     */
+    private final class Results implements Iterator<Path> {
+
+        private final Search search;
+
+        private Path next;
+
+        private boolean finished;
+
+        private long delivered;
+
+        private Results(final Search _search) {
+            search = _search;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next != null) {
+                return true;
+            }
+            if (finished) {
+                return false;
+            }
+            if (delivered >= limit || search.isCancelled()) {
+                finish();
+                return false;
+            }
+
+            Object element;
+            try {
+                element = search.queue.take();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                finish();
+                return false;
+            }
+
+            if (element == END) {
+                finish();
+                RuntimeException ex = search.failure;
+                if (ex != null) {
+                    throw ex;
+                }
+                return false;
+            }
+            next = (Path) element;
+            return true;
+        }
+
+        @Override
+        public Path next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Path path = next;
+            next = null;
+            delivered++;
+            return path;
+        }
+
+        private void finish() {
+            finished = true;
+            search.cancel();
+        }
+
+    }
+
+    /**
+     * Durchsucht ein Verzeichnis und verteilt die Unterverzeichnisse auf
+     * neue Aufgaben.
+     */
+    private final class DirectoryTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Search search;
+
+        private final Path dir;
+
+        private final int depth;
+
+        private DirectoryTask(final Search _search, final Path _dir,
+            final int _depth) {
+
+            search = _search;
+            dir = _dir;
+            depth = _depth;
+        }
+
+        @Override
+        protected void compute() {
+            List<DirectoryTask> subtasks = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path entry : entries) {
+                    if (search.isCancelled()) {
+                        break;
+                    }
+                    visit(entry, subtasks);
+                }
+            } catch (IOException | DirectoryIteratorException ex) {
+                log.warn("Unable to read directory {}: {}", dir, ex.toString());
+            }
+
+            for (DirectoryTask subtask : subtasks) {
+                subtask.join();
+            }
+        }
+
+        private void visit(final Path entry, final List<DirectoryTask> subtasks) {
+            BasicFileAttributes attrs = readAttributes(entry);
+            if (attrs == null) {
+                return;
+            }
+
+            boolean directory = attrs.isDirectory();
+            if ((!directory || includeDirectories)
+                && matcher.matches(root.relativize(entry))) {
+                search.publish(entry);
+            }
+
+            if (directory && depth + 1 < maxDepth
+                && search.enter(attrs, entry)) {
+                DirectoryTask subtask =
+                        new DirectoryTask(search, entry, depth + 1);
+                subtask.fork();
+                subtasks.add(subtask);
+            }
+        }
+
+        private BasicFileAttributes readAttributes(final Path entry) {
+            try {
+                return Files.readAttributes(entry, BasicFileAttributes.class,
+                    search.linkOptions);
+            } catch (IOException ex) {
+                // Z.B. ein symbolischer Link, der ins Leere zeigt.
+                try {
+                    return Files.readAttributes(entry,
+                        BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                } catch (IOException ex2) {
+                    log.debug("Unable to read attributes of {}", entry, ex2);
+                    return null;
+                }
+            }
+        }
+
+    }
+
+}
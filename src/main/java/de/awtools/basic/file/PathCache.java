@@ -0,0 +1,290 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.file;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.lang.Validate;
+
+/**
+ * Ein größenbeschränkter Cache für normalisierte Pfade. Schlüssel ist der
+ * unveränderte Pfadausdruck, Wert der normalisierte {@link PathSlice}. Der
+ * Cache ist in Segmente (Stripes) mit jeweils eigenem Lock aufgeteilt.
+ * Jedes Segment verdrängt den am längsten nicht benutzten Eintrag (LRU).
+ * Die maximale Anzahl von Einträgen wird auf die Segmente verteilt und nie
+ * überschritten. Da jedes Segment für sich verdrängt, kann ein stark
+ * genutztes Segment bereits verdrängen, während andere noch Platz haben.
+ * Der Cache muss explizit angelegt werden, z.B. von einer Template-Engine,
+ * die immer wieder dieselben Seitenpfade auflöst:
+ * <pre>
+ * PathCache cache = new PathCache(4096);
+ * String root = cache.pathToRoot("site/2015/01/index.html");
+ * </pre>
+ * Die Klasse ist thread-sicher.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public class PathCache {
+
+    /** Die Default-Anzahl der Segmente. */
+    public static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    /** Die Segmente des Caches. */
+    private final Stripe[] stripes;
+
+    /** Die maximale Anzahl von Einträgen. */
+    private final int maximumSize;
+
+    /**
+     * Konstruktor.
+     *
+     * @param _maximumSize Die maximale Anzahl von Einträgen.
+     */
+    public PathCache(final int _maximumSize) {
+        this(_maximumSize, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * Konstruktor.
+     *
+     * @param _maximumSize Die maximale Anzahl von Einträgen.
+     * @param concurrencyLevel Die Anzahl der Segmente. Wird auf die nächste
+     *  Zweierpotenz aufgerundet, ist aber nie größer als
+     *  <code>_maximumSize</code>.
+     */
+    public PathCache(final int _maximumSize, final int concurrencyLevel) {
+        Validate.isTrue(_maximumSize > 0, "maximumSize must be positive.");
+        Validate.isTrue(concurrencyLevel > 0,
+            "concurrencyLevel must be positive.");
+
+        int stripeCount = 1;
+        while (stripeCount < concurrencyLevel
+            && (stripeCount << 1) <= _maximumSize) {
+
+            stripeCount <<= 1;
+        }
+
+        // Der Rest wird auf die ersten Segmente verteilt. Die Summe ist
+        // genau maximumSize.
+        maximumSize = _maximumSize;
+        stripes = new Stripe[stripeCount];
+        int stripeSize = _maximumSize / stripeCount;
+        int remainder = _maximumSize % stripeCount;
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(i < remainder ? stripeSize + 1
+                    : stripeSize);
+        }
+    }
+
+    /**
+     * Liefert den normalisierten Pfad.
+     *
+     * @param path Der Pfadausdruck.
+     * @return Der normalisierte Pfad.
+     */
+    public PathSlice getPathSlice(final String path) {
+        Stripe stripe = stripeFor(path);
+        synchronized (stripe) {
+            PathSlice slice = stripe.get(path);
+            if (slice != null) {
+                stripe.hits++;
+                return slice;
+            }
+            stripe.misses++;
+        }
+
+        // Das Normalisieren passiert ausserhalb des Locks.
+        PathSlice slice = PathSlice.of(path);
+        synchronized (stripe) {
+            PathSlice other = stripe.get(path);
+            if (other != null) {
+                return other;
+            }
+            stripe.put(path, slice);
+        }
+        return slice;
+    }
+
+    /**
+     * Siehe {@link AWToolsFileUtils#normalizePath(String)}.
+     *
+     * @param path Der Pfadausdruck.
+     * @return Der normalisierte Pfad.
+     */
+    public String normalizePath(final String path) {
+        return getPathSlice(path).toString();
+    }
+
+    /**
+     * Siehe {@link AWToolsFileUtils#countDirLevel(String)}.
+     *
+     * @param path Der Pfadausdruck.
+     * @return Anzahl der Verzeichnistiefen.
+     */
+    public int countDirLevel(final String path) {
+        return getPathSlice(path).getDirLevel();
+    }
+
+    /**
+     * Siehe {@link AWToolsFileUtils#pathToRoot(String)}.
+     *
+     * @param path Der Pfadausdruck.
+     * @return Ein relativer Pfad zur Wurzel.
+     */
+    public String pathToRoot(final String path) {
+        return getPathSlice(path).getPathToRoot();
+    }
+
+    /**
+     * Die maximale Anzahl von Einträgen.
+     *
+     * @return Die maximale Anzahl von Einträgen.
+     */
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Die aktuelle Anzahl von Einträgen.
+     *
+     * @return Die Anzahl von Einträgen.
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Die Anzahl der Treffer.
+     *
+     * @return Die Anzahl der Treffer.
+     */
+    public long getHitCount() {
+        long count = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                count += stripe.hits;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Die Anzahl der Fehlgriffe.
+     *
+     * @return Die Anzahl der Fehlgriffe.
+     */
+    public long getMissCount() {
+        long count = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                count += stripe.misses;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Die Anzahl der verdrängten Einträge.
+     *
+     * @return Die Anzahl der verdrängten Einträge.
+     */
+    public long getEvictionCount() {
+        long count = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                count += stripe.evictions;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Entfernt alle Einträge. Die Zähler bleiben erhalten.
+     */
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PathCache[size=" + size() + ", hits=" + getHitCount()
+            + ", misses=" + getMissCount() + ", evictions="
+            + getEvictionCount() + "]";
+    }
+
+    private Stripe stripeFor(final String path) {
+        int h = path.hashCode();
+        h ^= (h >>> 16);
+        return stripes[h & (stripes.length - 1)];
+    }
+
+    /**
+     * Ein Segment des Caches. Alle Zugriffe sind über das Segment selbst
+     * synchronisiert.
+     */
+    private static final class Stripe extends LinkedHashMap<String, PathSlice> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maximumSize;
+
+        private long hits;
+
+        private long misses;
+
+        private long evictions;
+
+        private Stripe(final int _maximumSize) {
+            super(16, 0.75f, true);
+            maximumSize = _maximumSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(
+            final Map.Entry<String, PathSlice> eldest) {
+
+            if (size() > maximumSize) {
+                evictions++;
+                return true;
+            }
+            return false;
+        }
+
+    }
+
+}
@@ -0,0 +1,188 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.file;
+
+/**
+ * Normalisiert einen Pfadausdruck in einem einzigen Durchlauf. Das Ergebnis
+ * wird in einen wiederverwendbaren Puffer geschrieben. Eine Instanz ist
+ * nicht thread-sicher und sollte z.B. über ein <code>ThreadLocal</code>
+ * verwendet werden. Die Regeln entsprechen
+ * {@link AWToolsFileUtils#normalizePath(String)}:
+ * <ul>
+ *  <li>Ein Windows Laufwerksbezeichner am Anfang wird entfernt.</li>
+ *  <li>'\' und '/' sind Verzeichnistrenner. Folgen beliebig vieler Trenner
+ *   werden zu einem '/' zusammengefasst.</li>
+ *  <li>Segmente '.' werden entfernt.</li>
+ *  <li>Das Ergebnis beginnt immer mit einem '/', endet aber nie mit einem
+ *   '/'. Der Wurzelpfad wird zu einem Leerstring.</li>
+ * </ul>
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+final class PathNormalizer {
+
+    /** Die Start-Kapazität des Puffers. */
+    private static final int DEFAULT_CAPACITY = 128;
+
+    /** Der Puffer für den normalisierten Pfad. */
+    private char[] buffer;
+
+    /** Die Länge des normalisierten Pfads im Puffer. */
+    private int length;
+
+    /** Die Positionen der Verzeichnistrenner im Puffer. */
+    private int[] separators;
+
+    /** Die Anzahl der Segmente des normalisierten Pfads. */
+    private int segmentCount;
+
+    /**
+     * Konstruktor.
+     */
+    PathNormalizer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Konstruktor.
+     *
+     * @param capacity Die Start-Kapazität des Puffers.
+     */
+    PathNormalizer(final int capacity) {
+        buffer = new char[capacity];
+        separators = new int[capacity / 2 + 1];
+    }
+
+    /**
+     * Normalisiert den Pfadausdruck in den internen Puffer.
+     *
+     * @param path Der zu normalisierende Pfadausdruck.
+     * @return Die Länge des normalisierten Pfads.
+     */
+    int normalize(final CharSequence path) {
+        final int max = path.length();
+
+        // Im schlimmsten Fall kommt ein führender '/' hinzu.
+        if (buffer.length < max + 1) {
+            buffer = new char[Math.max(max + 1, buffer.length * 2)];
+        }
+        if (separators.length < max / 2 + 1) {
+            separators = new int[buffer.length / 2 + 1];
+        }
+
+        int i = 0;
+        if (max >= 2 && path.charAt(1) == ':' && isLetter(path.charAt(0))) {
+            i = 2;
+        }
+
+        int pos = 0;
+        int segments = 0;
+        while (i < max) {
+            char c = path.charAt(i);
+            if (isSeparator(c)) {
+                i++;
+                continue;
+            }
+
+            int start = i;
+            while (i < max && !isSeparator(path.charAt(i))) {
+                i++;
+            }
+
+            if (i - start == 1 && c == '.') {
+                continue;
+            }
+
+            separators[segments++] = pos;
+            buffer[pos++] = AWToolsFileUtils.WINFILE_SEPEATOR_CHAR;
+            for (int j = start; j < i; j++) {
+                buffer[pos++] = path.charAt(j);
+            }
+        }
+
+        length = pos;
+        segmentCount = segments;
+        return length;
+    }
+
+    /**
+     * Liefert den internen Puffer. Gültig sind die ersten
+     * {@link #getLength()} Zeichen.
+     *
+     * @return Der Puffer.
+     */
+    char[] getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Die Länge des zuletzt normalisierten Pfads.
+     *
+     * @return Die Länge.
+     */
+    int getLength() {
+        return length;
+    }
+
+    /**
+     * Liefert die Positionen der Verzeichnistrenner im Puffer. Gültig sind
+     * die ersten {@link #getSegmentCount()} Einträge.
+     *
+     * @return Die Positionen der Verzeichnistrenner.
+     */
+    int[] getSeparators() {
+        return separators;
+    }
+
+    /**
+     * Die Anzahl der Segmente des zuletzt normalisierten Pfads.
+     *
+     * @return Die Anzahl der Segmente.
+     */
+    int getSegmentCount() {
+        return segmentCount;
+    }
+
+    /**
+     * Liefert den zuletzt normalisierten Pfad als String.
+     *
+     * @return Der normalisierte Pfad.
+     */
+    @Override
+    public String toString() {
+        return new String(buffer, 0, length);
+    }
+
+    private static boolean isSeparator(final char c) {
+        return c == '/' || c == '\\';
+    }
+
+    private static boolean isLetter(final char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+}
@@ -0,0 +1,287 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.file;
+
+/**
+ * Ein normalisierter Pfad (siehe
+ * {@link AWToolsFileUtils#normalizePath(String)}). Der Pfad wird einmal
+ * normalisiert. Danach sind Verzeichnispfad, Dateiname und Verzeichnistiefe
+ * Sichten auf dasselbe <code>char</code>-Array, die ohne Kopie in O(1)
+ * ermittelt werden. Erst {@link #toString()} erzeugt einen String.<br/>
+ *
+ * Beispiel: <code>PathSlice.of("temp\\ab/./db/text.txt")</code> liefert
+ * den Pfad <code>/temp/ab/db/text.txt</code>, {@link #getParent()} den Pfad
+ * <code>/temp/ab/db</code> und {@link #getName()} <code>text.txt</code>.
+ * Die Klasse ist unveränderlich und thread-sicher.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public final class PathSlice implements CharSequence {
+
+    /** Der Wurzelpfad. */
+    private static final PathSlice ROOT =
+            new PathSlice(new char[0], new int[0], 0, 0);
+
+    /** Der normalisierte Pfad. Wird von allen Sichten geteilt. */
+    private final char[] chars;
+
+    /** Die Positionen der Verzeichnistrenner in <code>chars</code>. */
+    private final int[] separators;
+
+    /** Die Anzahl der Segmente dieser Sicht. */
+    private final int segmentCount;
+
+    /** Die Länge dieser Sicht. */
+    private final int length;
+
+    /** Der Pfad als String. Wird erst bei Bedarf erzeugt. */
+    private String string;
+
+    /** Der Hashcode. Wird erst bei Bedarf berechnet. */
+    private int hash;
+
+    private PathSlice(final char[] _chars, final int[] _separators,
+        final int _segmentCount, final int _length) {
+
+        chars = _chars;
+        separators = _separators;
+        segmentCount = _segmentCount;
+        length = _length;
+    }
+
+    /**
+     * Normalisiert einen Pfadausdruck.
+     *
+     * @param path Der zu normalisierende Pfadausdruck.
+     * @return Der normalisierte Pfad.
+     */
+    public static PathSlice of(final CharSequence path) {
+        PathNormalizer normalizer = new PathNormalizer(path.length() + 1);
+        normalizer.normalize(path);
+        if (normalizer.getSegmentCount() == 0) {
+            return ROOT;
+        }
+        return new PathSlice(normalizer.getBuffer(),
+            normalizer.getSeparators(), normalizer.getSegmentCount(),
+            normalizer.getLength());
+    }
+
+    /**
+     * Liefert den Verzeichnispfad. Für den Wurzelpfad wird der Wurzelpfad
+     * geliefert.
+     *
+     * @return Der Verzeichnispfad.
+     */
+    public PathSlice getParent() {
+        if (segmentCount == 0) {
+            return this;
+        }
+        int parentSegments = segmentCount - 1;
+        return new PathSlice(chars, separators, parentSegments,
+            separators[parentSegments]);
+    }
+
+    /**
+     * Liefert das letzte Segment des Pfads, also den Dateinamen. Für den
+     * Wurzelpfad wird ein Leerstring geliefert.
+     *
+     * @return Der Dateiname.
+     */
+    public CharSequence getName() {
+        if (segmentCount == 0) {
+            return "";
+        }
+        return subSequence(separators[segmentCount - 1] + 1, length);
+    }
+
+    /**
+     * Liefert ein Segment des Pfads.
+     *
+     * @param index Der Index des Segments. Beginnt bei 0.
+     * @return Das Segment.
+     */
+    public CharSequence getSegment(final int index) {
+        if (index < 0 || index >= segmentCount) {
+            throw new IndexOutOfBoundsException("Segment " + index);
+        }
+        int end = (index + 1 < segmentCount) ? separators[index + 1] : length;
+        return subSequence(separators[index] + 1, end);
+    }
+
+    /**
+     * Die Anzahl der Segmente. Der Wurzelpfad hat 0 Segmente.
+     *
+     * @return Die Anzahl der Segmente.
+     */
+    public int getSegmentCount() {
+        return segmentCount;
+    }
+
+    /**
+     * Die Anzahl der Verzeichnisstufen bis zum Dateinamen. Siehe
+     * {@link AWToolsFileUtils#countDirLevel(String)}. Der Wurzelpfad liefert
+     * -1.
+     *
+     * @return Anzahl der Verzeichnistiefen.
+     */
+    public int getDirLevel() {
+        return segmentCount - 1;
+    }
+
+    /**
+     * Ein relativer Pfad, der zur Wurzel führt. Siehe
+     * {@link AWToolsFileUtils#pathToRoot(String)}.
+     *
+     * @return Ein relativer Pfad zur Wurzel.
+     */
+    public String getPathToRoot() {
+        return AWToolsFileUtils.pathToRoot(getDirLevel());
+    }
+
+    /**
+     * Prüft, ob es sich um den Wurzelpfad handelt.
+     *
+     * @return <code>true</code>, wenn der Pfad keine Segmente hat.
+     */
+    public boolean isRoot() {
+        return segmentCount == 0;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(final int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index " + index);
+        }
+        return chars[index];
+    }
+
+    @Override
+    public CharSequence subSequence(final int start, final int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("Range " + start + " - "
+                + end);
+        }
+        return new CharArraySequence(chars, start, end);
+    }
+
+    @Override
+    public String toString() {
+        String s = string;
+        if (s == null) {
+            s = new String(chars, 0, length);
+            string = s;
+        }
+        return s;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            for (int i = 0; i < length; i++) {
+                h = 31 * h + chars[i];
+            }
+            hash = h;
+        }
+        return h;
+    }
+
+    @Override
+    public boolean equals(final Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (!(object instanceof PathSlice)) {
+            return false;
+        }
+
+        PathSlice other = (PathSlice) object;
+        if (length != other.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (chars[i] != other.chars[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Eine Sicht auf einen Ausschnitt eines <code>char</code>-Arrays.
+     */
+    private static final class CharArraySequence implements CharSequence {
+
+        private final char[] chars;
+
+        private final int start;
+
+        private final int end;
+
+        private CharArraySequence(final char[] _chars, final int _start,
+            final int _end) {
+
+            chars = _chars;
+            start = _start;
+            end = _end;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(final int index) {
+            if (index < 0 || index >= end - start) {
+                throw new IndexOutOfBoundsException("Index " + index);
+            }
+            return chars[start + index];
+        }
+
+        @Override
+        public CharSequence subSequence(final int _start, final int _end) {
+            if (_start < 0 || _end > end - start || _start > _end) {
+                throw new IndexOutOfBoundsException("Range " + _start + " - "
+                    + _end);
+            }
+            return new CharArraySequence(chars, start + _start, start + _end);
+        }
+
+        @Override
+        public String toString() {
+            return new String(chars, start, end - start);
+        }
+
+    }
+
+}
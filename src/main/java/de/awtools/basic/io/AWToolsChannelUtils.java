@@ -0,0 +1,284 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.io;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang.Validate;
+
+/**
+ * Utility Klasse zum Kopieren von Bytes über NIO Kanäle. Wo möglich wird
+ * <code>FileChannel#transferTo()</code> bzw.
+ * <code>FileChannel#transferFrom()</code> verwendet. Das Betriebssystem
+ * kann die Daten dann ohne Umweg über den Java Heap kopieren (Zero-Copy,
+ * z.B. <code>sendfile</code> unter Linux). Sonst wird über einen gepoolten,
+ * direkten Puffer kopiert. Alle Methoden liefern die Anzahl der kopierten
+ * Bytes.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public final class AWToolsChannelUtils {
+
+    /**
+     * Die maximale Größe eines Transfers. Manche Plattformen übertragen pro
+     * Aufruf nicht mehr als 2 GByte.
+     */
+    private static final long MAX_TRANSFER_SIZE = 1L << 30;
+
+    /** Utility Klassen werden nicht instanziert. */
+    private AWToolsChannelUtils() {
+    }
+
+    /**
+     * Kopiert eine Datei. Eine vorhandene Zieldatei wird überschrieben.
+     *
+     * @param source Die Quelldatei.
+     * @param target Die Zieldatei.
+     * @return Die Anzahl der kopierten Bytes.
+     * @throws IOException Im Fehlerfall, auch wenn Quelle und Ziel dieselbe
+     *             Datei sind.
+     */
+    public static long copyFile(final Path source, final Path target)
+        throws IOException {
+
+        // Sonst schneidet TRUNCATE_EXISTING die Quelle ab.
+        if (Files.exists(target) && Files.isSameFile(source, target)) {
+            throw new IOException("Source '" + source + "' and target '"
+                + target + "' are the same file.");
+        }
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                FileChannel out =
+                        FileChannel.open(target, StandardOpenOption.CREATE,
+                            StandardOpenOption.TRUNCATE_EXISTING,
+                            StandardOpenOption.WRITE)) {
+
+            return transferTo(in, 0, in.size(), out);
+        }
+    }
+
+    /**
+     * Kopiert eine Datei in einen Kanal, z.B. einen
+     * <code>SocketChannel</code>.
+     *
+     * @param source Die Quelldatei.
+     * @param target Der Zielkanal. Wird nicht geschlossen.
+     * @return Die Anzahl der kopierten Bytes.
+     * @throws IOException Im Fehlerfall.
+     */
+    public static long transferTo(final Path source,
+        final WritableByteChannel target) throws IOException {
+
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+            return transferTo(in, 0, in.size(), target);
+        }
+    }
+
+    /**
+     * Kopiert einen Ausschnitt einer Datei in einen Kanal. Die Position des
+     * <code>FileChannel</code> wird nicht verändert.
+     * <code>FileChannel#transferTo()</code> kopiert eventuell weniger Bytes
+     * als angefordert. Deshalb wird so lange kopiert, bis der Ausschnitt
+     * übertragen oder das Dateiende erreicht ist.
+     *
+     * @param source Der Quellkanal.
+     * @param position Die Startposition in der Quelldatei.
+     * @param count Die Anzahl der zu kopierenden Bytes.
+     * @param target Der Zielkanal. Muss im blockierenden Modus sein.
+     * @return Die Anzahl der kopierten Bytes.
+     * @throws IOException Im Fehlerfall.
+     */
+    public static long transferTo(final FileChannel source,
+        final long position, final long count,
+        final WritableByteChannel target) throws IOException {
+
+        Validate.isTrue(position >= 0, "position must not be negative.");
+        Validate.isTrue(count >= 0, "count must not be negative.");
+
+        long end = Math.min(position + count, source.size());
+        long pos = position;
+        while (pos < end) {
+            long transferred =
+                    source.transferTo(pos,
+                        Math.min(end - pos, MAX_TRANSFER_SIZE), target);
+            if (transferred <= 0) {
+                break;
+            }
+            pos += transferred;
+        }
+        return pos - position;
+    }
+
+    /**
+     * Kopiert Bytes aus einem Kanal, z.B. einem <code>SocketChannel</code>,
+     * in eine Datei. Es wird ab der aktuellen Position des Zielkanals
+     * geschrieben. Die Position wird anschließend hinter die geschriebenen
+     * Bytes gesetzt.
+     *
+     * @param source Der Quellkanal. Muss im blockierenden Modus sein.
+     * @param target Der Zielkanal.
+     * @param count Die maximale Anzahl der zu kopierenden Bytes. Kopiert
+     *            wird bis zum Ende des Quellkanals.
+     * @return Die Anzahl der kopierten Bytes.
+     * @throws IOException Im Fehlerfall.
+     */
+    public static long transferFrom(final ReadableByteChannel source,
+        final FileChannel target, final long count) throws IOException {
+
+        Validate.isTrue(count >= 0, "count must not be negative.");
+
+        long start = target.position();
+        long pos = start;
+        long end = (count > Long.MAX_VALUE - start) ? Long.MAX_VALUE
+                : start + count;
+        while (pos < end) {
+            long transferred =
+                    target.transferFrom(source, pos,
+                        Math.min(end - pos, MAX_TRANSFER_SIZE));
+            if (transferred <= 0) {
+                break;
+            }
+            pos += transferred;
+        }
+        target.position(pos);
+        return pos - start;
+    }
+
+    /**
+     * Kopiert einen <code>InputStream</code> in einen Kanal. Ist der Stream
+     * ein <code>FileInputStream</code>, wird wie bei
+     * {@link #copy(ReadableByteChannel, WritableByteChannel)} dessen
+     * <code>FileChannel</code> verwendet. Sonst wird über einen gepoolten,
+     * direkten Puffer kopiert.
+     *
+     * @param in Der Quellstream. Wird nicht geschlossen.
+     * @param target Der Zielkanal. Wird nicht geschlossen.
+     * @return Die Anzahl der kopierten Bytes.
+     * @throws IOException Im Fehlerfall.
+     */
+    public static long copy(final InputStream in,
+        final WritableByteChannel target) throws IOException {
+
+        if (in instanceof FileInputStream) {
+            return copy(((FileInputStream) in).getChannel(), target);
+        }
+        return copy(Channels.newChannel(in), target);
+    }
+
+    /**
+     * Kopiert alle Bytes eines Kanals in einen anderen Kanal. Ist der
+     * Quellkanal ein <code>FileChannel</code> mit bekannter Größe, wird
+     * <code>FileChannel#transferTo()</code> verwendet. Sonst, und für alles,
+     * was <code>transferTo()</code> nicht übertragen hat, wird über einen
+     * gepoolten, direkten Puffer kopiert. Das betrifft z.B. FIFOs oder
+     * <code>/dev/stdin</code>, deren Größe immer 0 ist.
+     *
+     * @param source Der Quellkanal. Wird nicht geschlossen.
+     * @param target Der Zielkanal. Wird nicht geschlossen.
+     * @return Die Anzahl der kopierten Bytes.
+     * @throws IOException Im Fehlerfall.
+     */
+    public static long copy(final ReadableByteChannel source,
+        final WritableByteChannel target) throws IOException {
+
+        long count = 0;
+        if (source instanceof FileChannel) {
+            // Keine reguläre Datei: size() ist 0 und position() ist für
+            // eine FIFO nicht einmal erlaubt.
+            FileChannel channel = (FileChannel) source;
+            long size = channel.size();
+            if (size > 0) {
+                long position = channel.position();
+                if (size > position) {
+                    count = transferTo(channel, position, size - position,
+                        target);
+                    channel.position(position + count);
+                }
+            }
+        }
+
+        // Für eine vollständig übertragene Datei liefert read() sofort -1.
+        ByteBuffer buffer = DirectBufferPool.SHARED.acquire();
+        try {
+            while (source.read(buffer) != -1) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    count += target.write(buffer);
+                }
+                buffer.clear();
+            }
+            return count;
+        } finally {
+            DirectBufferPool.SHARED.release(buffer);
+        }
+    }
+
+    /**
+     * Bildet eine Datei lesend in den Speicher ab. Ein
+     * <code>MappedByteBuffer</code> ist auf 2 GByte begrenzt. Deshalb wird
+     * die Datei in Ausschnitte von höchstens <code>sliceSize</code> Bytes
+     * aufgeteilt. Die Abbildung bleibt auch nach dem Schließen der Datei
+     * gültig. Sie wird erst vom Garbage Collector freigegeben.
+     *
+     * @param file Die abzubildende Datei.
+     * @param sliceSize Die maximale Größe eines Ausschnitts.
+     * @return Die Ausschnitte der Datei in aufsteigender Reihenfolge.
+     *         Die Summe von <code>remaining()</code> ist die Dateigröße.
+     * @throws IOException Im Fehlerfall.
+     */
+    public static List<MappedByteBuffer> map(final Path file,
+        final int sliceSize) throws IOException {
+
+        Validate.isTrue(sliceSize > 0, "sliceSize must be positive.");
+
+        try (FileChannel channel =
+                FileChannel.open(file, StandardOpenOption.READ)) {
+
+            long size = channel.size();
+            List<MappedByteBuffer> slices =
+                    new ArrayList<>((int) (size / sliceSize) + 1);
+            for (long pos = 0; pos < size; pos += sliceSize) {
+                slices.add(channel.map(FileChannel.MapMode.READ_ONLY, pos,
+                    Math.min(sliceSize, size - pos)));
+            }
+            return slices;
+        }
+    }
+
+}
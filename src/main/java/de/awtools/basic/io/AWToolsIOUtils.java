@@ -30,13 +30,15 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.URL;
-import java.util.UUID;
-
-import javax.imageio.ImageIO;
+import java.nio.charset.Charset;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.lang.UnhandledException;
 import org.slf4j.Logger;
 
 import de.awtools.basic.LoggerFactory;
@@ -53,16 +55,44 @@ public class AWToolsIOUtils {
     /** Der private Logger der Klasse. */
     private static final Logger log = LoggerFactory.make();
 
+    /** Zähler für die Namen der temporären Verzeichnisse. */
+    private static final AtomicLong TEMP_DIR_COUNTER = new AtomicLong();
+
+    /** Der Cache für {@link #loadImage(String, Class)}. */
+    private static final ImageCache IMAGE_CACHE = new ImageCache();
+
     /**
-     * Liefert aus einem String einen InputStream.
+     * Liefert aus einem String einen InputStream. Verwendet den
+     * Default-Zeichensatz der Plattform. Der String liegt bereits
+     * vollständig im Speicher. Deshalb wird er sofort kodiert und
+     * <code>available()</code> liefert die Länge des gesamten Inhalts.
      *
      * @param s Der zu bearbeitende String.
      * @return Der InputStream.
+     *
+     * @see #stringToInputStream(CharSequence, Charset)
      */
     public static InputStream stringToInputStream(final String s) {
         return new ByteArrayInputStream(s.getBytes());
     }
 
+    /**
+     * Liefert aus einer Zeichenkette einen InputStream. Die Zeichen werden
+     * erst beim Lesen blockweise kodiert. Siehe
+     * {@link CharSequenceInputStream}. <code>available()</code> liefert
+     * deshalb nur die Bytes des aktuellen Blocks und nicht die Länge des
+     * gesamten Inhalts.
+     *
+     * @param s Die zu bearbeitende Zeichenkette.
+     * @param charset Der Zeichensatz.
+     * @return Der InputStream.
+     */
+    public static InputStream stringToInputStream(final CharSequence s,
+        final Charset charset) {
+
+        return new CharSequenceInputStream(s, charset);
+    }
+
     /**
      * Konvertiert eine Klassenpfad-Resource in ein Image.
      *
@@ -74,7 +104,9 @@ public class AWToolsIOUtils {
     }
 
     /**
-     * Konvertiert eine Klassenpfad-Resource in ein <code>Image</code>.
+     * Konvertiert eine Klassenpfad-Resource in ein <code>Image</code>. Die
+     * Bilder werden in einem gemeinsamen {@link ImageCache} gehalten. Das
+     * gelieferte Bild darf deshalb nicht verändert werden.
      *
      * @param resource Eine Resource die im Klassenpfad liegt.
      * @param classLoader Der zu verwendende Klassenlader.
@@ -83,15 +115,7 @@ public class AWToolsIOUtils {
     public static Image loadImage(final String resource,
         final Class<?> classLoader) {
 
-        try {
-            URL imageURL = classLoader.getResource(resource);
-            // An alternative loading function:
-            // return Toolkit.getDefaultToolkit().createImage(imageURL);
-            return ImageIO.read(imageURL);
-        } catch (IOException ex) {
-            log.error("Fehler: ", ex);
-            throw new UnhandledException(ex);
-        }
+        return IMAGE_CACHE.getImage(resource, classLoader);
     }
 
     /**
@@ -99,33 +123,49 @@ public class AWToolsIOUtils {
      * kann das Verzeichnis gelöscht werden. Die Idee habe ich von einem
      * Artikel aus
      * <a href="http://stackoverflow.com/questions/617414/create-a-temporary-directory-in-java">stackoverflow</a>
-     * entnommen.
+     * entnommen. Für viele, kurzlebige Verzeichnisse siehe
+     * {@link TempDirPool}.
      *
      * @return Ein temporäres Verzeichnis.
      * @throws IOException Im Fehlerfall.
      */
     public static File createTempDir() throws IOException {
-        final File sysTempDir = new File(System.getProperty("java.io.tmpdir"));
-        File newTempDir;
+        Path sysTempDir = Paths.get(System.getProperty("java.io.tmpdir"));
+        return createUniqueDirectory(sysTempDir, "").toFile();
+    }
+
+    /**
+     * Legt ein Verzeichnis mit einem eindeutigen Namen an. Der Name wird aus
+     * einem Zähler und einer Zufallszahl von <code>ThreadLocalRandom</code>
+     * gebildet. Das vermeidet den Lock des <code>SecureRandom</code> von
+     * <code>UUID.randomUUID()</code> bzw.
+     * <code>Files.createTempDirectory()</code>. Das Anlegen ist atomar.
+     * Existiert das Verzeichnis bereits, wird ein neuer Name erzeugt.
+     *
+     * @param parent Das übergeordnete Verzeichnis.
+     * @param prefix Ein Präfix für den Verzeichnisnamen.
+     * @return Das angelegte Verzeichnis.
+     * @throws IOException Im Fehlerfall.
+     */
+    static Path createUniqueDirectory(final Path parent, final String prefix)
+        throws IOException {
+
         final int maxAttempts = 9;
-        int attemptCount = 0;
-        do {
-            attemptCount++;
-            if (attemptCount > maxAttempts) {
-                throw new IOException("The highly improbable has occurred! Failed to "
-                    + "create a unique temporary directory after "
-                    + maxAttempts + " attempts.");
+        for (int attemptCount = 0; attemptCount < maxAttempts; attemptCount++) {
+            String dirName =
+                    prefix
+                        + Long.toHexString(ThreadLocalRandom.current()
+                            .nextLong() & Long.MAX_VALUE) + '-'
+                        + Long.toHexString(TEMP_DIR_COUNTER.incrementAndGet());
+            try {
+                return Files.createDirectory(parent.resolve(dirName));
+            } catch (FileAlreadyExistsException ex) {
+                log.debug("Temp dir {} already exists.", dirName);
             }
-            String dirName = UUID.randomUUID().toString();
-            newTempDir = new File(sysTempDir, dirName);
-        } while (newTempDir.exists());
-
-        if (newTempDir.mkdirs()) {
-            return newTempDir;
-        } else {
-            throw new IOException("Failed to create temp dir named "
-                + newTempDir.getAbsolutePath());
         }
+        throw new IOException("The highly improbable has occurred! Failed to "
+            + "create a unique temporary directory after " + maxAttempts
+            + " attempts.");
     }
 
     /**
@@ -133,6 +173,8 @@ public class AWToolsIOUtils {
      *
      * @param fileOrDir Das zu löschende Verzeichnis oder Datei.
      * @return <code>true</code>, wenn der Löschvorgang erfolgreich war.
+     *
+     * @see ParallelDelete
      */
     public static boolean recursiveDelete(File fileOrDir) {
         if (fileOrDir.isDirectory()) {
@@ -0,0 +1,238 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+import org.apache.commons.lang.Validate;
+
+/**
+ * Ein <code>InputStream</code> über einer <code>CharSequence</code>. Die
+ * Zeichen werden erst beim Lesen in Blöcken fester Größe mit einem
+ * <code>CharsetEncoder</code> kodiert. Der Speicherbedarf hängt also nur
+ * von der Blockgröße und nicht von der Länge der Zeichenkette ab. Nicht
+ * kodierbare Zeichen werden wie bei <code>String#getBytes()</code> durch
+ * das Ersatzzeichen des Zeichensatzes ersetzt.<br/>
+ *
+ * {@link #mark(int)} und {@link #reset()} werden unterstützt. Dazu merkt
+ * sich der Stream die Zeichenposition des aktuellen Blocks und den Offset
+ * innerhalb des Blocks. {@link #reset()} kodiert diesen Block neu. Das ist
+ * für zustandslose Zeichensätze wie UTF-8 oder ISO-8859-1 exakt.
+ * Zeichensätze mit Byte Order Mark (z.B. UTF-16) schreiben nach einem
+ * {@link #reset()} hinter den ersten Block eine weitere Byte Order Mark.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public class CharSequenceInputStream extends InputStream {
+
+    /** Die Default-Blockgröße in Bytes. */
+    public static final int DEFAULT_BUFFER_SIZE = 2048;
+
+    private final CharsetEncoder encoder;
+
+    /** Die Zeichen. Eine Sicht ohne Kopie. */
+    private final CharBuffer chars;
+
+    /** Der aktuelle, kodierte Block. */
+    private final ByteBuffer bytes;
+
+    /** Die Zeichenposition am Anfang des aktuellen Blocks. */
+    private int chunkStart;
+
+    /** Ist das Ende der Zeichen kodiert und der Encoder geleert? */
+    private boolean flushed;
+
+    /** Die Zeichenposition des markierten Blocks oder -1. */
+    private int markChunkStart = -1;
+
+    /** Der Offset der Markierung innerhalb des markierten Blocks. */
+    private int markOffset;
+
+    /**
+     * Konstruktor.
+     *
+     * @param _chars Die zu lesenden Zeichen.
+     * @param _charset Der Zeichensatz.
+     */
+    public CharSequenceInputStream(final CharSequence _chars,
+        final Charset _charset) {
+
+        this(_chars, _charset, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Konstruktor.
+     *
+     * @param _chars Die zu lesenden Zeichen.
+     * @param _charset Der Zeichensatz.
+     * @param _bufferSize Die Blockgröße in Bytes.
+     */
+    public CharSequenceInputStream(final CharSequence _chars,
+        final Charset _charset, final int _bufferSize) {
+
+        Validate.notNull(_chars, "chars is null.");
+        Validate.notNull(_charset, "charset is null.");
+        Validate.isTrue(_bufferSize > 0, "bufferSize must be positive.");
+
+        encoder =
+                _charset.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        // Ein Block muss mindestens ein Zeichen aufnehmen können.
+        int minSize = (int) Math.ceil(encoder.maxBytesPerChar()) * 2;
+
+        chars = CharBuffer.wrap(_chars);
+        bytes = ByteBuffer.allocate(Math.max(_bufferSize, minSize));
+        bytes.flip();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return bytes.get() & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len)
+        throws IOException {
+
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+
+        int count = 0;
+        while (count < len && fill()) {
+            int n = Math.min(len - count, bytes.remaining());
+            bytes.get(b, off + count, n);
+            count += n;
+        }
+        return (count == 0) ? -1 : count;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n && fill()) {
+            int step = (int) Math.min(n - skipped, bytes.remaining());
+            bytes.position(bytes.position() + step);
+            skipped += step;
+        }
+        return skipped;
+    }
+
+    /**
+     * Die Anzahl der bereits kodierten, noch nicht gelesenen Bytes des
+     * aktuellen Blocks. Vor dem ersten Lesen ist das 0. Der Wert ist nicht
+     * die Länge des restlichen Inhalts.
+     *
+     * @return Die Anzahl der Bytes, die ohne Kodieren gelesen werden können.
+     */
+    @Override
+    public int available() {
+        return bytes.remaining();
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    /**
+     * Markiert die aktuelle Position. Das <code>readlimit</code> wird
+     * ignoriert, die Markierung bleibt immer gültig.
+     *
+     * @param readlimit Wird ignoriert.
+     */
+    @Override
+    public synchronized void mark(final int readlimit) {
+        markChunkStart = chunkStart;
+        markOffset = bytes.position();
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        if (markChunkStart < 0) {
+            throw new IOException("Stream not marked.");
+        }
+
+        chars.position(markChunkStart);
+        encoder.reset();
+        flushed = false;
+        bytes.clear();
+        bytes.flip();
+        if (markOffset > 0 && fill()) {
+            bytes.position(markOffset);
+        }
+    }
+
+    /**
+     * Kodiert den nächsten Block, wenn der aktuelle Block gelesen ist.
+     *
+     * @return <code>false</code>, wenn alle Bytes gelesen sind.
+     * @throws IOException Im Fehlerfall.
+     */
+    private boolean fill() throws IOException {
+        if (bytes.hasRemaining()) {
+            return true;
+        }
+        if (flushed) {
+            return false;
+        }
+
+        chunkStart = chars.position();
+        bytes.clear();
+        CoderResult result = encoder.encode(chars, bytes, true);
+        if (result.isUnderflow()) {
+            result = encoder.flush(bytes);
+            flushed = result.isUnderflow();
+        }
+        if (result.isError()) {
+            try {
+                result.throwException();
+            } catch (CharacterCodingException ex) {
+                throw new IOException(ex);
+            }
+        }
+        bytes.flip();
+        return bytes.hasRemaining();
+    }
+
+}
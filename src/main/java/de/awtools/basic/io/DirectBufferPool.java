@@ -0,0 +1,107 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.io;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Ein Pool von direkten <code>ByteBuffer</code>n gleicher Größe. Das Anlegen
+ * eines direkten Puffers ist teuer und der Speicher wird erst vom Garbage
+ * Collector freigegeben. Deshalb werden die Puffer wiederverwendet. Ist der
+ * Pool leer, wird ein neuer Puffer angelegt. Ist der Pool voll, wird ein
+ * zurückgegebener Puffer verworfen. Die Klasse ist thread-sicher.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+final class DirectBufferPool {
+
+    /** Die Default-Größe eines Puffers: 64 KByte. */
+    static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /** Der gemeinsame Pool für {@link AWToolsChannelUtils}. */
+    static final DirectBufferPool SHARED =
+            new DirectBufferPool(DEFAULT_BUFFER_SIZE, 16);
+
+    private final int bufferSize;
+
+    private final BlockingQueue<ByteBuffer> buffers;
+
+    /**
+     * Konstruktor.
+     *
+     * @param _bufferSize Die Größe eines Puffers.
+     * @param _maxPooled Die maximale Anzahl der vorgehaltenen Puffer.
+     */
+    DirectBufferPool(final int _bufferSize, final int _maxPooled) {
+        bufferSize = _bufferSize;
+        buffers = new ArrayBlockingQueue<>(_maxPooled);
+    }
+
+    /**
+     * Liefert einen leeren Puffer.
+     *
+     * @return Ein direkter Puffer.
+     */
+    ByteBuffer acquire() {
+        ByteBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(bufferSize);
+        }
+        return buffer;
+    }
+
+    /**
+     * Gibt einen Puffer an den Pool zurück.
+     *
+     * @param buffer Ein Puffer aus {@link #acquire()}.
+     */
+    void release(final ByteBuffer buffer) {
+        buffer.clear();
+        buffers.offer(buffer);
+    }
+
+    /**
+     * Die Größe eines Puffers.
+     *
+     * @return Die Größe eines Puffers.
+     */
+    int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Die Anzahl der vorgehaltenen Puffer.
+     *
+     * @return Die Anzahl der vorgehaltenen Puffer.
+     */
+    int getPooledCount() {
+        return buffers.size();
+    }
+
+}
@@ -0,0 +1,143 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.io;
+
+import org.apache.commons.lang.Validate;
+import org.apache.commons.net.ftp.FTP;
+
+/**
+ * Die Zugangsdaten für einen FTP Server. Zwei Accounts sind gleich, wenn
+ * Host, Port und User gleich sind. Das Passwort wird weder verglichen noch
+ * von {@link #toString()} ausgegeben. Die Klasse ist unveränderlich.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public final class FTPAccount {
+
+    private final String host;
+
+    private final int port;
+
+    private final String userName;
+
+    private final String password;
+
+    /**
+     * Konstruktor für den Default-Port 21.
+     *
+     * @param _host Der Host.
+     * @param _userName Ein User.
+     * @param _password Ein Password.
+     */
+    public FTPAccount(final String _host, final String _userName,
+        final String _password) {
+
+        this(_host, FTP.DEFAULT_PORT, _userName, _password);
+    }
+
+    /**
+     * Konstruktor.
+     *
+     * @param _host Der Host.
+     * @param _port Der Port.
+     * @param _userName Ein User.
+     * @param _password Ein Password.
+     */
+    public FTPAccount(final String _host, final int _port,
+        final String _userName, final String _password) {
+
+        Validate.notNull(_host, "host is null.");
+        Validate.notNull(_userName, "userName is null.");
+        Validate.notNull(_password, "password is null.");
+        Validate.isTrue(_port > 0 && _port < 65536, "Invalid port: ", _port);
+
+        host = _host;
+        port = _port;
+        userName = _userName;
+        password = _password;
+    }
+
+    /**
+     * Der Host.
+     *
+     * @return Der Host.
+     */
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * Der Port.
+     *
+     * @return Der Port.
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Der User.
+     *
+     * @return Der User.
+     */
+    public String getUserName() {
+        return userName;
+    }
+
+    /**
+     * Das Passwort.
+     *
+     * @return Das Passwort.
+     */
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public int hashCode() {
+        return (31 * host.hashCode() + port) * 31 + userName.hashCode();
+    }
+
+    @Override
+    public boolean equals(final Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (!(object instanceof FTPAccount)) {
+            return false;
+        }
+        FTPAccount other = (FTPAccount) object;
+        return port == other.port && host.equals(other.host)
+            && userName.equals(other.userName);
+    }
+
+    @Override
+    public String toString() {
+        return userName + "@" + host + ":" + port;
+    }
+
+}
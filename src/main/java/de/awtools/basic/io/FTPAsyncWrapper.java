@@ -0,0 +1,323 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+import org.apache.commons.lang.Validate;
+import org.slf4j.Logger;
+
+import de.awtools.basic.LoggerFactory;
+
+/**
+ * Eine asynchrone Fassade für {@link FTPWrapper}. Jede Operation liefert
+ * sofort ein {@link CompletableFuture}; der aufrufende Thread wird nicht
+ * blockiert:
+ * <pre>
+ * FTPAsyncWrapper ftp = new FTPAsyncWrapper();
+ * ftp.connect(account)
+ *     .thenCompose(v -&gt; ftp.uploadFile("index.html", "/www/index.html"))
+ *     .whenComplete((ok, ex) -&gt; ftp.close());
+ * </pre>
+ * Die Operationen einer Instanz (also einer Verbindung) werden in der
+ * Reihenfolge des Aufrufs nacheinander ausgeführt. Eine fehlgeschlagene
+ * Operation hält die nachfolgenden Operationen nicht auf. Mehrere Instanzen
+ * arbeiten parallel. Die blockierenden Aufrufe laufen auf dem
+ * {@link #defaultExecutor()}: Ab Java 21 ist das ein Executor mit einem
+ * virtuellen Thread pro Aufgabe, sonst ein Thread-Pool mit Daemon-Threads.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public class FTPAsyncWrapper implements Closeable {
+
+    /** Der private Logger der Klasse. */
+    private static final Logger log = LoggerFactory.make();
+
+    /** Der gemeinsame Executor aller Instanzen. */
+    private static final Executor DEFAULT_EXECUTOR = createDefaultExecutor();
+
+    /**
+     * Eine Operation auf einer FTP Verbindung.
+     *
+     * @param <T> Der Typ des Ergebnisses.
+     */
+    public interface FTPOperation<T> {
+
+        /**
+         * Führt die Operation aus.
+         *
+         * @param ftp Die Verbindung.
+         * @return Das Ergebnis.
+         * @throws IOException Da ging was schief.
+         */
+        T execute(FTPWrapper ftp) throws IOException;
+
+    }
+
+    private final FTPWrapper ftp;
+
+    private final Executor executor;
+
+    /** Die zuletzt eingereihte Operation. Guarded by <code>this</code>. */
+    private CompletableFuture<?> tail = CompletableFuture.completedFuture(null);
+
+    /**
+     * Konstruktor. Verwendet eine neue Verbindung und den
+     * {@link #defaultExecutor()}.
+     */
+    public FTPAsyncWrapper() {
+        this(new FTPWrapper(), DEFAULT_EXECUTOR);
+    }
+
+    /**
+     * Konstruktor.
+     *
+     * @param _ftp Die Verbindung. Darf nur noch über diese Instanz verwendet
+     *            werden.
+     * @param _executor Der Executor für die blockierenden Aufrufe.
+     */
+    public FTPAsyncWrapper(final FTPWrapper _ftp, final Executor _executor) {
+        Validate.notNull(_ftp, "ftp is null.");
+        Validate.notNull(_executor, "executor is null.");
+        ftp = _ftp;
+        executor = _executor;
+    }
+
+    /**
+     * Der gemeinsame Executor: Virtuelle Threads, wenn die JVM sie anbietet,
+     * sonst ein Thread-Pool mit Daemon-Threads.
+     *
+     * @return Der Executor.
+     */
+    public static Executor defaultExecutor() {
+        return DEFAULT_EXECUTOR;
+    }
+
+    /**
+     * Reiht eine beliebige Operation in die Warteschlange dieser Verbindung
+     * ein. Eine {@link IOException} beendet das Future mit dieser Exception
+     * als Ursache.
+     *
+     * @param operation Die Operation.
+     * @param <T> Der Typ des Ergebnisses.
+     * @return Das Ergebnis der Operation.
+     */
+    public <T> CompletableFuture<T> submit(final FTPOperation<T> operation) {
+        Validate.notNull(operation, "operation is null.");
+
+        CompletableFuture<T> stage;
+        synchronized (this) {
+            stage = tail.handleAsync(new BiFunction<Object, Throwable, T>() {
+                @Override
+                public T apply(final Object previous, final Throwable failure) {
+                    try {
+                        return operation.execute(ftp);
+                    } catch (IOException ex) {
+                        throw new CompletionException(ex);
+                    }
+                }
+            }, executor);
+            tail = stage;
+        }
+
+        // Ein Abbruch durch den Aufrufer darf die Warteschlange nicht
+        // überholen. Deshalb wird eine Kopie geliefert.
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        stage.whenComplete(new BiConsumer<T, Throwable>() {
+            @Override
+            public void accept(final T value, final Throwable failure) {
+                if (failure == null) {
+                    result.complete(value);
+                } else {
+                    result.completeExceptionally(failure);
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Verbindet und meldet sich an. Schlägt das Login fehl, endet das Future
+     * mit einer {@link IOException}.
+     *
+     * @param account Die Zugangsdaten.
+     * @return Ein Future.
+     */
+    public CompletableFuture<Void> connect(final FTPAccount account) {
+        Validate.notNull(account, "account is null.");
+        return submit(new FTPOperation<Void>() {
+            @Override
+            public Void execute(final FTPWrapper wrapper) throws IOException {
+                if (!wrapper.connectAndLogin(account.getHost(),
+                    account.getPort(), account.getUserName(),
+                    account.getPassword())) {
+
+                    throw new IOException("FTP login failed for " + account
+                        + ".");
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Listet ein Verzeichnis auf dem Server. Siehe
+     * {@link FTPWrapper#listEntries(String, java.util.function.Predicate)}.
+     *
+     * @param path Das Verzeichnis.
+     * @return Die Einträge des Verzeichnisses.
+     */
+    public CompletableFuture<List<FTPEntry>> listEntries(final String path) {
+        return submit(new FTPOperation<List<FTPEntry>>() {
+            @Override
+            public List<FTPEntry> execute(final FTPWrapper wrapper)
+                throws IOException {
+
+                List<FTPEntry> entries = new ArrayList<>();
+                Iterator<FTPEntry> iterator = wrapper.listEntries(path, null);
+                while (iterator.hasNext()) {
+                    entries.add(iterator.next());
+                }
+                return entries;
+            }
+        });
+    }
+
+    /**
+     * Startet einen File-Upload. Siehe
+     * {@link FTPWrapper#uploadFile(String, String)}.
+     *
+     * @param localFile Name der lokalen Datei.
+     * @param serverFile Name der Datei auf dem Server.
+     * @return true, alles in Ordnung; false, sonst.
+     */
+    public CompletableFuture<Boolean> uploadFile(final String localFile,
+        final String serverFile) {
+
+        return submit(new FTPOperation<Boolean>() {
+            @Override
+            public Boolean execute(final FTPWrapper wrapper)
+                throws IOException {
+
+                return wrapper.uploadFile(localFile, serverFile);
+            }
+        });
+    }
+
+    /**
+     * Startet einen File-Download. Siehe
+     * {@link FTPWrapper#downloadFile(String, String)}.
+     *
+     * @param serverFile Das Server-File.
+     * @param localFile Name der lokalen Datei.
+     * @return true, alles in Ordnung; false, sonst.
+     */
+    public CompletableFuture<Boolean> downloadFile(final String serverFile,
+        final String localFile) {
+
+        return submit(new FTPOperation<Boolean>() {
+            @Override
+            public Boolean execute(final FTPWrapper wrapper)
+                throws IOException {
+
+                return wrapper.downloadFile(serverFile, localFile);
+            }
+        });
+    }
+
+    /**
+     * Legt ein Verzeichnis samt fehlender Elternverzeichnisse an und
+     * wechselt hinein. Siehe
+     * {@link FTPWrapper#changeOrCreateDirectory(String, String)}.
+     *
+     * @param rootDirectory Das Wurzelverzeichnis.
+     * @param directory Das Verzeichnis.
+     * @return Ein Future.
+     */
+    public CompletableFuture<Void> makeDirectories(final String rootDirectory,
+        final String directory) {
+
+        return submit(new FTPOperation<Void>() {
+            @Override
+            public Void execute(final FTPWrapper wrapper) throws IOException {
+                wrapper.changeOrCreateDirectory(rootDirectory, directory);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Schliesst die Verbindung, nachdem alle bereits eingereihten
+     * Operationen beendet sind. Blockiert nicht.
+     */
+    @Override
+    public void close() {
+        submit(new FTPOperation<Void>() {
+            @Override
+            public Void execute(final FTPWrapper wrapper) {
+                wrapper.close();
+                return null;
+            }
+        });
+    }
+
+    private static Executor createDefaultExecutor() {
+        try {
+            Executor executor = (Executor) Executors.class.getMethod(
+                "newVirtualThreadPerTaskExecutor").invoke(null);
+            log.debug("FTPAsyncWrapper uses virtual threads.");
+            return executor;
+        } catch (ReflectiveOperationException ex) {
+            log.debug("No virtual threads available. Using a thread pool.");
+        }
+
+        return Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                Thread thread = new Thread(runnable, "FTPAsyncWrapper-"
+                    + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+}
@@ -0,0 +1,315 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.io;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.CRC32;
+
+import org.apache.commons.lang.Validate;
+
+/**
+ * Eine Prüfsumme, die während einer Übertragung berechnet wird. Die Daten
+ * werden dabei nur einmal gelesen. Siehe
+ * {@link FTPWrapper#uploadFileVerified(String, String, FTPChecksum)} und
+ * {@link FTPWrapper#downloadFileVerified(String, String, FTPChecksum)}.
+ * Eine Instanz ist für genau eine Übertragung gedacht und nicht
+ * thread-sicher.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public final class FTPChecksum {
+
+    /**
+     * Die unterstützten Verfahren.
+     */
+    public enum Algorithm {
+
+        /** CRC32. Entspricht dem XCRC Kommando vieler FTP Server. */
+        CRC32("CRC32", "XCRC", ".crc32"),
+
+        /** SHA-256. */
+        SHA_256("SHA-256", "XSHA256", ".sha256");
+
+        private final String hashName;
+
+        private final String command;
+
+        private final String extension;
+
+        private Algorithm(final String _hashName, final String _command,
+            final String _extension) {
+
+            hashName = _hashName;
+            command = _command;
+            extension = _extension;
+        }
+
+        /**
+         * Der Name des Verfahrens für das HASH Kommando.
+         *
+         * @return Der Name des Verfahrens.
+         */
+        public String getHashName() {
+            return hashName;
+        }
+
+        /**
+         * Das proprietäre Kommando, z.B. XCRC.
+         *
+         * @return Das Kommando.
+         */
+        public String getCommand() {
+            return command;
+        }
+
+        /**
+         * Die Endung einer Prüfsummendatei, z.B. <code>.sha256</code>.
+         *
+         * @return Die Endung.
+         */
+        public String getExtension() {
+            return extension;
+        }
+
+    }
+
+    /**
+     * Wie eine Übertragung geprüft wurde.
+     */
+    public enum Verification {
+        /** Prüfsumme des Servers (HASH, XCRC oder XSHA256). */
+        SERVER_CHECKSUM,
+        /** Prüfsummendatei neben der Datei auf dem Server. */
+        CHECKSUM_FILE,
+        /** Nur die Größe der Datei auf dem Server (SIZE). */
+        SIZE,
+        /** Keine Prüfung möglich. */
+        NONE
+    }
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Algorithm algorithm;
+
+    private final CRC32 crc;
+
+    private final MessageDigest digest;
+
+    private long bytes;
+
+    private String value;
+
+    /**
+     * Konstruktor.
+     *
+     * @param _algorithm Das Verfahren.
+     */
+    public FTPChecksum(final Algorithm _algorithm) {
+        Validate.notNull(_algorithm, "algorithm is null.");
+        algorithm = _algorithm;
+        if (_algorithm == Algorithm.CRC32) {
+            crc = new CRC32();
+            digest = null;
+        } else {
+            crc = null;
+            try {
+                digest = MessageDigest.getInstance(_algorithm.getHashName());
+            } catch (NoSuchAlgorithmException ex) {
+                // Jede JVM muss SHA-256 anbieten.
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+
+    /**
+     * Das Verfahren.
+     *
+     * @return Das Verfahren.
+     */
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Die Anzahl der bisher verarbeiteten Bytes.
+     *
+     * @return Die Anzahl der Bytes.
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Verarbeitet weitere Daten.
+     *
+     * @param buffer Die Daten.
+     * @param offset Der Start in <code>buffer</code>.
+     * @param length Die Anzahl der Bytes.
+     */
+    public void update(final byte[] buffer, final int offset,
+        final int length) {
+
+        Validate.isTrue(value == null, "checksum is already finished.");
+        if (crc != null) {
+            crc.update(buffer, offset, length);
+        } else {
+            digest.update(buffer, offset, length);
+        }
+        bytes += length;
+    }
+
+    /**
+     * Die Prüfsumme als Hex-String in Kleinbuchstaben. Danach können keine
+     * weiteren Daten verarbeitet werden.
+     *
+     * @return Die Prüfsumme.
+     */
+    public String getValue() {
+        if (value == null) {
+            if (crc != null) {
+                value = String.format("%08x", crc.getValue());
+            } else {
+                byte[] hash = digest.digest();
+                char[] chars = new char[hash.length * 2];
+                for (int i = 0; i < hash.length; i++) {
+                    chars[i * 2] = HEX[(hash[i] >> 4) & 0xf];
+                    chars[i * 2 + 1] = HEX[hash[i] & 0xf];
+                }
+                value = new String(chars);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Vergleicht mit einer Prüfsumme als Hex-String. Groß- und
+     * Kleinschreibung, ein Präfix <code>0x</code> und bei CRC32 fehlende
+     * führende Nullen werden ignoriert.
+     *
+     * @param other Die andere Prüfsumme.
+     * @return <code>true</code>, wenn die Prüfsummen gleich sind.
+     */
+    public boolean matches(final String other) {
+        if (other == null) {
+            return false;
+        }
+        String hex = other.trim();
+        if (hex.startsWith("0x") || hex.startsWith("0X")) {
+            hex = hex.substring(2);
+        }
+        if (algorithm == Algorithm.CRC32) {
+            try {
+                return hex.length() <= 8
+                    && Long.parseLong(hex, 16) == Long.parseLong(getValue(),
+                        16);
+            } catch (NumberFormatException ex) {
+                return false;
+            }
+        }
+        return getValue().equalsIgnoreCase(hex);
+    }
+
+    /**
+     * Liefert einen InputStream, der beim Lesen die Prüfsumme berechnet.
+     *
+     * @param in Der zu lesende Stream.
+     * @return Der Stream mit Prüfsumme.
+     */
+    public InputStream wrap(final InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    update(new byte[] { (byte) b }, 0, 1);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(final byte[] buffer, final int offset,
+                final int length) throws IOException {
+
+                int count = super.read(buffer, offset, length);
+                if (count > 0) {
+                    update(buffer, offset, count);
+                }
+                return count;
+            }
+
+            @Override
+            public long skip(final long n) throws IOException {
+                // Übersprungene Bytes müssen in die Prüfsumme eingehen.
+                byte[] buffer = new byte[(int) Math.min(n, 8192)];
+                int count = read(buffer, 0, buffer.length);
+                return Math.max(count, 0);
+            }
+
+            @Override
+            public boolean markSupported() {
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Liefert einen OutputStream, der beim Schreiben die Prüfsumme
+     * berechnet.
+     *
+     * @param out Der Stream, in den geschrieben wird.
+     * @return Der Stream mit Prüfsumme.
+     */
+    public OutputStream wrap(final OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(final int b) throws IOException {
+                out.write(b);
+                update(new byte[] { (byte) b }, 0, 1);
+            }
+
+            @Override
+            public void write(final byte[] buffer, final int offset,
+                final int length) throws IOException {
+
+                out.write(buffer, offset, length);
+                update(buffer, offset, length);
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return algorithm.getHashName() + ":" + getValue();
+    }
+
+}
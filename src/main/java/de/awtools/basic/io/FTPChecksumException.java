@@ -0,0 +1,91 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.io;
+
+import java.io.IOException;
+
+/**
+ * Die Prüfsumme oder Größe einer übertragenen Datei stimmt nicht mit dem
+ * Server überein.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public class FTPChecksumException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String serverFile;
+
+    private final String expected;
+
+    private final String actual;
+
+    /**
+     * Konstruktor.
+     *
+     * @param _serverFile Die Datei auf dem Server.
+     * @param _expected Der Wert des Servers.
+     * @param _actual Der lokal berechnete Wert.
+     */
+    public FTPChecksumException(final String _serverFile,
+        final String _expected, final String _actual) {
+
+        super("Checksum mismatch for " + _serverFile + ": expected "
+            + _expected + ", actual " + _actual + ".");
+        serverFile = _serverFile;
+        expected = _expected;
+        actual = _actual;
+    }
+
+    /**
+     * Die Datei auf dem Server.
+     *
+     * @return Die Datei auf dem Server.
+     */
+    public String getServerFile() {
+        return serverFile;
+    }
+
+    /**
+     * Der Wert des Servers.
+     *
+     * @return Der Wert des Servers.
+     */
+    public String getExpected() {
+        return expected;
+    }
+
+    /**
+     * Der lokal berechnete Wert.
+     *
+     * @return Der lokal berechnete Wert.
+     */
+    public String getActual() {
+        return actual;
+    }
+
+}
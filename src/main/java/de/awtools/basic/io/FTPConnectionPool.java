@@ -0,0 +1,503 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.Validate;
+import org.apache.commons.net.ftp.FTPReply;
+import org.slf4j.Logger;
+
+import de.awtools.basic.LoggerFactory;
+
+/**
+ * Ein Pool von angemeldeten FTP Verbindungen. Für jeden {@link FTPAccount}
+ * werden eigene Verbindungen gehalten. Ein Verbindungsaufbau inklusive
+ * USER/PASS entfällt, solange eine freie Verbindung im Pool liegt:
+ * <pre>
+ * FTPConnectionPool pool = new FTPConnectionPool();
+ * FTPWrapper ftp = pool.borrow(account);
+ * try {
+ *     ftp.uploadFile(localFile, serverFile);
+ * } finally {
+ *     pool.release(ftp);
+ * }
+ * </pre>
+ * Konfiguration:
+ * <ul>
+ *  <li>maxTotal: Die maximale Anzahl gleichzeitig ausgeliehener
+ *   Verbindungen pro Account. Weitere Aufrufe von {@link #borrow(FTPAccount)}
+ *   warten höchstens borrowTimeout Millisekunden.</li>
+ *  <li>maxIdle: Die maximale Anzahl freier Verbindungen pro Account.</li>
+ *  <li>minIdle: Die minimale Anzahl freier Verbindungen pro Account. Wird
+ *   vom Hintergrund-Thread aufgefüllt.</li>
+ *  <li>idleTimeout: Freie Verbindungen, die länger nicht verwendet wurden,
+ *   werden vom Hintergrund-Thread geschlossen.</li>
+ *  <li>validateOnBorrow: Prüft eine freie Verbindung vor der Ausgabe mit
+ *   einem NOOP Kommando.</li>
+ * </ul>
+ * Eine Verbindung, die bei der Rückgabe getrennt ist oder zuletzt mit 421
+ * geantwortet hat, wird verworfen. Die Konfiguration muss vor der ersten
+ * Verwendung gesetzt werden. Die Klasse ist thread-sicher.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public class FTPConnectionPool implements Closeable {
+
+    /** Der private Logger der Klasse. */
+    private static final Logger log = LoggerFactory.make();
+
+    private int maxTotal = 8;
+
+    private int maxIdle = 8;
+
+    private int minIdle = 0;
+
+    private long borrowTimeout = 30000;
+
+    private long idleTimeout = 60000;
+
+    private long evictionInterval = 10000;
+
+    private boolean validateOnBorrow = true;
+
+    private volatile FTPListener listener = FTPListener.NONE;
+
+    /** Die Verbindungen pro Account. */
+    private final ConcurrentMap<FTPAccount, Partition> partitions =
+            new ConcurrentHashMap<>();
+
+    /** Die ausgeliehenen Verbindungen. */
+    private final ConcurrentMap<FTPWrapper, Partition> borrowed =
+            new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService evictor;
+
+    private volatile boolean closed;
+
+    /**
+     * Leiht eine angemeldete Verbindung aus. Die Verbindung muss mit
+     * {@link #release(FTPWrapper)} zurückgegeben werden. Sie ist immer im
+     * Zustand nach dem Login: Arbeitsverzeichnis nach dem Login, Dateityp
+     * ASCII und Aktiv-Modus.
+     *
+     * @param account Die Zugangsdaten.
+     * @return Eine angemeldete Verbindung.
+     * @throws IOException Verbindungsaufbau oder Anmeldung sind
+     *             fehlgeschlagen oder es war innerhalb von borrowTimeout
+     *             keine Verbindung frei.
+     * @throws InterruptedException Der Thread wurde beim Warten
+     *             unterbrochen.
+     */
+    public FTPWrapper borrow(final FTPAccount account) throws IOException,
+        InterruptedException {
+
+        Validate.notNull(account, "account is null.");
+        Validate.isTrue(!closed, "FTPConnectionPool is closed.");
+        startEvictor();
+
+        Partition partition = getPartition(account);
+        if (!partition.permits.tryAcquire(borrowTimeout,
+            TimeUnit.MILLISECONDS)) {
+
+            throw new IOException("No FTP connection available for "
+                + account + " after " + borrowTimeout + " ms.");
+        }
+
+        try {
+            FTPWrapper ftp = takeIdle(partition);
+            if (ftp == null) {
+                ftp = connect(account);
+            }
+            borrowed.put(ftp, partition);
+            return ftp;
+        } catch (IOException | RuntimeException ex) {
+            partition.permits.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * Gibt eine Verbindung an den Pool zurück. Der Zustand der Sitzung
+     * wird mit {@link FTPWrapper#resetSession()} zurückgesetzt. Ist die
+     * Verbindung unterbrochen oder gelingt das Zurücksetzen nicht, wird sie
+     * verworfen.
+     *
+     * @param ftp Eine Verbindung aus {@link #borrow(FTPAccount)}.
+     */
+    public void release(final FTPWrapper ftp) {
+        Partition partition = remove(ftp);
+        if (closed || isBroken(ftp) || !reset(ftp)
+            || !partition.offer(ftp, maxIdle)) {
+
+            ftp.close();
+        }
+        partition.permits.release();
+    }
+
+    /**
+     * Gibt eine Verbindung zurück, die nicht mehr verwendet werden soll.
+     * Die Verbindung wird geschlossen.
+     *
+     * @param ftp Eine Verbindung aus {@link #borrow(FTPAccount)}.
+     */
+    public void invalidate(final FTPWrapper ftp) {
+        Partition partition = remove(ftp);
+        ftp.close();
+        partition.permits.release();
+    }
+
+    /**
+     * Die Anzahl der freien Verbindungen für einen Account.
+     *
+     * @param account Die Zugangsdaten.
+     * @return Die Anzahl der freien Verbindungen.
+     */
+    public int getIdleCount(final FTPAccount account) {
+        Partition partition = partitions.get(account);
+        return (partition == null) ? 0 : partition.idle.size();
+    }
+
+    /**
+     * Die Anzahl der ausgeliehenen Verbindungen für einen Account.
+     *
+     * @param account Die Zugangsdaten.
+     * @return Die Anzahl der ausgeliehenen Verbindungen.
+     */
+    public int getActiveCount(final FTPAccount account) {
+        Partition partition = partitions.get(account);
+        return (partition == null) ? 0 : maxTotal
+            - partition.permits.availablePermits();
+    }
+
+    /**
+     * Schließt alle freien Verbindungen. Ausgeliehene Verbindungen werden
+     * bei der Rückgabe geschlossen.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (evictor != null) {
+            evictor.shutdownNow();
+        }
+        for (Partition partition : partitions.values()) {
+            PooledConnection connection;
+            while ((connection = partition.idle.pollFirst()) != null) {
+                connection.ftp.close();
+            }
+        }
+    }
+
+    /**
+     * Schließt freie Verbindungen, die länger als idleTimeout nicht
+     * verwendet wurden, und füllt die freien Verbindungen bis minIdle auf.
+     * Wird regelmäßig vom Hintergrund-Thread aufgerufen.
+     */
+    void evict() {
+        long now = System.nanoTime();
+        long timeout = TimeUnit.MILLISECONDS.toNanos(idleTimeout);
+        for (Partition partition : partitions.values()) {
+            Iterator<PooledConnection> it = partition.idle.descendingIterator();
+            while (it.hasNext() && partition.idle.size() > minIdle) {
+                PooledConnection connection = it.next();
+                if (now - connection.lastUsed > timeout
+                    && partition.idle.removeFirstOccurrence(connection)) {
+
+                    log.debug("Evicting idle FTP connection to {}.",
+                        partition.account);
+                    connection.ftp.close();
+                }
+            }
+            fillIdle(partition);
+        }
+    }
+
+    private void fillIdle(final Partition partition) {
+        while (!closed && partition.idle.size() < minIdle
+            && partition.permits.tryAcquire()) {
+
+            try {
+                FTPWrapper ftp = connect(partition.account);
+                if (!partition.offer(ftp, maxIdle)) {
+                    ftp.close();
+                    return;
+                }
+            } catch (IOException ex) {
+                log.warn("Unable to connect to {}: {}", partition.account,
+                    ex.toString());
+                return;
+            } finally {
+                partition.permits.release();
+            }
+        }
+    }
+
+    private FTPWrapper takeIdle(final Partition partition) {
+        PooledConnection connection;
+        while ((connection = partition.idle.pollFirst()) != null) {
+            FTPWrapper ftp = connection.ftp;
+            if (!validateOnBorrow || validate(ftp)) {
+                return ftp;
+            }
+            log.debug("Discarding stale FTP connection to {}.",
+                partition.account);
+            ftp.close();
+        }
+        return null;
+    }
+
+    private static boolean validate(final FTPWrapper ftp) {
+        try {
+            return ftp.isConnected() && ftp.noop();
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    private static boolean reset(final FTPWrapper ftp) {
+        try {
+            return ftp.resetSession();
+        } catch (IOException | RuntimeException ex) {
+            log.debug("Unable to reset FTP session: {}", ex.toString());
+            return false;
+        }
+    }
+
+    private static boolean isBroken(final FTPWrapper ftp) {
+        return !ftp.isConnected()
+            || ftp.getReplyCode() == FTPReply.SERVICE_NOT_AVAILABLE;
+    }
+
+    private FTPWrapper connect(final FTPAccount account) throws IOException {
+        FTPWrapper ftp = new FTPWrapper();
+        ftp.setListener(listener);
+        if (!ftp.connectAndLogin(account.getHost(), account.getPort(),
+            account.getUserName(), account.getPassword())) {
+
+            throw new IOException("FTP login failed for " + account + ".");
+        }
+        return ftp;
+    }
+
+    private Partition getPartition(final FTPAccount account) {
+        Partition partition = partitions.get(account);
+        if (partition == null) {
+            Partition newPartition = new Partition(account, maxTotal);
+            partition = partitions.putIfAbsent(account, newPartition);
+            if (partition == null) {
+                partition = newPartition;
+            }
+        }
+        return partition;
+    }
+
+    private Partition remove(final FTPWrapper ftp) {
+        Validate.notNull(ftp, "ftp is null.");
+        Partition partition = borrowed.remove(ftp);
+        Validate.isTrue(partition != null,
+            "FTP connection is not borrowed from this pool.");
+        return partition;
+    }
+
+    private synchronized void startEvictor() {
+        if (evictor != null || closed) {
+            return;
+        }
+        evictor = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    Thread thread = new Thread(runnable, "FTPConnectionPool");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        evictor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    evict();
+                } catch (RuntimeException ex) {
+                    log.error("Fehler: ", ex);
+                }
+            }
+        }, evictionInterval, evictionInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Maximale Anzahl gleichzeitig ausgeliehener Verbindungen pro Account.
+     * Default ist 8.
+     *
+     * @param _maxTotal Maximale Anzahl ausgeliehener Verbindungen.
+     */
+    public void setMaxTotal(final int _maxTotal) {
+        Validate.isTrue(_maxTotal > 0, "maxTotal must be positive.");
+        maxTotal = _maxTotal;
+    }
+
+    /**
+     * Maximale Anzahl freier Verbindungen pro Account. Default ist 8.
+     *
+     * @param _maxIdle Maximale Anzahl freier Verbindungen.
+     */
+    public void setMaxIdle(final int _maxIdle) {
+        Validate.isTrue(_maxIdle >= 0, "maxIdle must not be negative.");
+        maxIdle = _maxIdle;
+    }
+
+    /**
+     * Minimale Anzahl freier Verbindungen pro Account. Default ist 0.
+     *
+     * @param _minIdle Minimale Anzahl freier Verbindungen.
+     */
+    public void setMinIdle(final int _minIdle) {
+        Validate.isTrue(_minIdle >= 0, "minIdle must not be negative.");
+        minIdle = _minIdle;
+    }
+
+    /**
+     * Maximale Wartezeit in {@link #borrow(FTPAccount)} in Millisekunden.
+     * Default sind 30 Sekunden.
+     *
+     * @param _borrowTimeout Maximale Wartezeit in Millisekunden.
+     */
+    public void setBorrowTimeout(final long _borrowTimeout) {
+        Validate.isTrue(_borrowTimeout >= 0,
+            "borrowTimeout must not be negative.");
+        borrowTimeout = _borrowTimeout;
+    }
+
+    /**
+     * Freie Verbindungen, die länger als idleTimeout Millisekunden nicht
+     * verwendet wurden, werden geschlossen. Default sind 60 Sekunden.
+     *
+     * @param _idleTimeout Die Zeit in Millisekunden.
+     */
+    public void setIdleTimeout(final long _idleTimeout) {
+        Validate.isTrue(_idleTimeout >= 0, "idleTimeout must not be negative.");
+        idleTimeout = _idleTimeout;
+    }
+
+    /**
+     * Das Intervall des Hintergrund-Threads in Millisekunden. Default sind
+     * 10 Sekunden.
+     *
+     * @param _evictionInterval Das Intervall in Millisekunden.
+     */
+    public void setEvictionInterval(final long _evictionInterval) {
+        Validate.isTrue(_evictionInterval > 0,
+            "evictionInterval must be positive.");
+        evictionInterval = _evictionInterval;
+    }
+
+    /**
+     * Prüft freie Verbindungen vor der Ausgabe mit NOOP. Default ist
+     * <code>true</code>.
+     *
+     * @param _validateOnBorrow <code>true</code>, wenn geprüft werden soll.
+     */
+    public void setValidateOnBorrow(final boolean _validateOnBorrow) {
+        validateOnBorrow = _validateOnBorrow;
+    }
+
+    /**
+     * Setzt den Listener für alle neuen Verbindungen des Pools. Siehe
+     * {@link FTPWrapper#setListener(FTPListener)}.
+     *
+     * @param _listener Der Listener oder <code>null</code> für keinen
+     *            Listener.
+     */
+    public void setListener(final FTPListener _listener) {
+        listener = (_listener == null) ? FTPListener.NONE : _listener;
+    }
+
+    /**
+     * Liefert den Listener des Pools.
+     *
+     * @return Der Listener. Nie <code>null</code>.
+     */
+    public FTPListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Die Verbindungen eines Accounts.
+     */
+    private static final class Partition {
+
+        private final FTPAccount account;
+
+        /** Begrenzt die Anzahl ausgeliehener Verbindungen. */
+        private final Semaphore permits;
+
+        /** Die freien Verbindungen. Die zuletzt verwendete liegt vorne. */
+        private final LinkedBlockingDeque<PooledConnection> idle =
+                new LinkedBlockingDeque<>();
+
+        private Partition(final FTPAccount _account, final int _maxTotal) {
+            account = _account;
+            permits = new Semaphore(_maxTotal, true);
+        }
+
+        private synchronized boolean offer(final FTPWrapper ftp,
+            final int maxIdle) {
+
+            if (idle.size() >= maxIdle) {
+                return false;
+            }
+            idle.offerFirst(new PooledConnection(ftp));
+            return true;
+        }
+
+    }
+
+    /**
+     * Eine freie Verbindung mit dem Zeitpunkt der letzten Verwendung.
+     */
+    private static final class PooledConnection {
+
+        private final FTPWrapper ftp;
+
+        private final long lastUsed = System.nanoTime();
+
+        private PooledConnection(final FTPWrapper _ftp) {
+            ftp = _ftp;
+        }
+
+    }
+
+}
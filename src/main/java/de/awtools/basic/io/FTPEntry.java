@@ -0,0 +1,169 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.io;
+
+import java.util.Calendar;
+
+import org.apache.commons.net.ftp.FTPFile;
+
+/**
+ * Ein Eintrag eines Verzeichnisses auf einem FTP Server. Enthält nur Name,
+ * Typ, Größe und Änderungszeitpunkt. Siehe
+ * {@link FTPWrapper#listEntries(String, java.util.function.Predicate)}. Die
+ * Klasse ist unveränderlich.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public final class FTPEntry {
+
+    /**
+     * Der Typ eines Eintrags.
+     */
+    public enum Type {
+        /** Eine Datei. */
+        FILE,
+        /** Ein Verzeichnis. */
+        DIRECTORY,
+        /** Ein symbolischer Link. */
+        LINK,
+        /** Unbekannter Typ. */
+        UNKNOWN
+    }
+
+    private final String name;
+
+    private final Type type;
+
+    private final long size;
+
+    private final long lastModified;
+
+    /**
+     * Konstruktor.
+     *
+     * @param _name Der Name.
+     * @param _type Der Typ.
+     * @param _size Die Größe in Bytes oder -1.
+     * @param _lastModified Der Änderungszeitpunkt in Millisekunden seit
+     *            1970 oder -1.
+     */
+    public FTPEntry(final String _name, final Type _type, final long _size,
+        final long _lastModified) {
+
+        name = _name;
+        type = _type;
+        size = _size;
+        lastModified = _lastModified;
+    }
+
+    /**
+     * Erstellt einen Eintrag aus einem <code>FTPFile</code>.
+     *
+     * @param file Ein geparster Eintrag.
+     * @return Der Eintrag.
+     */
+    static FTPEntry of(final FTPFile file) {
+        Type type;
+        switch (file.getType()) {
+            case FTPFile.FILE_TYPE:
+                type = Type.FILE;
+                break;
+            case FTPFile.DIRECTORY_TYPE:
+                type = Type.DIRECTORY;
+                break;
+            case FTPFile.SYMBOLIC_LINK_TYPE:
+                type = Type.LINK;
+                break;
+            default:
+                type = Type.UNKNOWN;
+        }
+
+        Calendar timestamp = file.getTimestamp();
+        return new FTPEntry(file.getName(), type, file.getSize(),
+            (timestamp == null) ? -1 : timestamp.getTimeInMillis());
+    }
+
+    /**
+     * Der Name.
+     *
+     * @return Der Name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Der Typ.
+     *
+     * @return Der Typ.
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Ist der Eintrag eine Datei?
+     *
+     * @return <code>true</code>, wenn der Eintrag eine Datei ist.
+     */
+    public boolean isFile() {
+        return type == Type.FILE;
+    }
+
+    /**
+     * Ist der Eintrag ein Verzeichnis?
+     *
+     * @return <code>true</code>, wenn der Eintrag ein Verzeichnis ist.
+     */
+    public boolean isDirectory() {
+        return type == Type.DIRECTORY;
+    }
+
+    /**
+     * Die Größe in Bytes.
+     *
+     * @return Die Größe oder -1, wenn sie nicht bekannt ist.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Der Änderungszeitpunkt.
+     *
+     * @return Millisekunden seit 1970 oder -1, wenn er nicht bekannt ist.
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + type + ", " + size + " bytes)";
+    }
+
+}
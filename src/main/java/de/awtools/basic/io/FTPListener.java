@@ -0,0 +1,93 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.io;
+
+/**
+ * Wird von {@link FTPWrapper} und {@link FTPTransferEngine} über
+ * Verbindungen, Übertragungen, Antworten des Servers und Wiederholungen
+ * informiert. Alle Methoden haben eine leere Default-Implementierung. Die
+ * Methoden werden im Thread der FTP Verbindung aufgerufen und sollten
+ * deshalb schnell sein. Eine Implementierung mit Zählern und Histogrammen
+ * ist {@link FTPMetrics}.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public interface FTPListener {
+
+    /** Ein Listener, der nichts tut. */
+    FTPListener NONE = new FTPListener() {
+    };
+
+    /**
+     * Connect und Login sind beendet.
+     *
+     * @param host Der Host.
+     * @param nanos Die Dauer für Connect und Login in Nanosekunden.
+     * @param success <code>true</code>, wenn das Login erfolgreich war.
+     */
+    default void connected(final String host, final long nanos,
+        final boolean success) {
+    }
+
+    /**
+     * Eine Übertragung ist beendet.
+     *
+     * @param host Der Host.
+     * @param upload <code>true</code> für einen Upload, <code>false</code>
+     *            für einen Download.
+     * @param serverFile Die Datei auf dem Server.
+     * @param bytes Die Anzahl der übertragenen Bytes.
+     * @param nanos Die Dauer in Nanosekunden.
+     * @param success <code>true</code>, wenn die Übertragung erfolgreich
+     *            war.
+     */
+    default void transferred(final String host, final boolean upload,
+        final String serverFile, final long bytes, final long nanos,
+        final boolean success) {
+    }
+
+    /**
+     * Der Server hat geantwortet.
+     *
+     * @param host Der Host.
+     * @param replyCode Der Reply-Code.
+     */
+    default void replyReceived(final String host, final int replyCode) {
+    }
+
+    /**
+     * Eine Übertragung wird wiederholt.
+     *
+     * @param host Der Host.
+     * @param serverFile Die Datei auf dem Server.
+     * @param attempt Der Versuch, der jetzt startet. Beginnt bei 2.
+     */
+    default void retried(final String host, final String serverFile,
+        final int attempt) {
+    }
+
+}
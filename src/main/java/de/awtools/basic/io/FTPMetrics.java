@@ -0,0 +1,517 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.io;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sammelt Zähler und Histogramme über FTP Verbindungen und Übertragungen,
+ * getrennt nach Host. Die Zähler basieren auf {@link LongAdder} und können
+ * ohne Sperren von vielen Verbindungen gleichzeitig erhöht werden:
+ * <pre>
+ * FTPMetrics metrics = new FTPMetrics();
+ * pool.setListener(metrics);
+ * ...
+ * metrics.writeTo(System.out);
+ * </pre>
+ * {@link #writeTo(Appendable)} schreibt alle Werte im Textformat von
+ * Prometheus. Die Dauer einer Übertragung zusammen mit dem Durchsatz
+ * zeigt, ob ein langsamer Server oder eine langsame Platte bremst: Die
+ * Dauer für Connect und Login misst nur den Server.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public class FTPMetrics implements FTPListener {
+
+    /** Die Grenzen der Histogramme für Zeitdauern in Millisekunden. */
+    static final long[] MILLIS_BUCKETS = { 1, 5, 10, 25, 50, 100, 250, 500,
+            1000, 2500, 5000, 10000, 30000, 60000 };
+
+    /** Die Grenzen des Histogramms für den Durchsatz in Bytes/Sekunde. */
+    static final long[] THROUGHPUT_BUCKETS = { 10000, 100000, 1000000,
+            10000000, 100000000, 1000000000 };
+
+    private final ConcurrentMap<String, HostMetrics> hosts =
+            new ConcurrentHashMap<>();
+
+    @Override
+    public void connected(final String host, final long nanos,
+        final boolean success) {
+
+        HostMetrics metrics = getOrCreate(host);
+        metrics.connects.increment();
+        if (!success) {
+            metrics.connectFailures.increment();
+        }
+        metrics.connectMillis.record(TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+
+    @Override
+    public void transferred(final String host, final boolean upload,
+        final String serverFile, final long bytes, final long nanos,
+        final boolean success) {
+
+        HostMetrics metrics = getOrCreate(host);
+        if (upload) {
+            metrics.uploads.increment();
+            metrics.bytesUploaded.add(bytes);
+        } else {
+            metrics.downloads.increment();
+            metrics.bytesDownloaded.add(bytes);
+        }
+        if (!success) {
+            metrics.transferFailures.increment();
+            return;
+        }
+        metrics.transferMillis.record(TimeUnit.NANOSECONDS.toMillis(nanos));
+        if (nanos > 0 && bytes > 0) {
+            metrics.throughput.record((long) (bytes * 1e9 / nanos));
+        }
+    }
+
+    @Override
+    public void replyReceived(final String host, final int replyCode) {
+        ConcurrentMap<Integer, LongAdder> replyCodes =
+                getOrCreate(host).replyCodes;
+        LongAdder counter = replyCodes.get(replyCode);
+        if (counter == null) {
+            LongAdder newCounter = new LongAdder();
+            counter = replyCodes.putIfAbsent(replyCode, newCounter);
+            if (counter == null) {
+                counter = newCounter;
+            }
+        }
+        counter.increment();
+    }
+
+    @Override
+    public void retried(final String host, final String serverFile,
+        final int attempt) {
+
+        getOrCreate(host).retries.increment();
+    }
+
+    /**
+     * Liefert die Werte eines Hosts.
+     *
+     * @param host Der Host.
+     * @return Die Werte oder <code>null</code>, wenn für diesen Host noch
+     *         nichts gemessen wurde.
+     */
+    public HostMetrics getHostMetrics(final String host) {
+        return hosts.get(host);
+    }
+
+    /**
+     * Liefert die Werte aller Hosts, sortiert nach Host.
+     *
+     * @return Die Werte je Host.
+     */
+    public Map<String, HostMetrics> getHostMetrics() {
+        return new TreeMap<>(hosts);
+    }
+
+    /**
+     * Verwirft alle Werte.
+     */
+    public void reset() {
+        hosts.clear();
+    }
+
+    /**
+     * Schreibt alle Werte im Textformat von Prometheus.
+     *
+     * @param out Das Ziel.
+     * @throws IOException Da ging was schief.
+     */
+    public void writeTo(final Appendable out) throws IOException {
+        Map<String, HostMetrics> snapshot = getHostMetrics();
+
+        writeType(out, "ftp_connects_total", "counter");
+        for (Map.Entry<String, HostMetrics> e : snapshot.entrySet()) {
+            writeValue(out, "ftp_connects_total", e.getKey(), null,
+                e.getValue().getConnects());
+        }
+        writeType(out, "ftp_connect_failures_total", "counter");
+        for (Map.Entry<String, HostMetrics> e : snapshot.entrySet()) {
+            writeValue(out, "ftp_connect_failures_total", e.getKey(), null,
+                e.getValue().getConnectFailures());
+        }
+        writeType(out, "ftp_transfers_total", "counter");
+        for (Map.Entry<String, HostMetrics> e : snapshot.entrySet()) {
+            writeValue(out, "ftp_transfers_total", e.getKey(),
+                "direction=\"upload\"", e.getValue().getUploads());
+            writeValue(out, "ftp_transfers_total", e.getKey(),
+                "direction=\"download\"", e.getValue().getDownloads());
+        }
+        writeType(out, "ftp_transfer_failures_total", "counter");
+        for (Map.Entry<String, HostMetrics> e : snapshot.entrySet()) {
+            writeValue(out, "ftp_transfer_failures_total", e.getKey(), null,
+                e.getValue().getTransferFailures());
+        }
+        writeType(out, "ftp_bytes_total", "counter");
+        for (Map.Entry<String, HostMetrics> e : snapshot.entrySet()) {
+            writeValue(out, "ftp_bytes_total", e.getKey(),
+                "direction=\"upload\"", e.getValue().getBytesUploaded());
+            writeValue(out, "ftp_bytes_total", e.getKey(),
+                "direction=\"download\"", e.getValue().getBytesDownloaded());
+        }
+        writeType(out, "ftp_retries_total", "counter");
+        for (Map.Entry<String, HostMetrics> e : snapshot.entrySet()) {
+            writeValue(out, "ftp_retries_total", e.getKey(), null,
+                e.getValue().getRetries());
+        }
+        writeType(out, "ftp_replies_total", "counter");
+        for (Map.Entry<String, HostMetrics> e : snapshot.entrySet()) {
+            for (Map.Entry<Integer, Long> reply : e.getValue()
+                .getReplyCodes().entrySet()) {
+
+                writeValue(out, "ftp_replies_total", e.getKey(), "code=\""
+                    + reply.getKey() + "\"", reply.getValue());
+            }
+        }
+
+        writeType(out, "ftp_connect_duration_ms", "histogram");
+        for (Map.Entry<String, HostMetrics> e : snapshot.entrySet()) {
+            writeHistogram(out, "ftp_connect_duration_ms", e.getKey(),
+                e.getValue().getConnectMillis());
+        }
+        writeType(out, "ftp_transfer_duration_ms", "histogram");
+        for (Map.Entry<String, HostMetrics> e : snapshot.entrySet()) {
+            writeHistogram(out, "ftp_transfer_duration_ms", e.getKey(),
+                e.getValue().getTransferMillis());
+        }
+        writeType(out, "ftp_throughput_bytes_per_second", "histogram");
+        for (Map.Entry<String, HostMetrics> e : snapshot.entrySet()) {
+            writeHistogram(out, "ftp_throughput_bytes_per_second",
+                e.getKey(), e.getValue().getThroughput());
+        }
+    }
+
+    /**
+     * Alle Werte im Textformat von Prometheus. Siehe
+     * {@link #writeTo(Appendable)}.
+     *
+     * @return Die Werte als Text.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        try {
+            writeTo(sb);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return sb.toString();
+    }
+
+    private HostMetrics getOrCreate(final String host) {
+        String key = (host == null) ? "unknown" : host;
+        HostMetrics metrics = hosts.get(key);
+        if (metrics == null) {
+            HostMetrics newMetrics = new HostMetrics();
+            metrics = hosts.putIfAbsent(key, newMetrics);
+            if (metrics == null) {
+                metrics = newMetrics;
+            }
+        }
+        return metrics;
+    }
+
+    private static void writeType(final Appendable out, final String name,
+        final String type) throws IOException {
+
+        out.append("# TYPE ").append(name).append(' ').append(type)
+            .append('\n');
+    }
+
+    private static void writeValue(final Appendable out, final String name,
+        final String host, final String label, final long value)
+        throws IOException {
+
+        out.append(name).append("{host=\"").append(escape(host)).append('"');
+        if (label != null) {
+            out.append(',').append(label);
+        }
+        out.append("} ").append(Long.toString(value)).append('\n');
+    }
+
+    private static void writeHistogram(final Appendable out,
+        final String name, final String host, final Histogram histogram)
+        throws IOException {
+
+        long[] bounds = histogram.getBounds();
+        long[] counts = histogram.getBucketCounts();
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            String le = (i < bounds.length) ? Long.toString(bounds[i]) : "+Inf";
+            writeValue(out, name + "_bucket", host, "le=\"" + le + "\"",
+                cumulative);
+        }
+        writeValue(out, name + "_sum", host, null, histogram.getSum());
+        writeValue(out, name + "_count", host, null, histogram.getCount());
+    }
+
+    private static String escape(final String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    /**
+     * Die Zähler und Histogramme eines Hosts.
+     */
+    public static final class HostMetrics {
+
+        private final LongAdder connects = new LongAdder();
+
+        private final LongAdder connectFailures = new LongAdder();
+
+        private final LongAdder uploads = new LongAdder();
+
+        private final LongAdder downloads = new LongAdder();
+
+        private final LongAdder transferFailures = new LongAdder();
+
+        private final LongAdder bytesUploaded = new LongAdder();
+
+        private final LongAdder bytesDownloaded = new LongAdder();
+
+        private final LongAdder retries = new LongAdder();
+
+        private final ConcurrentMap<Integer, LongAdder> replyCodes =
+                new ConcurrentHashMap<>();
+
+        private final Histogram connectMillis = new Histogram(MILLIS_BUCKETS);
+
+        private final Histogram transferMillis =
+                new Histogram(MILLIS_BUCKETS);
+
+        private final Histogram throughput =
+                new Histogram(THROUGHPUT_BUCKETS);
+
+        private HostMetrics() {
+        }
+
+        /**
+         * Die Anzahl der Verbindungsversuche.
+         *
+         * @return Die Anzahl der Verbindungsversuche.
+         */
+        public long getConnects() {
+            return connects.sum();
+        }
+
+        /**
+         * Die Anzahl der fehlgeschlagenen Logins.
+         *
+         * @return Die Anzahl der fehlgeschlagenen Logins.
+         */
+        public long getConnectFailures() {
+            return connectFailures.sum();
+        }
+
+        /**
+         * Die Anzahl der Uploads.
+         *
+         * @return Die Anzahl der Uploads.
+         */
+        public long getUploads() {
+            return uploads.sum();
+        }
+
+        /**
+         * Die Anzahl der Downloads.
+         *
+         * @return Die Anzahl der Downloads.
+         */
+        public long getDownloads() {
+            return downloads.sum();
+        }
+
+        /**
+         * Die Anzahl der fehlgeschlagenen Übertragungen.
+         *
+         * @return Die Anzahl der fehlgeschlagenen Übertragungen.
+         */
+        public long getTransferFailures() {
+            return transferFailures.sum();
+        }
+
+        /**
+         * Die hochgeladenen Bytes.
+         *
+         * @return Die hochgeladenen Bytes.
+         */
+        public long getBytesUploaded() {
+            return bytesUploaded.sum();
+        }
+
+        /**
+         * Die heruntergeladenen Bytes.
+         *
+         * @return Die heruntergeladenen Bytes.
+         */
+        public long getBytesDownloaded() {
+            return bytesDownloaded.sum();
+        }
+
+        /**
+         * Die Anzahl der Wiederholungen.
+         *
+         * @return Die Anzahl der Wiederholungen.
+         */
+        public long getRetries() {
+            return retries.sum();
+        }
+
+        /**
+         * Die Anzahl der Antworten je Reply-Code.
+         *
+         * @return Die Anzahl der Antworten je Reply-Code.
+         */
+        public Map<Integer, Long> getReplyCodes() {
+            Map<Integer, Long> result = new TreeMap<>();
+            for (Map.Entry<Integer, LongAdder> e : replyCodes.entrySet()) {
+                result.put(e.getKey(), e.getValue().sum());
+            }
+            return result;
+        }
+
+        /**
+         * Die Dauer von Connect und Login in Millisekunden.
+         *
+         * @return Die Dauer von Connect und Login in Millisekunden.
+         */
+        public Histogram getConnectMillis() {
+            return connectMillis;
+        }
+
+        /**
+         * Die Dauer erfolgreicher Übertragungen in Millisekunden.
+         *
+         * @return Die Dauer erfolgreicher Übertragungen in Millisekunden.
+         */
+        public Histogram getTransferMillis() {
+            return transferMillis;
+        }
+
+        /**
+         * Der Durchsatz erfolgreicher Übertragungen in Bytes/Sekunde.
+         *
+         * @return Der Durchsatz.
+         */
+        public Histogram getThroughput() {
+            return throughput;
+        }
+
+    }
+
+    /**
+     * Ein Histogramm mit festen Grenzen. Ein Wert zählt zum ersten Bucket,
+     * dessen Grenze größer oder gleich dem Wert ist. Der letzte Bucket
+     * zählt alle größeren Werte.
+     */
+    public static final class Histogram {
+
+        private final long[] bounds;
+
+        private final LongAdder[] buckets;
+
+        private final LongAdder sum = new LongAdder();
+
+        private Histogram(final long[] _bounds) {
+            bounds = _bounds;
+            buckets = new LongAdder[_bounds.length + 1];
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        private void record(final long value) {
+            int index = 0;
+            while (index < bounds.length && value > bounds[index]) {
+                index++;
+            }
+            buckets[index].increment();
+            sum.add(value);
+        }
+
+        /**
+         * Die oberen Grenzen der Buckets, ohne den letzten Bucket.
+         *
+         * @return Die oberen Grenzen der Buckets, ohne den letzten Bucket.
+         */
+        public long[] getBounds() {
+            return bounds.clone();
+        }
+
+        /**
+         * Die Anzahl der Werte je Bucket. Ein Element mehr als
+         * {@link #getBounds()}.
+         *
+         * @return Die Anzahl der Werte je Bucket.
+         */
+        public long[] getBucketCounts() {
+            long[] counts = new long[buckets.length];
+            for (int i = 0; i < buckets.length; i++) {
+                counts[i] = buckets[i].sum();
+            }
+            return counts;
+        }
+
+        /**
+         * Die Anzahl aller Werte.
+         *
+         * @return Die Anzahl aller Werte.
+         */
+        public long getCount() {
+            long count = 0;
+            for (LongAdder bucket : buckets) {
+                count += bucket.sum();
+            }
+            return count;
+        }
+
+        /**
+         * Die Summe aller Werte.
+         *
+         * @return Die Summe aller Werte.
+         */
+        public long getSum() {
+            return sum.sum();
+        }
+
+    }
+
+}
@@ -0,0 +1,437 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.commons.lang.Validate;
+import org.slf4j.Logger;
+
+import de.awtools.basic.LoggerFactory;
+import de.awtools.basic.file.PathSlice;
+
+/**
+ * Spiegelt ein lokales Verzeichnis auf einen FTP Server. Es werden nur neue
+ * und geänderte Dateien übertragen:
+ * <pre>
+ * FTPMirror mirror = new FTPMirror(pool, account, localRoot, "/www");
+ * mirror.setDeleteOrphans(true);
+ * FTPMirrorPlan plan = mirror.plan();
+ * System.out.println(plan); // Probelauf
+ * mirror.execute(plan);
+ * </pre>
+ * Eine Datei gilt als geändert, wenn sich die Größe unterscheidet oder die
+ * lokale Datei neuer ist als die Datei auf dem Server. Der Zeitvergleich
+ * findet nur statt, wenn der Server MLSD unterstützt und damit Zeitstempel
+ * in UTC liefert. Die Zeitstempel von LIST sind in der Zeitzone des Servers
+ * und werden ignoriert, dann entscheidet allein die Größe. Der Zeitvergleich
+ * wird mit einer Toleranz durchgeführt (Default 60 Sekunden). Nach einem
+ * Upload hat die Datei auf dem Server den Zeitpunkt des Uploads und gilt
+ * damit als aktuell. Die Uploads laufen parallel über einen
+ * {@link FTPTransferEngine}. Lokale Verzeichnisse ohne Dateien werden auf
+ * dem Server mit MKD angelegt.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public class FTPMirror {
+
+    /** Der private Logger der Klasse. */
+    private static final Logger log = LoggerFactory.make();
+
+    private final FTPConnectionPool pool;
+
+    private final FTPAccount account;
+
+    private final Path localRoot;
+
+    /** Das normalisierte Zielverzeichnis. Leer für die Wurzel. */
+    private final String remoteRoot;
+
+    private int connections = 4;
+
+    private boolean deleteOrphans;
+
+    private long timeTolerance = 60000;
+
+    private boolean passiveMode;
+
+    /**
+     * Konstruktor.
+     *
+     * @param _pool Der Pool für die Verbindungen.
+     * @param _account Die Zugangsdaten.
+     * @param _localRoot Das lokale Verzeichnis.
+     * @param _remoteRoot Das absolute Zielverzeichnis auf dem Server.
+     */
+    public FTPMirror(final FTPConnectionPool _pool, final FTPAccount _account,
+        final Path _localRoot, final String _remoteRoot) {
+
+        Validate.notNull(_pool, "pool is null.");
+        Validate.notNull(_account, "account is null.");
+        Validate.notNull(_localRoot, "localRoot is null.");
+        Validate.notNull(_remoteRoot, "remoteRoot is null.");
+
+        pool = _pool;
+        account = _account;
+        localRoot = _localRoot;
+        remoteRoot = PathSlice.of(_remoteRoot).toString();
+    }
+
+    /**
+     * Vergleicht das lokale Verzeichnis mit dem Server. Es wird nichts
+     * übertragen.
+     *
+     * @return Der Plan.
+     * @throws IOException Im Fehlerfall.
+     * @throws InterruptedException Der Thread wurde unterbrochen.
+     */
+    public FTPMirrorPlan plan() throws IOException, InterruptedException {
+        Map<String, FTPEntry> localFiles = new HashMap<>();
+        Set<String> localDirs = new HashSet<>();
+        scanLocal(localFiles, localDirs);
+
+        Map<String, FTPEntry> remoteFiles = new HashMap<>();
+        Set<String> remoteDirs = new HashSet<>();
+        FTPWrapper ftp = pool.borrow(account);
+        try {
+            ftp.setPassiveMode(passiveMode);
+            scanRemote(ftp, remoteFiles, remoteDirs);
+            pool.release(ftp);
+        } catch (IOException | RuntimeException ex) {
+            pool.invalidate(ftp);
+            throw ex;
+        }
+
+        FTPMirrorPlan plan =
+                compare(localFiles, localDirs, remoteFiles, remoteDirs);
+        log.info("FTP mirror {} -> {}{}: {} uploads, {} new directories,"
+            + " {} deletions.", localRoot, account, remoteRoot,
+            plan.getUploads().size(), plan.getCreatedDirectories().size(),
+            plan.getDeletedFiles().size() + plan.getDeletedDirectories().size());
+        return plan;
+    }
+
+    /**
+     * Führt einen Plan aus. Zuerst werden die Dateien hochgeladen und die
+     * leeren Verzeichnisse angelegt, danach werden Dateien und Verzeichnisse
+     * auf dem Server gelöscht.
+     *
+     * @param plan Ein Plan aus {@link #plan()}.
+     * @return Das Ergebnis der Uploads.
+     * @throws IOException Im Fehlerfall.
+     * @throws InterruptedException Der Thread wurde unterbrochen.
+     */
+    public FTPTransferReport execute(final FTPMirrorPlan plan)
+        throws IOException, InterruptedException {
+
+        FTPTransferEngine engine = new FTPTransferEngine(pool, account);
+        engine.setConnections(connections);
+        engine.setPassiveMode(passiveMode);
+        FTPTransferReport report = engine.execute(plan.getUploads());
+
+        if (plan.getCreatedDirectories().isEmpty()
+            && plan.getDeletedFiles().isEmpty()
+            && plan.getDeletedDirectories().isEmpty()) {
+
+            return report;
+        }
+
+        FTPWrapper ftp = pool.borrow(account);
+        try {
+            for (String dir : plan.getCreatedDirectories()) {
+                ftp.changeOrCreateDirectory("/", dir);
+            }
+            for (String file : plan.getDeletedFiles()) {
+                if (!ftp.deleteFile(file)) {
+                    log.warn("Unable to delete {}: {}", file,
+                        ftp.getReplyCode());
+                }
+            }
+            for (String dir : plan.getDeletedDirectories()) {
+                if (!ftp.removeDirectory(dir)) {
+                    log.warn("Unable to remove {}: {}", dir,
+                        ftp.getReplyCode());
+                }
+            }
+            pool.release(ftp);
+        } catch (IOException | RuntimeException ex) {
+            pool.invalidate(ftp);
+            throw ex;
+        }
+        return report;
+    }
+
+    /**
+     * Vergleicht und überträgt. Entspricht
+     * <code>execute(plan())</code>.
+     *
+     * @return Das Ergebnis der Uploads.
+     * @throws IOException Im Fehlerfall.
+     * @throws InterruptedException Der Thread wurde unterbrochen.
+     */
+    public FTPTransferReport mirror() throws IOException, InterruptedException {
+        return execute(plan());
+    }
+
+    /**
+     * Vergleicht die lokalen Dateien mit den Dateien auf dem Server. Die
+     * Schlüssel sind relative Pfade mit führendem '/'.
+     *
+     * @param localFiles Die lokalen Dateien.
+     * @param localDirs Die lokalen Verzeichnisse.
+     * @param remoteFiles Die Dateien auf dem Server.
+     * @param remoteDirs Die Verzeichnisse auf dem Server.
+     * @return Der Plan.
+     */
+    FTPMirrorPlan compare(final Map<String, FTPEntry> localFiles,
+        final Set<String> localDirs, final Map<String, FTPEntry> remoteFiles,
+        final Set<String> remoteDirs) {
+
+        List<FTPTransferJob> uploads = new ArrayList<>();
+        int unchanged = 0;
+        for (Map.Entry<String, FTPEntry> local : new TreeMap<>(localFiles)
+            .entrySet()) {
+
+            FTPEntry remote = remoteFiles.get(local.getKey());
+            if (isChanged(local.getValue(), remote)) {
+                uploads.add(FTPTransferJob.upload(
+                    localRoot.resolve(local.getKey().substring(1)).toString(),
+                    remoteRoot + local.getKey()));
+            } else {
+                unchanged++;
+            }
+        }
+
+        // Die FTPTransferEngine legt nur die Verzeichnisse der Uploads an.
+        // Übrig bleiben die fehlenden Verzeichnisse, unter denen weder ein
+        // Upload noch ein anderes fehlendes Verzeichnis liegt.
+        Set<String> covered = new HashSet<>();
+        for (FTPTransferJob job : uploads) {
+            addParents(job.getServerFile().substring(remoteRoot.length()),
+                covered);
+        }
+        List<String> missingDirs = new ArrayList<>();
+        for (String dir : localDirs) {
+            if (!remoteDirs.contains(dir)) {
+                missingDirs.add(dir);
+                addParents(dir, covered);
+            }
+        }
+        List<String> createdDirs = new ArrayList<>();
+        for (String dir : missingDirs) {
+            if (!covered.contains(dir)) {
+                createdDirs.add(remoteRoot + dir);
+            }
+        }
+        Collections.sort(createdDirs);
+
+        List<String> deletedFiles = new ArrayList<>();
+        List<String> deletedDirs = new ArrayList<>();
+        if (deleteOrphans) {
+            for (String file : remoteFiles.keySet()) {
+                if (!localFiles.containsKey(file)) {
+                    deletedFiles.add(remoteRoot + file);
+                }
+            }
+            Collections.sort(deletedFiles);
+
+            for (String dir : remoteDirs) {
+                if (!localDirs.contains(dir)) {
+                    deletedDirs.add(remoteRoot + dir);
+                }
+            }
+            // Die tiefsten Verzeichnisse zuerst.
+            Collections.sort(deletedDirs, new Comparator<String>() {
+                @Override
+                public int compare(final String dir1, final String dir2) {
+                    int diff = depth(dir2) - depth(dir1);
+                    return (diff != 0) ? diff : dir1.compareTo(dir2);
+                }
+            });
+        }
+
+        return new FTPMirrorPlan(uploads, createdDirs, deletedFiles,
+            deletedDirs, unchanged);
+    }
+
+    /**
+     * Sammelt alle Elternverzeichnisse eines relativen Pfads.
+     */
+    private static void addParents(final String path,
+        final Set<String> parents) {
+
+        int index = path.lastIndexOf('/');
+        while (index > 0) {
+            parents.add(path.substring(0, index));
+            index = path.lastIndexOf('/', index - 1);
+        }
+    }
+
+    private boolean isChanged(final FTPEntry local, final FTPEntry remote) {
+        if (remote == null || !remote.isFile()) {
+            return true;
+        }
+        if (remote.getSize() >= 0 && remote.getSize() != local.getSize()) {
+            return true;
+        }
+        return remote.getLastModified() >= 0
+            && local.getLastModified() > remote.getLastModified()
+                + timeTolerance;
+    }
+
+    private static int depth(final String path) {
+        int depth = 0;
+        for (int i = 0; i < path.length(); i++) {
+            if (path.charAt(i) == '/') {
+                depth++;
+            }
+        }
+        return depth;
+    }
+
+    private void scanLocal(final Map<String, FTPEntry> files,
+        final Set<String> dirs) throws IOException {
+
+        Files.walkFileTree(localRoot, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(final Path dir,
+                final BasicFileAttributes attrs) {
+
+                if (!dir.equals(localRoot)) {
+                    dirs.add(relativize(dir));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(final Path file,
+                final BasicFileAttributes attrs) {
+
+                if (attrs.isRegularFile()) {
+                    files.put(relativize(file),
+                        new FTPEntry(file.getFileName().toString(),
+                            FTPEntry.Type.FILE, attrs.size(), attrs
+                                .lastModifiedTime().toMillis()));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private String relativize(final Path path) {
+        String relative = localRoot.relativize(path).toString();
+        return '/' + relative.replace(File.separatorChar, '/');
+    }
+
+    private void scanRemote(final FTPWrapper ftp,
+        final Map<String, FTPEntry> files, final Set<String> dirs)
+        throws IOException {
+
+        // Ohne MLSD ist die Zeitzone der Zeitstempel unbekannt.
+        boolean exactTimes = ftp.isMlsdSupported();
+
+        Deque<String> queue = new ArrayDeque<>();
+        queue.add("");
+        while (!queue.isEmpty()) {
+            String dir = queue.poll();
+            String path = remoteRoot + dir;
+            Iterator<FTPEntry> entries =
+                    ftp.listEntries(path.isEmpty() ? "/" : path, null);
+            while (entries.hasNext()) {
+                FTPEntry entry = entries.next();
+                String relative = dir + '/' + entry.getName();
+                if (entry.isDirectory()) {
+                    dirs.add(relative);
+                    queue.add(relative);
+                } else if (entry.isFile()) {
+                    files.put(relative, (exactTimes) ? entry : new FTPEntry(
+                        entry.getName(), entry.getType(), entry.getSize(), -1));
+                }
+            }
+        }
+    }
+
+    /**
+     * Die Anzahl der parallelen Verbindungen für Uploads. Default ist 4.
+     *
+     * @param _connections Die Anzahl der Verbindungen.
+     */
+    public void setConnections(final int _connections) {
+        Validate.isTrue(_connections > 0, "connections must be positive.");
+        connections = _connections;
+    }
+
+    /**
+     * Dateien und Verzeichnisse auf dem Server löschen, die lokal nicht
+     * existieren. Default ist <code>false</code>.
+     *
+     * @param _deleteOrphans <code>true</code>, wenn gelöscht werden soll.
+     */
+    public void setDeleteOrphans(final boolean _deleteOrphans) {
+        deleteOrphans = _deleteOrphans;
+    }
+
+    /**
+     * Die Toleranz für den Zeitvergleich in Millisekunden. Default sind 60
+     * Sekunden. Nur relevant, wenn der Server MLSD unterstützt.
+     *
+     * @param _timeTolerance Die Toleranz in Millisekunden.
+     */
+    public void setTimeTolerance(final long _timeTolerance) {
+        Validate.isTrue(_timeTolerance >= 0,
+            "timeTolerance must not be negative.");
+        timeTolerance = _timeTolerance;
+    }
+
+    /**
+     * Passiv-Modus für alle Verbindungen. Default ist <code>false</code>.
+     *
+     * @param _passiveMode Passiv-Modus.
+     */
+    public void setPassiveMode(final boolean _passiveMode) {
+        passiveMode = _passiveMode;
+    }
+
+}
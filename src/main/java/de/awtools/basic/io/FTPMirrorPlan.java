@@ -0,0 +1,159 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.io;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Der Plan eines {@link FTPMirror}: Welche Dateien werden hochgeladen,
+ * welche leeren Verzeichnisse werden angelegt und welche Dateien und
+ * Verzeichnisse werden auf dem Server gelöscht? Ein Plan
+ * kann ohne Ausführung als Probelauf ausgegeben werden. Die Klasse ist
+ * unveränderlich.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public final class FTPMirrorPlan {
+
+    private final List<FTPTransferJob> uploads;
+
+    private final List<String> createdDirectories;
+
+    private final List<String> deletedFiles;
+
+    private final List<String> deletedDirectories;
+
+    private final int unchanged;
+
+    /**
+     * Konstruktor.
+     *
+     * @param _uploads Die hochzuladenden Dateien.
+     * @param _createdDirectories Die anzulegenden Verzeichnisse auf dem
+     *            Server.
+     * @param _deletedFiles Die zu löschenden Dateien auf dem Server.
+     * @param _deletedDirectories Die zu löschenden Verzeichnisse auf dem
+     *            Server. Die tiefsten Verzeichnisse zuerst.
+     * @param _unchanged Die Anzahl der unveränderten Dateien.
+     */
+    FTPMirrorPlan(final List<FTPTransferJob> _uploads,
+        final List<String> _createdDirectories,
+        final List<String> _deletedFiles,
+        final List<String> _deletedDirectories, final int _unchanged) {
+
+        uploads = Collections.unmodifiableList(_uploads);
+        createdDirectories = Collections.unmodifiableList(_createdDirectories);
+        deletedFiles = Collections.unmodifiableList(_deletedFiles);
+        deletedDirectories = Collections.unmodifiableList(_deletedDirectories);
+        unchanged = _unchanged;
+    }
+
+    /**
+     * Die neuen und geänderten Dateien.
+     *
+     * @return Die Upload-Aufträge.
+     */
+    public List<FTPTransferJob> getUploads() {
+        return uploads;
+    }
+
+    /**
+     * Die lokalen Verzeichnisse, die auf dem Server fehlen und nicht schon
+     * durch einen Upload angelegt werden.
+     *
+     * @return Absolute Namen der Verzeichnisse auf dem Server.
+     */
+    public List<String> getCreatedDirectories() {
+        return createdDirectories;
+    }
+
+    /**
+     * Die Dateien auf dem Server, die lokal nicht mehr existieren.
+     *
+     * @return Absolute Namen der Dateien auf dem Server.
+     */
+    public List<String> getDeletedFiles() {
+        return deletedFiles;
+    }
+
+    /**
+     * Die Verzeichnisse auf dem Server, die lokal nicht mehr existieren. Die
+     * tiefsten Verzeichnisse stehen vorne.
+     *
+     * @return Absolute Namen der Verzeichnisse auf dem Server.
+     */
+    public List<String> getDeletedDirectories() {
+        return deletedDirectories;
+    }
+
+    /**
+     * Die Anzahl der unveränderten Dateien.
+     *
+     * @return Die Anzahl der unveränderten Dateien.
+     */
+    public int getUnchangedCount() {
+        return unchanged;
+    }
+
+    /**
+     * Gibt es nichts zu tun?
+     *
+     * @return <code>true</code>, wenn Server und lokales Verzeichnis gleich
+     *         sind.
+     */
+    public boolean isEmpty() {
+        return uploads.isEmpty() && createdDirectories.isEmpty()
+            && deletedFiles.isEmpty() && deletedDirectories.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(uploads.size()).append(" uploads, ")
+            .append(createdDirectories.size())
+            .append(" created directories, ")
+            .append(deletedFiles.size()).append(" deleted files, ")
+            .append(deletedDirectories.size())
+            .append(" deleted directories, ").append(unchanged)
+            .append(" unchanged");
+        for (FTPTransferJob job : uploads) {
+            sb.append("\nUPLOAD ").append(job);
+        }
+        for (String dir : createdDirectories) {
+            sb.append("\nMKDIR ").append(dir);
+        }
+        for (String file : deletedFiles) {
+            sb.append("\nDELETE ").append(file);
+        }
+        for (String dir : deletedDirectories) {
+            sb.append("\nRMDIR ").append(dir);
+        }
+        return sb.toString();
+    }
+
+}
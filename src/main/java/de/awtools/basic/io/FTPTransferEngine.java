@@ -0,0 +1,456 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang.UnhandledException;
+import org.apache.commons.lang.Validate;
+import org.apache.commons.net.ftp.FTPReply;
+import org.slf4j.Logger;
+
+import de.awtools.basic.LoggerFactory;
+import de.awtools.basic.file.PathSlice;
+
+/**
+ * Überträgt viele Dateien parallel über mehrere FTP Verbindungen. Die
+ * Verbindungen kommen aus einem {@link FTPConnectionPool}:
+ * <pre>
+ * FTPTransferEngine engine = new FTPTransferEngine(pool, account);
+ * engine.setConnections(4);
+ * FTPTransferReport report = engine.execute(jobs);
+ * </pre>
+ * Vor der Übertragung werden alle benötigten Verzeichnisse auf dem Server
+ * (Upload) bzw. lokal (Download) angelegt. Die Namen der Dateien auf dem
+ * Server müssen absolut sein. Schlägt eine Übertragung mit einer
+ * <code>IOException</code> oder einer temporären Fehlermeldung (4xx) des
+ * Servers fehl, wird sie nach einer Wartezeit wiederholt. Die Wartezeit
+ * verdoppelt sich mit jedem Versuch. Eine Verbindung, die eine
+ * <code>IOException</code> geliefert hat, wird verworfen. Mit
+ * {@link #setResume(boolean)} setzt eine Wiederholung die Übertragung an
+ * der Abbruchstelle fort.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public class FTPTransferEngine {
+
+    /** Der private Logger der Klasse. */
+    private static final Logger log = LoggerFactory.make();
+
+    private final FTPConnectionPool pool;
+
+    private final FTPAccount account;
+
+    private int connections = 4;
+
+    private int maxRetries = 3;
+
+    private long retryBackoff = 500;
+
+    private boolean passiveMode;
+
+    private boolean resume;
+
+    private FTPChecksum.Algorithm checksumAlgorithm;
+
+    private FTPTransferOptions transferOptions = new FTPTransferOptions();
+
+    /**
+     * Konstruktor.
+     *
+     * @param _pool Der Pool für die Verbindungen.
+     * @param _account Die Zugangsdaten.
+     */
+    public FTPTransferEngine(final FTPConnectionPool _pool,
+        final FTPAccount _account) {
+
+        Validate.notNull(_pool, "pool is null.");
+        Validate.notNull(_account, "account is null.");
+
+        pool = _pool;
+        account = _account;
+    }
+
+    /**
+     * Führt die Aufträge aus.
+     *
+     * @param jobs Die Aufträge.
+     * @return Die Ergebnisse.
+     * @throws IOException Die Verzeichnisse konnten nicht angelegt werden.
+     * @throws InterruptedException Der Thread wurde unterbrochen.
+     */
+    public FTPTransferReport execute(final List<FTPTransferJob> jobs)
+        throws IOException, InterruptedException {
+
+        Validate.notNull(jobs, "jobs is null.");
+        for (FTPTransferJob job : jobs) {
+            Validate.isTrue(job.getServerFile().startsWith("/"),
+                "Server file must be absolute: ", job.getServerFile());
+        }
+
+        long start = System.nanoTime();
+        createDirectories(jobs);
+
+        FTPTransferResult[] results = new FTPTransferResult[jobs.size()];
+        AtomicInteger next = new AtomicInteger();
+        int threads = Math.min(connections, jobs.size());
+        if (threads > 0) {
+            ExecutorService executor =
+                    Executors.newFixedThreadPool(threads, new ThreadFactory() {
+                        private final AtomicInteger count = new AtomicInteger();
+
+                        @Override
+                        public Thread newThread(final Runnable runnable) {
+                            Thread thread = new Thread(runnable,
+                                "FTPTransferEngine-" + count.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            try {
+                List<Future<Void>> futures = new ArrayList<>(threads);
+                for (int i = 0; i < threads; i++) {
+                    futures.add(executor.submit(new Worker(jobs, results, next)));
+                }
+                for (Future<Void> future : futures) {
+                    future.get();
+                }
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof InterruptedException) {
+                    throw (InterruptedException) ex.getCause();
+                }
+                throw new UnhandledException(ex.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        FTPTransferReport report =
+                new FTPTransferReport(Arrays.asList(results),
+                    System.nanoTime() - start);
+        log.info("FTP transfer to {}: {}", account, report);
+        return report;
+    }
+
+    /**
+     * Legt die Verzeichnisse für alle Aufträge an. Auf dem Server werden nur
+     * die tiefsten Verzeichnisse angelegt, die übergeordneten Verzeichnisse
+     * entstehen dabei.
+     *
+     * @param jobs Die Aufträge.
+     * @throws IOException Im Fehlerfall.
+     * @throws InterruptedException Der Thread wurde unterbrochen.
+     */
+    private void createDirectories(final Collection<FTPTransferJob> jobs)
+        throws IOException, InterruptedException {
+
+        SortedSet<String> serverDirs = new TreeSet<>();
+        SortedSet<String> localDirs = new TreeSet<>();
+        for (FTPTransferJob job : jobs) {
+            if (job.getDirection() == FTPTransferJob.Direction.UPLOAD) {
+                PathSlice parent = PathSlice.of(job.getServerFile()).getParent();
+                if (!parent.isRoot()) {
+                    serverDirs.add(parent.toString());
+                }
+            } else {
+                File parent = new File(job.getLocalFile()).getAbsoluteFile()
+                    .getParentFile();
+                if (parent != null) {
+                    localDirs.add(parent.getPath());
+                }
+            }
+        }
+
+        for (String dir : localDirs) {
+            Path path = Paths.get(dir);
+            if (!Files.isDirectory(path)) {
+                Files.createDirectories(path);
+            }
+        }
+
+        List<String> leaves = leafDirectories(serverDirs);
+        if (leaves.isEmpty()) {
+            return;
+        }
+
+        FTPWrapper ftp = pool.borrow(account);
+        try {
+            for (String dir : leaves) {
+                ftp.changeOrCreateDirectory("/", dir);
+            }
+            pool.release(ftp);
+        } catch (IOException | RuntimeException ex) {
+            pool.invalidate(ftp);
+            throw new IOException("Unable to create server directories.", ex);
+        }
+    }
+
+    /**
+     * Liefert die Verzeichnisse, die kein Vorfahre eines anderen
+     * Verzeichnisses der Menge sind.
+     *
+     * @param dirs Normalisierte Verzeichnisse.
+     * @return Die tiefsten Verzeichnisse in der Reihenfolge von
+     *         <code>dirs</code>.
+     */
+    static List<String> leafDirectories(final Collection<String> dirs) {
+        Set<String> ancestors = new HashSet<>();
+        for (String dir : dirs) {
+            for (int i = dir.lastIndexOf('/'); i > 0; i =
+                    dir.lastIndexOf('/', i - 1)) {
+                if (!ancestors.add(dir.substring(0, i))) {
+                    break;
+                }
+            }
+        }
+
+        List<String> leaves = new ArrayList<>();
+        for (String dir : dirs) {
+            if (!ancestors.contains(dir)) {
+                leaves.add(dir);
+            }
+        }
+        return leaves;
+    }
+
+    /**
+     * Arbeitet Aufträge ab, bis keine mehr übrig sind. Verwendet dabei eine
+     * Verbindung aus dem Pool.
+     */
+    private final class Worker implements Callable<Void> {
+
+        private final List<FTPTransferJob> jobs;
+
+        private final FTPTransferResult[] results;
+
+        private final AtomicInteger next;
+
+        private FTPWrapper ftp;
+
+        private Worker(final List<FTPTransferJob> _jobs,
+            final FTPTransferResult[] _results, final AtomicInteger _next) {
+
+            jobs = _jobs;
+            results = _results;
+            next = _next;
+        }
+
+        @Override
+        public Void call() throws InterruptedException {
+            try {
+                int index;
+                while ((index = next.getAndIncrement()) < jobs.size()) {
+                    results[index] = transfer(jobs.get(index));
+                }
+            } finally {
+                if (ftp != null) {
+                    pool.release(ftp);
+                }
+            }
+            return null;
+        }
+
+        private FTPTransferResult transfer(final FTPTransferJob job)
+            throws InterruptedException {
+
+            long start = System.nanoTime();
+            Exception exception = null;
+            int attempt = 0;
+            while (attempt <= maxRetries) {
+                if (attempt > 0) {
+                    Thread.sleep(retryBackoff << (attempt - 1));
+                    pool.getListener().retried(account.getHost(),
+                        job.getServerFile(), attempt + 1);
+                }
+                attempt++;
+
+                try {
+                    if (ftp == null) {
+                        ftp = pool.borrow(account);
+                        ftp.setPassiveMode(passiveMode);
+                        ftp.setTransferOptions(transferOptions);
+                        ftp.binary();
+                    }
+
+                    boolean success;
+                    if (checksumAlgorithm != null && !resume) {
+                        success = transferVerified(job);
+                    } else if (job.getDirection()
+                        == FTPTransferJob.Direction.UPLOAD) {
+                        success = resume ? ftp.resumeUploadFile(
+                            job.getLocalFile(), job.getServerFile())
+                                : ftp.uploadFile(job.getLocalFile(),
+                                    job.getServerFile());
+                    } else {
+                        success = resume ? ftp.resumeDownloadFile(
+                            job.getServerFile(), job.getLocalFile())
+                                : ftp.downloadFile(job.getServerFile(),
+                                    job.getLocalFile());
+                    }
+
+                    if (success) {
+                        return new FTPTransferResult(job, true, attempt,
+                            new File(job.getLocalFile()).length(),
+                            System.nanoTime() - start, null);
+                    }
+
+                    exception = null;
+                    if (!FTPReply.isNegativeTransient(ftp.getReplyCode())) {
+                        break;
+                    }
+                } catch (IOException | RuntimeException ex) {
+                    // Eine RuntimeException (z.B. aus einem FTPListener)
+                    // betrifft nur diesen Auftrag, nicht den Worker.
+                    log.debug("Transfer {} failed: {}", job, ex.toString());
+                    exception = ex;
+                    // Nach einer falschen Prüfsumme ist die Verbindung
+                    // weiter brauchbar.
+                    if (ftp != null && !(ex instanceof FTPChecksumException)) {
+                        pool.invalidate(ftp);
+                        ftp = null;
+                    }
+                }
+            }
+
+            log.warn("Transfer {} failed after {} attempts.", job, attempt);
+            return new FTPTransferResult(job, false, attempt, 0,
+                System.nanoTime() - start, exception);
+        }
+
+        private boolean transferVerified(final FTPTransferJob job)
+            throws IOException {
+
+            FTPChecksum checksum = new FTPChecksum(checksumAlgorithm);
+            if (job.getDirection() == FTPTransferJob.Direction.UPLOAD) {
+                return ftp.uploadFileVerified(job.getLocalFile(),
+                    job.getServerFile(), checksum) != null;
+            }
+            return ftp.downloadFileVerified(job.getServerFile(),
+                job.getLocalFile(), checksum) != null;
+        }
+
+    }
+
+    /**
+     * Die Anzahl der parallelen Verbindungen. Default ist 4.
+     *
+     * @param _connections Die Anzahl der Verbindungen.
+     */
+    public void setConnections(final int _connections) {
+        Validate.isTrue(_connections > 0, "connections must be positive.");
+        connections = _connections;
+    }
+
+    /**
+     * Die maximale Anzahl der Wiederholungen pro Datei. Default ist 3.
+     *
+     * @param _maxRetries Die Anzahl der Wiederholungen.
+     */
+    public void setMaxRetries(final int _maxRetries) {
+        Validate.isTrue(_maxRetries >= 0, "maxRetries must not be negative.");
+        maxRetries = _maxRetries;
+    }
+
+    /**
+     * Die Wartezeit vor der ersten Wiederholung in Millisekunden. Default
+     * sind 500 Millisekunden.
+     *
+     * @param _retryBackoff Die Wartezeit in Millisekunden.
+     */
+    public void setRetryBackoff(final long _retryBackoff) {
+        Validate.isTrue(_retryBackoff >= 0,
+            "retryBackoff must not be negative.");
+        retryBackoff = _retryBackoff;
+    }
+
+    /**
+     * Passiv-Modus für alle Verbindungen. Default ist <code>false</code>.
+     *
+     * @param _passiveMode Passiv-Modus.
+     */
+    public void setPassiveMode(final boolean _passiveMode) {
+        passiveMode = _passiveMode;
+    }
+
+    /**
+     * Die Einstellungen für die Datenübertragung aller Verbindungen.
+     *
+     * @param _transferOptions Die Einstellungen.
+     */
+    public void setTransferOptions(final FTPTransferOptions _transferOptions) {
+        Validate.notNull(_transferOptions, "transferOptions is null.");
+        transferOptions = _transferOptions;
+    }
+
+    /**
+     * Abgebrochene Übertragungen fortsetzen, statt sie neu zu starten.
+     * Siehe {@link FTPWrapper#resumeUploadFile(String, String)} und
+     * {@link FTPWrapper#resumeDownloadFile(String, String)}. Default ist
+     * <code>false</code>.
+     *
+     * @param _resume <code>true</code>, wenn fortgesetzt werden soll.
+     */
+    public void setResume(final boolean _resume) {
+        resume = _resume;
+    }
+
+    /**
+     * Prüft jede Übertragung mit einer Prüfsumme, die während der
+     * Übertragung berechnet wird. Siehe
+     * {@link FTPWrapper#uploadFileVerified(String, String, FTPChecksum)}.
+     * Eine falsche Prüfsumme führt zu einer Wiederholung. Wird bei
+     * {@link #setResume(boolean)} ignoriert. Default ist <code>null</code>,
+     * also keine Prüfung.
+     *
+     * @param _checksumAlgorithm Das Verfahren oder <code>null</code>.
+     */
+    public void setChecksumAlgorithm(
+        final FTPChecksum.Algorithm _checksumAlgorithm) {
+
+        checksumAlgorithm = _checksumAlgorithm;
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.io;
+
+import org.apache.commons.lang.Validate;
+
+/**
+ * Ein Auftrag für den {@link FTPTransferEngine}: Eine Datei hoch- oder
+ * herunterladen. Der Name der Datei auf dem Server sollte absolut sein,
+ * da die Aufträge über mehrere Verbindungen verteilt werden. Die Klasse ist
+ * unveränderlich.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public final class FTPTransferJob {
+
+    /**
+     * Die Richtung der Übertragung.
+     */
+    public enum Direction {
+        /** Lokale Datei auf den Server laden. */
+        UPLOAD,
+        /** Datei vom Server laden. */
+        DOWNLOAD
+    }
+
+    private final Direction direction;
+
+    private final String localFile;
+
+    private final String serverFile;
+
+    private FTPTransferJob(final Direction _direction,
+        final String _localFile, final String _serverFile) {
+
+        Validate.notNull(_localFile, "localFile is null.");
+        Validate.notNull(_serverFile, "serverFile is null.");
+
+        direction = _direction;
+        localFile = _localFile;
+        serverFile = _serverFile;
+    }
+
+    /**
+     * Erstellt einen Upload-Auftrag.
+     *
+     * @param localFile Name der lokalen Datei.
+     * @param serverFile Name der Datei auf dem Server.
+     * @return Der Auftrag.
+     */
+    public static FTPTransferJob upload(final String localFile,
+        final String serverFile) {
+
+        return new FTPTransferJob(Direction.UPLOAD, localFile, serverFile);
+    }
+
+    /**
+     * Erstellt einen Download-Auftrag.
+     *
+     * @param serverFile Name der Datei auf dem Server.
+     * @param localFile Name der lokalen Datei.
+     * @return Der Auftrag.
+     */
+    public static FTPTransferJob download(final String serverFile,
+        final String localFile) {
+
+        return new FTPTransferJob(Direction.DOWNLOAD, localFile, serverFile);
+    }
+
+    /**
+     * Die Richtung der Übertragung.
+     *
+     * @return Die Richtung.
+     */
+    public Direction getDirection() {
+        return direction;
+    }
+
+    /**
+     * Name der lokalen Datei.
+     *
+     * @return Name der lokalen Datei.
+     */
+    public String getLocalFile() {
+        return localFile;
+    }
+
+    /**
+     * Name der Datei auf dem Server.
+     *
+     * @return Name der Datei auf dem Server.
+     */
+    public String getServerFile() {
+        return serverFile;
+    }
+
+    @Override
+    public String toString() {
+        return (direction == Direction.UPLOAD) ? localFile + " -> "
+                + serverFile : serverFile + " -> " + localFile;
+    }
+
+}
@@ -0,0 +1,145 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.io;
+
+import org.apache.commons.lang.Validate;
+
+/**
+ * Einstellungen für die Datenübertragung von {@link FTPWrapper}. Die
+ * Einstellungen gelten für Upload und Download gleichermaßen:
+ * <ul>
+ *  <li>bufferSize: Die Puffergröße für das Kopieren zwischen lokaler Datei
+ *   und Datenverbindung (<code>FTPClient#setBufferSize(int)</code>).
+ *   Default sind 64 KByte.</li>
+ *  <li>sendBufferSize, receiveBufferSize: Die Socket-Puffer (TCP Window)
+ *   der Datenverbindungen. Bei Leitungen mit hoher Latenz begrenzt das TCP
+ *   Window den Durchsatz. 0 verwendet die Vorgabe des Betriebssystems.</li>
+ *  <li>fileChannel: Liest und schreibt die lokale Datei über einen
+ *   <code>FileChannel</code> ohne zusätzlichen Puffer. Sonst wird ein
+ *   gepufferter <code>FileInputStream</code> bzw.
+ *   <code>FileOutputStream</code> verwendet. Default ist
+ *   <code>true</code>.</li>
+ * </ul>
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public class FTPTransferOptions {
+
+    /** Die Default-Puffergröße: 64 KByte. */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+
+    private int sendBufferSize;
+
+    private int receiveBufferSize;
+
+    private boolean fileChannel = true;
+
+    /**
+     * Die Puffergröße für das Kopieren.
+     *
+     * @return Die Puffergröße in Bytes.
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Setzt die Puffergröße für das Kopieren.
+     *
+     * @param _bufferSize Die Puffergröße in Bytes.
+     */
+    public void setBufferSize(final int _bufferSize) {
+        Validate.isTrue(_bufferSize > 0, "bufferSize must be positive.");
+        bufferSize = _bufferSize;
+    }
+
+    /**
+     * Der Sende-Puffer der Datenverbindungen.
+     *
+     * @return Die Größe in Bytes oder 0.
+     */
+    public int getSendBufferSize() {
+        return sendBufferSize;
+    }
+
+    /**
+     * Setzt den Sende-Puffer der Datenverbindungen.
+     *
+     * @param _sendBufferSize Die Größe in Bytes oder 0 für die Vorgabe des
+     *            Betriebssystems.
+     */
+    public void setSendBufferSize(final int _sendBufferSize) {
+        Validate.isTrue(_sendBufferSize >= 0,
+            "sendBufferSize must not be negative.");
+        sendBufferSize = _sendBufferSize;
+    }
+
+    /**
+     * Der Empfangs-Puffer der Datenverbindungen.
+     *
+     * @return Die Größe in Bytes oder 0.
+     */
+    public int getReceiveBufferSize() {
+        return receiveBufferSize;
+    }
+
+    /**
+     * Setzt den Empfangs-Puffer der Datenverbindungen.
+     *
+     * @param _receiveBufferSize Die Größe in Bytes oder 0 für die Vorgabe
+     *            des Betriebssystems.
+     */
+    public void setReceiveBufferSize(final int _receiveBufferSize) {
+        Validate.isTrue(_receiveBufferSize >= 0,
+            "receiveBufferSize must not be negative.");
+        receiveBufferSize = _receiveBufferSize;
+    }
+
+    /**
+     * Wird die lokale Datei über einen <code>FileChannel</code> gelesen bzw.
+     * geschrieben?
+     *
+     * @return <code>true</code>, wenn ein <code>FileChannel</code> verwendet
+     *         wird.
+     */
+    public boolean isFileChannel() {
+        return fileChannel;
+    }
+
+    /**
+     * Lokale Datei über einen <code>FileChannel</code> lesen bzw. schreiben.
+     *
+     * @param _fileChannel <code>true</code>, wenn ein
+     *            <code>FileChannel</code> verwendet werden soll.
+     */
+    public void setFileChannel(final boolean _fileChannel) {
+        fileChannel = _fileChannel;
+    }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.io;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Die Ergebnisse eines Laufs von {@link FTPTransferEngine}. Die Ergebnisse
+ * liegen in der Reihenfolge der Aufträge vor. Die Klasse ist unveränderlich.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public final class FTPTransferReport {
+
+    private final List<FTPTransferResult> results;
+
+    private final long elapsedNanos;
+
+    private final long bytes;
+
+    /**
+     * Konstruktor.
+     *
+     * @param _results Die Ergebnisse in der Reihenfolge der Aufträge.
+     * @param _elapsedNanos Die Laufzeit in Nanosekunden.
+     */
+    FTPTransferReport(final List<FTPTransferResult> _results,
+        final long _elapsedNanos) {
+
+        results = Collections.unmodifiableList(_results);
+        elapsedNanos = _elapsedNanos;
+
+        long sum = 0;
+        for (FTPTransferResult result : _results) {
+            sum += result.getBytes();
+        }
+        bytes = sum;
+    }
+
+    /**
+     * Die Ergebnisse in der Reihenfolge der Aufträge.
+     *
+     * @return Die Ergebnisse.
+     */
+    public List<FTPTransferResult> getResults() {
+        return results;
+    }
+
+    /**
+     * Die fehlgeschlagenen Übertragungen.
+     *
+     * @return Die fehlgeschlagenen Übertragungen.
+     */
+    public List<FTPTransferResult> getFailures() {
+        List<FTPTransferResult> failures = new ArrayList<>();
+        for (FTPTransferResult result : results) {
+            if (!result.isSuccess()) {
+                failures.add(result);
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Waren alle Übertragungen erfolgreich?
+     *
+     * @return <code>true</code>, wenn alle Übertragungen erfolgreich waren.
+     */
+    public boolean isSuccess() {
+        return getFailures().isEmpty();
+    }
+
+    /**
+     * Die Summe der übertragenen Bytes.
+     *
+     * @return Die Summe der übertragenen Bytes.
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Die Laufzeit in Nanosekunden.
+     *
+     * @return Die Laufzeit in Nanosekunden.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Der Durchsatz über alle Verbindungen.
+     *
+     * @return Bytes pro Sekunde.
+     */
+    public double getBytesPerSecond() {
+        if (elapsedNanos <= 0) {
+            return 0;
+        }
+        return bytes * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return results.size() + " transfers, " + getFailures().size()
+            + " failed, " + bytes + " bytes, "
+            + Math.round(getBytesPerSecond()) + " bytes/s";
+    }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.io;
+
+/**
+ * Das Ergebnis eines {@link FTPTransferJob}. Die Klasse ist unveränderlich.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public final class FTPTransferResult {
+
+    private final FTPTransferJob job;
+
+    private final boolean success;
+
+    private final int attempts;
+
+    private final long bytes;
+
+    private final long durationNanos;
+
+    private final Exception exception;
+
+    /**
+     * Konstruktor.
+     *
+     * @param _job Der Auftrag.
+     * @param _success <code>true</code>, wenn die Übertragung erfolgreich
+     *            war.
+     * @param _attempts Die Anzahl der Versuche.
+     * @param _bytes Die Anzahl der übertragenen Bytes.
+     * @param _durationNanos Die Dauer aller Versuche in Nanosekunden.
+     * @param _exception Der Fehler des letzten Versuchs oder
+     *            <code>null</code>.
+     */
+    FTPTransferResult(final FTPTransferJob _job, final boolean _success,
+        final int _attempts, final long _bytes, final long _durationNanos,
+        final Exception _exception) {
+
+        job = _job;
+        success = _success;
+        attempts = _attempts;
+        bytes = _bytes;
+        durationNanos = _durationNanos;
+        exception = _exception;
+    }
+
+    /**
+     * Der Auftrag.
+     *
+     * @return Der Auftrag.
+     */
+    public FTPTransferJob getJob() {
+        return job;
+    }
+
+    /**
+     * War die Übertragung erfolgreich?
+     *
+     * @return <code>true</code>, wenn die Übertragung erfolgreich war.
+     */
+    public boolean isSuccess() {
+        return success;
+    }
+
+    /**
+     * Die Anzahl der Versuche.
+     *
+     * @return Die Anzahl der Versuche.
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * Die Anzahl der übertragenen Bytes. Bei einem Fehler 0.
+     *
+     * @return Die Anzahl der übertragenen Bytes.
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Die Dauer aller Versuche in Nanosekunden.
+     *
+     * @return Die Dauer in Nanosekunden.
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * Der Fehler des letzten Versuchs.
+     *
+     * @return Der Fehler oder <code>null</code>, wenn der Server die
+     *         Übertragung ohne Exception abgelehnt hat oder die Übertragung
+     *         erfolgreich war.
+     */
+    public Exception getException() {
+        return exception;
+    }
+
+    @Override
+    public String toString() {
+        return job + (success ? " OK" : " FAILED") + " (" + bytes
+            + " bytes, " + attempts + " attempts)";
+    }
+
+}
@@ -25,24 +25,51 @@
 
 package de.awtools.basic.io;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.UnknownHostException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.commons.io.output.CountingOutputStream;
 import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.Validate;
+import org.apache.commons.net.ProtocolCommandEvent;
+import org.apache.commons.net.ProtocolCommandListener;
 import org.apache.commons.net.ftp.FTP;
 import org.apache.commons.net.ftp.FTPClient;
 import org.apache.commons.net.ftp.FTPConnectionClosedException;
 import org.apache.commons.net.ftp.FTPFile;
+import org.apache.commons.net.ftp.FTPListParseEngine;
 import org.apache.commons.net.ftp.FTPReply;
 import org.slf4j.Logger;
 
 import de.awtools.basic.LoggerFactory;
+import de.awtools.basic.file.PathSlice;
 
 /**
  * Ein Wrapper für den Apache FTPClient.
@@ -56,6 +83,70 @@ public class FTPWrapper {
 
     private final FTPClient ftpClient = new FTPClient();
 
+    /** Siehe {@link FTPTransferOptions#getBufferSize()}. */
+    private int bufferSize;
+
+    /** Siehe {@link FTPTransferOptions#isFileChannel()}. */
+    private boolean fileChannel;
+
+    /** Unterstützt der Server MLSD? Wird beim ersten Listing ermittelt. */
+    private Boolean mlsdSupported;
+
+    /** Die absoluten Verzeichnisse, die auf dem Server existieren. */
+    private final Set<String> knownDirectories = new HashSet<>();
+
+    /** Kommandos, die der Server nicht kennt. */
+    private final Set<String> unsupportedCommands = new HashSet<>();
+
+    /** Siehe {@link #setListener(FTPListener)}. */
+    private FTPListener listener = FTPListener.NONE;
+
+    /** Der Host der aktuellen Verbindung. */
+    private String host;
+
+    /**
+     * Das Arbeitsverzeichnis nach dem Login. Wird einmal pro Verbindung
+     * direkt nach dem Login ermittelt.
+     */
+    private String loginDirectory;
+
+    /** Wurde seit dem Login das Arbeitsverzeichnis gewechselt? */
+    private boolean directoryChanged;
+
+    /** Der zuletzt gesetzte Dateityp. Nach dem Login ASCII. */
+    private int fileType = FTP.ASCII_FILE_TYPE;
+
+    /** Ist der Passiv-Modus eingeschaltet? */
+    private boolean passiveMode;
+
+    /** Leitet die Reply-Codes an den {@link #listener} weiter. */
+    private final ProtocolCommandListener replyListener =
+            new ProtocolCommandListener() {
+                @Override
+                public void protocolCommandSent(
+                    final ProtocolCommandEvent event) {
+                }
+
+                @Override
+                public void protocolReplyReceived(
+                    final ProtocolCommandEvent event) {
+
+                    try {
+                        listener.replyReceived(host, event.getReplyCode());
+                    } catch (RuntimeException ex) {
+                        log.warn("FTPListener failed.", ex);
+                    }
+                }
+            };
+
+    /**
+     * Konstruktor. Verwendet die Default-Einstellungen von
+     * {@link FTPTransferOptions}.
+     */
+    public FTPWrapper() {
+        setTransferOptions(new FTPTransferOptions());
+    }
+
     /**
      * Connect und Login Methode.
      *
@@ -71,24 +162,89 @@ public class FTPWrapper {
         final String password) throws IOException, UnknownHostException,
         FTPConnectionClosedException {
 
+        return connectAndLogin(host, FTP.DEFAULT_PORT, userName, password);
+    }
+
+    /**
+     * Connect und Login Methode.
+     *
+     * @param host Der Host.
+     * @param port Der Port.
+     * @param userName Ein User.
+     * @param password Ein Password.
+     * @return true, alles in Ordnung; false sonst.
+     * @throws IOException Da ging was schief.
+     * @throws UnknownHostException Da ging was schief.
+     * @throws FTPConnectionClosedException Da ging was schief.
+     */
+    public boolean connectAndLogin(final String host, final int port,
+        final String userName, final String password) throws IOException,
+        UnknownHostException, FTPConnectionClosedException {
+
         boolean success = false;
-        ftpClient.connect(host);
-        int reply = ftpClient.getReplyCode();
-        if (FTPReply.isPositiveCompletion(reply)) {
-            success = ftpClient.login(userName, password);
-        }
-        if (!success) {
-            ftpClient.disconnect();
+        clearDirectoryCache();
+        mlsdSupported = null;
+        unsupportedCommands.clear();
+        loginDirectory = null;
+        directoryChanged = false;
+        fileType = FTP.ASCII_FILE_TYPE;
+        this.host = host;
+        long start = System.nanoTime();
+        try {
+            ftpClient.connect(host, port);
+            int reply = ftpClient.getReplyCode();
+            if (FTPReply.isPositiveCompletion(reply)) {
+                success = ftpClient.login(userName, password);
+            }
+            if (success) {
+                // Für resetSession(). Einmal pro Verbindung, nicht bei
+                // jedem Ausleihen aus dem FTPConnectionPool.
+                loginDirectory = ftpClient.printWorkingDirectory();
+            } else {
+                ftpClient.disconnect();
+            }
+        } finally {
+            fireConnected(System.nanoTime() - start, success);
         }
         return success;
     }
 
+    /**
+     * Prüft, ob die Verbindung zum Server besteht.
+     *
+     * @return <code>true</code>, wenn die Verbindung besteht.
+     */
+    public boolean isConnected() {
+        return ftpClient.isConnected();
+    }
+
+    /**
+     * Sendet ein NOOP Kommando. Damit kann geprüft werden, ob die Verbindung
+     * noch verwendbar ist.
+     *
+     * @return true, alles in Ordnung; false, sonst.
+     * @throws IOException Da ging was schief.
+     */
+    public boolean noop() throws IOException {
+        return ftpClient.sendNoOp();
+    }
+
+    /**
+     * Liefert den Reply-Code der letzten Antwort des Servers.
+     *
+     * @return Der Reply-Code.
+     */
+    public int getReplyCode() {
+        return ftpClient.getReplyCode();
+    }
+
     /**
      * Setzt den Passiv-Modus.
      *
      * @param setPassive Passiv-Modus.
      */
     public void setPassiveMode(final boolean setPassive) {
+        passiveMode = setPassive;
         if (setPassive) {
             ftpClient.enterLocalPassiveMode();
         } else {
@@ -103,7 +259,7 @@ public class FTPWrapper {
      * @throws IOException Da ging was schief.
      */
     public boolean ascii() throws IOException {
-        return ftpClient.setFileType(FTP.ASCII_FILE_TYPE);
+        return setFileType(FTP.ASCII_FILE_TYPE);
     }
 
     /**
@@ -113,7 +269,60 @@ public class FTPWrapper {
      * @throws IOException Da ging was schief.
      */
     public boolean binary() throws IOException {
-        return ftpClient.setFileType(FTP.BINARY_FILE_TYPE);
+        return setFileType(FTP.BINARY_FILE_TYPE);
+    }
+
+    private boolean setFileType(final int _fileType) throws IOException {
+        boolean success = ftpClient.setFileType(_fileType);
+        if (success) {
+            fileType = _fileType;
+        }
+        return success;
+    }
+
+    /**
+     * Setzt den Zustand der Sitzung auf den Stand nach dem Login zurück:
+     * Arbeitsverzeichnis nach dem Login, Dateityp ASCII und Aktiv-Modus.
+     * Kommandos werden nur gesendet, wenn der Zustand seit dem Login
+     * verändert wurde. Wird von {@link FTPConnectionPool} bei der Rückgabe
+     * einer Verbindung aufgerufen.
+     *
+     * @return true, alles in Ordnung; false, der Zustand konnte nicht
+     *         zurückgesetzt werden.
+     * @throws IOException Da ging was schief.
+     */
+    public boolean resetSession() throws IOException {
+        if (passiveMode) {
+            setPassiveMode(false);
+        }
+        if (fileType != FTP.ASCII_FILE_TYPE && !ascii()) {
+            return false;
+        }
+        if (directoryChanged) {
+            if (loginDirectory == null
+                || !ftpClient.changeWorkingDirectory(loginDirectory)) {
+
+                return false;
+            }
+            directoryChanged = false;
+        }
+        return true;
+    }
+
+    /**
+     * Setzt die Einstellungen für die Datenübertragung. Die Einstellungen
+     * werden übernommen, spätere Änderungen an <code>options</code> wirken
+     * sich nicht aus.
+     *
+     * @param options Die Einstellungen.
+     */
+    public void setTransferOptions(final FTPTransferOptions options) {
+        bufferSize = options.getBufferSize();
+        fileChannel = options.isFileChannel();
+        ftpClient.setBufferSize(bufferSize);
+        ftpClient.setSendDataSocketBufferSize(options.getSendBufferSize());
+        ftpClient.setReceieveDataSocketBufferSize(options
+            .getReceiveBufferSize());
     }
 
     /**
@@ -129,13 +338,17 @@ public class FTPWrapper {
         throws IOException, FTPConnectionClosedException {
 
         boolean result = false;
-
-        try(FileOutputStream out = new FileOutputStream(localFile)) {
-
+        long start = System.nanoTime();
+        CountingOutputStream out = null;
+        try {
+            out = new CountingOutputStream(openLocalOutput(localFile));
             log.info("Downloading file ->{}<- to local file ->{}<-.",
                 serverFile, localFile);
             result = ftpClient.retrieveFile(serverFile, out);
-
+            out.close();
+        } finally {
+            IOUtils.closeQuietly(out);
+            fireTransferred(false, serverFile, out, start, result);
         }
         return result;
     }
@@ -152,19 +365,582 @@ public class FTPWrapper {
     public boolean uploadFile(final String localFile, final String serverFile)
         throws IOException, FTPConnectionClosedException {
 
-        FileInputStream in = null;
+        CountingInputStream in = null;
         boolean result = false;
+        long start = System.nanoTime();
         try {
-            in = new FileInputStream(localFile);
-            log.info("Downloading file ->{}<- to local file ->{}<-.",
-                serverFile, localFile);
+            in = new CountingInputStream(openLocalInput(localFile));
+            log.info("Uploading local file ->{}<- to file ->{}<-.",
+                localFile, serverFile);
             result = ftpClient.storeFile(serverFile, in);
         } finally {
             IOUtils.closeQuietly(in);
+            fireTransferred(true, serverFile, in, start, result);
+        }
+        return result;
+    }
+
+    /**
+     * Setzt einen abgebrochenen Download fort. Ist die lokale Datei kleiner
+     * als die Datei auf dem Server, wird ab der Größe der lokalen Datei
+     * weiter geladen (REST). Ist die lokale Datei größer, wird die Datei
+     * vollständig geladen. Fehlt die Datei auf dem Server oder ist ihre
+     * Größe unbekannt, bleibt die lokale Datei unverändert und das Ergebnis
+     * ist <code>false</code>. Am Ende wird die Größe der lokalen Datei
+     * geprüft.
+     *
+     * @param serverFile Das Server-File.
+     * @param localFile Name der lokalen Datei.
+     * @return true, alles in Ordnung; false, sonst.
+     * @throws IOException Da ging was schief.
+     * @throws FTPConnectionClosedException Da ging was schief.
+     */
+    public boolean resumeDownloadFile(final String serverFile,
+        final String localFile) throws IOException,
+        FTPConnectionClosedException {
+
+        long remoteSize = getRemoteSize(serverFile);
+        File file = new File(localFile);
+        long localSize = file.isFile() ? file.length() : 0;
+
+        if (remoteSize < 0) {
+            // Kein Download: Der würde die lokale Datei abschneiden.
+            log.info("Unable to resume ->{}<-: remote size unknown.",
+                serverFile);
+            return false;
+        }
+        if (localSize > remoteSize) {
+            return downloadFile(serverFile, localFile)
+                && file.length() == remoteSize;
+        }
+        if (localSize == remoteSize) {
+            log.info("File ->{}<- is already complete.", localFile);
+            return true;
+        }
+
+        boolean result = false;
+        long start = System.nanoTime();
+        CountingOutputStream out = null;
+        try {
+            out = new CountingOutputStream(openLocalOutput(localFile, true));
+            log.info("Resuming download of ->{}<- at offset {}.", serverFile,
+                localSize);
+            ftpClient.setRestartOffset(localSize);
+            result = ftpClient.retrieveFile(serverFile, out);
+            out.close();
+            result = result && file.length() == remoteSize;
+        } finally {
+            ftpClient.setRestartOffset(0);
+            IOUtils.closeQuietly(out);
+            fireTransferred(false, serverFile, out, start, result);
+        }
+        return result;
+    }
+
+    /**
+     * Setzt einen abgebrochenen Upload fort. Ist die Datei auf dem Server
+     * kleiner als die lokale Datei, wird der Rest angehängt (APPE). Ist die
+     * Datei auf dem Server größer oder nicht vorhanden, wird die Datei
+     * vollständig hochgeladen. Am Ende wird die Größe auf dem Server
+     * geprüft.
+     *
+     * @param localFile Name der lokalen Datei.
+     * @param serverFile Name der Datei auf dem Server.
+     * @return true, alles in Ordnung; false, sonst.
+     * @throws IOException Da ging was schief.
+     * @throws FTPConnectionClosedException Da ging was schief.
+     */
+    public boolean resumeUploadFile(final String localFile,
+        final String serverFile) throws IOException,
+        FTPConnectionClosedException {
+
+        long localSize = new File(localFile).length();
+        long remoteSize = getRemoteSize(serverFile);
+
+        boolean result;
+        if (remoteSize < 0 || remoteSize > localSize) {
+            result = uploadFile(localFile, serverFile);
+        } else if (remoteSize == localSize) {
+            log.info("File ->{}<- is already complete.", serverFile);
+            return true;
+        } else {
+            result = false;
+            long start = System.nanoTime();
+            CountingInputStream in = null;
+            try {
+                in = new CountingInputStream(openLocalInput(localFile,
+                    remoteSize));
+                log.info("Resuming upload of ->{}<- at offset {}.",
+                    serverFile, remoteSize);
+                result = ftpClient.appendFile(serverFile, in);
+            } finally {
+                IOUtils.closeQuietly(in);
+                fireTransferred(true, serverFile, in, start, result);
+            }
+        }
+
+        if (result) {
+            long size = getRemoteSize(serverFile);
+            result = (size < 0 || size == localSize);
         }
         return result;
     }
 
+    /**
+     * Lädt eine Datei hoch und prüft das Ergebnis. Die Prüfsumme wird
+     * während des Uploads berechnet, die lokale Datei wird nur einmal
+     * gelesen. Geprüft wird gegen die Prüfsumme des Servers (HASH, XCRC
+     * oder XSHA256) und, falls der Server keine Prüfsumme liefert, gegen
+     * die Größe (SIZE).
+     *
+     * @param localFile Name der lokalen Datei.
+     * @param serverFile Name der Datei auf dem Server.
+     * @param checksum Eine neue Prüfsumme. Enthält danach die Prüfsumme der
+     *            lokalen Datei.
+     * @return Wie geprüft wurde oder <code>null</code>, wenn der Upload
+     *         fehlgeschlagen ist.
+     * @throws FTPChecksumException Prüfsumme oder Größe stimmen nicht.
+     * @throws IOException Da ging was schief.
+     */
+    public FTPChecksum.Verification uploadFileVerified(final String localFile,
+        final String serverFile, final FTPChecksum checksum)
+        throws IOException {
+
+        Validate.notNull(checksum, "checksum is null.");
+
+        CountingInputStream in = null;
+        boolean result = false;
+        long start = System.nanoTime();
+        try {
+            in = new CountingInputStream(checksum.wrap(
+                openLocalInput(localFile)));
+            log.info("Uploading local file ->{}<- to file ->{}<-.",
+                localFile, serverFile);
+            result = ftpClient.storeFile(serverFile, in);
+        } finally {
+            IOUtils.closeQuietly(in);
+            fireTransferred(true, serverFile, in, start, result);
+        }
+        return result ? verify(serverFile, checksum, false) : null;
+    }
+
+    /**
+     * Lädt eine Datei herunter und prüft das Ergebnis. Die Prüfsumme wird
+     * während des Downloads berechnet. Geprüft wird gegen die Prüfsumme des
+     * Servers (HASH, XCRC oder XSHA256), dann gegen eine Prüfsummendatei
+     * neben der Datei (z.B. <code>file.zip.sha256</code>) und zuletzt gegen
+     * die Größe (SIZE).
+     *
+     * @param serverFile Das Server-File.
+     * @param localFile Name der lokalen Datei.
+     * @param checksum Eine neue Prüfsumme. Enthält danach die Prüfsumme der
+     *            lokalen Datei.
+     * @return Wie geprüft wurde oder <code>null</code>, wenn der Download
+     *         fehlgeschlagen ist.
+     * @throws FTPChecksumException Prüfsumme oder Größe stimmen nicht.
+     * @throws IOException Da ging was schief.
+     */
+    public FTPChecksum.Verification downloadFileVerified(
+        final String serverFile, final String localFile,
+        final FTPChecksum checksum) throws IOException {
+
+        Validate.notNull(checksum, "checksum is null.");
+
+        boolean result = false;
+        long start = System.nanoTime();
+        CountingOutputStream out = null;
+        try {
+            out = new CountingOutputStream(checksum.wrap(
+                openLocalOutput(localFile)));
+            log.info("Downloading file ->{}<- to local file ->{}<-.",
+                serverFile, localFile);
+            result = ftpClient.retrieveFile(serverFile, out);
+            out.close();
+        } finally {
+            IOUtils.closeQuietly(out);
+            fireTransferred(false, serverFile, out, start, result);
+        }
+        return result ? verify(serverFile, checksum, true) : null;
+    }
+
+    private FTPChecksum.Verification verify(final String serverFile,
+        final FTPChecksum checksum, final boolean useChecksumFile)
+        throws IOException {
+
+        FTPChecksum.Verification verification =
+                FTPChecksum.Verification.SERVER_CHECKSUM;
+        String expected = getRemoteChecksum(serverFile,
+            checksum.getAlgorithm());
+        if (expected == null && useChecksumFile) {
+            verification = FTPChecksum.Verification.CHECKSUM_FILE;
+            expected = readChecksumFile(serverFile, checksum.getAlgorithm());
+        }
+        if (expected != null) {
+            if (!checksum.matches(expected)) {
+                throw new FTPChecksumException(serverFile, expected,
+                    checksum.getValue());
+            }
+            return verification;
+        }
+
+        long size = getRemoteSize(serverFile);
+        if (size >= 0) {
+            if (size != checksum.getBytes()) {
+                throw new FTPChecksumException(serverFile, size + " bytes",
+                    checksum.getBytes() + " bytes");
+            }
+            return FTPChecksum.Verification.SIZE;
+        }
+        log.warn("Unable to verify ->{}<-.", serverFile);
+        return FTPChecksum.Verification.NONE;
+    }
+
+    /**
+     * Fragt die Prüfsumme einer Datei beim Server ab. Versucht wird zuerst
+     * HASH (draft-bryan-ftpext-hash), dann das Kommando
+     * {@link FTPChecksum.Algorithm#getCommand()}. Kommandos, die der Server
+     * nicht kennt, werden für diese Verbindung nicht wieder gesendet.
+     *
+     * @param serverFile Name der Datei auf dem Server.
+     * @param algorithm Das Verfahren.
+     * @return Die Prüfsumme als Hex-String oder <code>null</code>, wenn der
+     *         Server keine Prüfsumme liefert.
+     * @throws IOException Da ging was schief.
+     */
+    public String getRemoteChecksum(final String serverFile,
+        final FTPChecksum.Algorithm algorithm) throws IOException {
+
+        String hashCommand = "HASH " + algorithm.getHashName();
+        if (!unsupportedCommands.contains(hashCommand)) {
+            int reply = ftpClient.sendCommand("OPTS", hashCommand);
+            if (FTPReply.isPositiveCompletion(reply)) {
+                reply = ftpClient.sendCommand("HASH", serverFile);
+            }
+            if (FTPReply.isPositiveCompletion(reply)) {
+                // 213 SHA-256 0-49 169cd22282da7f147cb491e559e9dd filename
+                String[] tokens =
+                        StringUtils.split(ftpClient.getReplyString().trim());
+                if (tokens.length > 3) {
+                    return tokens[3];
+                }
+            } else if (isUnknownCommand(reply)) {
+                unsupportedCommands.add(hashCommand);
+            }
+        }
+
+        String command = algorithm.getCommand();
+        if (!unsupportedCommands.contains(command)) {
+            int reply = ftpClient.sendCommand(command, serverFile);
+            if (FTPReply.isPositiveCompletion(reply)) {
+                // 250 9A3B2C1D
+                String[] tokens =
+                        StringUtils.split(ftpClient.getReplyString().trim());
+                if (tokens.length > 1) {
+                    return tokens[1];
+                }
+            } else if (isUnknownCommand(reply)) {
+                unsupportedCommands.add(command);
+            }
+        }
+        return null;
+    }
+
+    private static boolean isUnknownCommand(final int reply) {
+        return isNotImplemented(reply)
+            || reply == FTPReply.SYNTAX_ERROR_IN_ARGUMENTS;
+    }
+
+    private static boolean isNotImplemented(final int reply) {
+        return reply == FTPReply.UNRECOGNIZED_COMMAND
+            || reply == FTPReply.COMMAND_NOT_IMPLEMENTED
+            || reply == FTPReply.COMMAND_NOT_IMPLEMENTED_FOR_PARAMETER;
+    }
+
+    /**
+     * Liest eine Prüfsummendatei im Format von <code>sha256sum</code>.
+     *
+     * @return Die Prüfsumme oder <code>null</code>, wenn es keine
+     *         Prüfsummendatei gibt.
+     */
+    private String readChecksumFile(final String serverFile,
+        final FTPChecksum.Algorithm algorithm) throws IOException {
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(128);
+        if (!ftpClient.retrieveFile(serverFile + algorithm.getExtension(),
+            out)) {
+
+            return null;
+        }
+        String[] tokens =
+                StringUtils.split(new String(out.toByteArray(),
+                    StandardCharsets.US_ASCII));
+        return (tokens.length > 0) ? tokens[0] : null;
+    }
+
+    private void fireConnected(final long nanos, final boolean success) {
+        try {
+            listener.connected(host, nanos, success);
+        } catch (RuntimeException ex) {
+            log.warn("FTPListener failed.", ex);
+        }
+    }
+
+    private void fireTransferred(final boolean upload,
+        final String serverFile, final CountingInputStream in,
+        final long start, final boolean success) {
+
+        fireTransferred(upload, serverFile,
+            (in == null) ? 0 : in.getByteCount(), start, success);
+    }
+
+    private void fireTransferred(final boolean upload,
+        final String serverFile, final CountingOutputStream out,
+        final long start, final boolean success) {
+
+        fireTransferred(upload, serverFile,
+            (out == null) ? 0 : out.getByteCount(), start, success);
+    }
+
+    private void fireTransferred(final boolean upload,
+        final String serverFile, final long bytes, final long start,
+        final boolean success) {
+
+        // Läuft in finally-Blöcken: Der Listener darf weder die Exception
+        // noch das Ergebnis des Transfers ersetzen.
+        try {
+            listener.transferred(host, upload, serverFile, bytes,
+                System.nanoTime() - start, success);
+        } catch (RuntimeException ex) {
+            log.warn("FTPListener failed.", ex);
+        }
+    }
+
+    /**
+     * Ermittelt die Größe einer Datei auf dem Server. Verwendet SIZE, dann
+     * MLST und zuletzt LIST, falls der Server die Kommandos aus RFC 3659
+     * nicht kennt (500, 502 oder 504). Eine andere negative Antwort, z.B.
+     * 550 für eine fehlende Datei, ist endgültig.
+     *
+     * @param serverFile Name der Datei auf dem Server.
+     * @return Die Größe in Bytes oder -1, wenn die Datei nicht existiert
+     *         oder die Größe nicht ermittelt werden kann.
+     * @throws IOException Da ging was schief.
+     */
+    public long getRemoteSize(final String serverFile) throws IOException {
+        if (!unsupportedCommands.contains("SIZE")) {
+            int reply = ftpClient.sendCommand("SIZE", serverFile);
+            if (reply == FTPReply.FILE_STATUS) {
+                String replyString = ftpClient.getReplyString();
+                try {
+                    return Long.parseLong(replyString.substring(4).trim());
+                } catch (NumberFormatException
+                        | IndexOutOfBoundsException ex) {
+                    log.debug("Invalid SIZE reply: {}", replyString);
+                }
+            } else if (isNotImplemented(reply)) {
+                unsupportedCommands.add("SIZE");
+            } else {
+                return -1;
+            }
+        }
+
+        if (!unsupportedCommands.contains("MLST")) {
+            FTPFile file = ftpClient.mlistFile(serverFile);
+            if (file != null) {
+                if (!file.isFile()) {
+                    return -1;
+                } else if (file.getSize() >= 0) {
+                    return file.getSize();
+                }
+            } else if (isNotImplemented(ftpClient.getReplyCode())) {
+                unsupportedCommands.add("MLST");
+            } else {
+                return -1;
+            }
+        }
+
+        FTPFile[] files = ftpClient.listFiles(serverFile);
+        if (files != null && files.length == 1 && files[0] != null
+            && files[0].isFile()) {
+
+            return files[0].getSize();
+        }
+        return -1;
+    }
+
+    /**
+     * Setzt den Listener für Verbindungen, Übertragungen und Reply-Codes.
+     *
+     * @param _listener Der Listener oder <code>null</code> für keinen
+     *            Listener.
+     */
+    public void setListener(final FTPListener _listener) {
+        ftpClient.removeProtocolCommandListener(replyListener);
+        listener = (_listener == null) ? FTPListener.NONE : _listener;
+        if (listener != FTPListener.NONE) {
+            ftpClient.addProtocolCommandListener(replyListener);
+        }
+    }
+
+    /**
+     * Liefert den Listener.
+     *
+     * @return Der Listener. Nie <code>null</code>.
+     */
+    public FTPListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Der Host der letzten Verbindung.
+     *
+     * @return Der Host oder <code>null</code>.
+     */
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * Öffnet eine lokale Datei zum Lesen. Siehe {@link FTPTransferOptions}.
+     *
+     * @param localFile Name der lokalen Datei.
+     * @return Ein InputStream.
+     * @throws IOException Da ging was schief.
+     */
+    InputStream openLocalInput(final String localFile) throws IOException {
+        return openLocalInput(localFile, 0);
+    }
+
+    /**
+     * Öffnet eine lokale Datei zum Lesen ab einer Position.
+     *
+     * @param localFile Name der lokalen Datei.
+     * @param position Die Startposition.
+     * @return Ein InputStream.
+     * @throws IOException Da ging was schief.
+     */
+    InputStream openLocalInput(final String localFile, final long position)
+        throws IOException {
+
+        if (fileChannel) {
+            FileChannel channel =
+                    FileChannel.open(Paths.get(localFile),
+                        StandardOpenOption.READ);
+            try {
+                channel.position(position);
+            } catch (IOException | RuntimeException ex) {
+                IOUtils.closeQuietly(channel);
+                throw ex;
+            }
+            return Channels.newInputStream(channel);
+        }
+        FileInputStream in = new FileInputStream(localFile);
+        try {
+            in.getChannel().position(position);
+        } catch (IOException | RuntimeException ex) {
+            IOUtils.closeQuietly(in);
+            throw ex;
+        }
+        return new BufferedInputStream(in, bufferSize);
+    }
+
+    /**
+     * Öffnet eine lokale Datei zum Schreiben. Eine vorhandene Datei wird
+     * überschrieben. Siehe {@link FTPTransferOptions}.
+     *
+     * @param localFile Name der lokalen Datei.
+     * @return Ein OutputStream.
+     * @throws IOException Da ging was schief.
+     */
+    OutputStream openLocalOutput(final String localFile) throws IOException {
+        return openLocalOutput(localFile, false);
+    }
+
+    /**
+     * Öffnet eine lokale Datei zum Schreiben.
+     *
+     * @param localFile Name der lokalen Datei.
+     * @param append <code>true</code>, wenn an die Datei angehängt werden
+     *            soll. Sonst wird eine vorhandene Datei überschrieben.
+     * @return Ein OutputStream.
+     * @throws IOException Da ging was schief.
+     */
+    OutputStream openLocalOutput(final String localFile, final boolean append)
+        throws IOException {
+
+        if (fileChannel) {
+            return Channels.newOutputStream(FileChannel.open(
+                Paths.get(localFile), StandardOpenOption.CREATE,
+                append ? StandardOpenOption.APPEND
+                        : StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE));
+        }
+        return new BufferedOutputStream(
+            new FileOutputStream(localFile, append), bufferSize);
+    }
+
+    /**
+     * Liest ein Verzeichnis auf dem Server. Unterstützt der Server MLSD
+     * (RFC 3659), wird MLSD verwendet, sonst LIST. Die Einträge werden erst
+     * beim Iterieren in Blöcken geparst. Der Filter wird direkt nach dem
+     * Parsen angewendet, verworfene Einträge werden nicht weiter
+     * verarbeitet. Die Einträge '.' und '..' werden übersprungen. Der
+     * Iterator benötigt die Verbindung nicht mehr.
+     *
+     * @param path Das Verzeichnis oder <code>null</code> für das aktuelle
+     *            Verzeichnis.
+     * @param filter Ein Filter oder <code>null</code> für alle Einträge.
+     * @return Die Einträge.
+     * @throws IOException Da ging was schief.
+     */
+    public Iterator<FTPEntry> listEntries(final String path,
+        final Predicate<? super FTPEntry> filter) throws IOException {
+
+        FTPListParseEngine engine;
+        if (isMlsdSupported()) {
+            engine = (path == null) ? ftpClient.initiateMListParsing()
+                    : ftpClient.initiateMListParsing(path);
+        } else {
+            engine = (path == null) ? ftpClient.initiateListParsing()
+                    : ftpClient.initiateListParsing(path);
+        }
+        return new EntryIterator(engine, filter);
+    }
+
+    /**
+     * Liest ein Verzeichnis auf dem Server als <code>Stream</code>. Siehe
+     * {@link #listEntries(String, Predicate)}.
+     *
+     * @param path Das Verzeichnis oder <code>null</code> für das aktuelle
+     *            Verzeichnis.
+     * @param filter Ein Filter oder <code>null</code> für alle Einträge.
+     * @return Die Einträge.
+     * @throws IOException Da ging was schief.
+     */
+    public Stream<FTPEntry> streamEntries(final String path,
+        final Predicate<? super FTPEntry> filter) throws IOException {
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+            listEntries(path, filter), Spliterator.ORDERED
+                | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Unterstützt der Server MLSD (RFC 3659)? Nur dann liefert
+     * {@link #listEntries(String, Predicate)} sekundengenaue Zeitstempel in
+     * UTC. Die Zeitstempel von LIST sind in der unbekannten Zeitzone des
+     * Servers und oft nur minutengenau.
+     *
+     * @return <code>true</code>, wenn der Server MLSD unterstützt.
+     * @throws IOException Da ging was schief.
+     */
+    public boolean isMlsdSupported() throws IOException {
+        if (mlsdSupported == null) {
+            mlsdSupported = ftpClient.hasFeature("MLST");
+        }
+        return mlsdSupported;
+    }
+
     /**
      * Liest die Namen der Dateien im aktuellen Verzeichnis.
      *
@@ -175,13 +951,7 @@ public class FTPWrapper {
     public List<String> listFileNames() throws IOException,
         FTPConnectionClosedException {
 
-        FTPFile[] files = ftpClient.listFiles();
-        List<String> v = new ArrayList<String>();
-        for (int i = 0; i < files.length; i++) {
-            if (!files[i].isDirectory())
-                v.add(files[i].getName());
-        }
-        return v;
+        return listNames(false);
     }
 
     /**
@@ -207,11 +977,22 @@ public class FTPWrapper {
     public List<String> listSubdirNames() throws IOException,
         FTPConnectionClosedException {
 
-        FTPFile[] files = ftpClient.listFiles();
+        return listNames(true);
+    }
+
+    private List<String> listNames(final boolean directories)
+        throws IOException {
+
+        Iterator<FTPEntry> entries =
+                listEntries(null, new Predicate<FTPEntry>() {
+                    @Override
+                    public boolean test(final FTPEntry entry) {
+                        return entry.isDirectory() == directories;
+                    }
+                });
         List<String> v = new ArrayList<String>();
-        for (int i = 0; i < files.length; i++) {
-            if (files[i].isDirectory())
-                v.add(files[i].getName());
+        while (entries.hasNext()) {
+            v.add(entries.next().getName());
         }
         return v;
     }
@@ -237,7 +1018,7 @@ public class FTPWrapper {
      * @return Der zusammengesetzte String.
      */
     private String listToString(final List<?> v, final String delim) {
-        StringBuffer sb = new StringBuffer();
+        StringBuilder sb = new StringBuilder();
         String s = "";
         for (Iterator<?> i = v.iterator(); i.hasNext();) {
             sb.append(s).append(i.next().toString());
@@ -258,9 +1039,21 @@ public class FTPWrapper {
     public boolean changeWorkingDirectory(final String directoryName)
         throws IOException {
 
+        directoryChanged = true;
         return ftpClient.changeWorkingDirectory(directoryName);
     }
 
+    /**
+     * Liefert das aktuelle Arbeitsverzeichnis.
+     *
+     * @return Das Arbeitsverzeichnis oder <code>null</code>, wenn der Server
+     *         es nicht liefert.
+     * @throws IOException Da ging was schief.
+     */
+    public String printWorkingDirectory() throws IOException {
+        return ftpClient.printWorkingDirectory();
+    }
+
     /**
      * Prüft den Reply-Code einer FTP Verbindung.
      * 
@@ -290,37 +1083,121 @@ public class FTPWrapper {
     }
 
     /**
-     * Wechselt in das angegebene Verzeichnis.
+     * Löscht eine Datei auf dem Server.
      *
-     * @param rootDirectory Das Wurzelverzeichnis.
-     * @param directory Das Verzeichnis.
+     * @param serverFile Name der Datei auf dem Server.
+     * @return true, alles in Ordnung; false, sonst.
+     * @throws IOException Da ging was schief.
+     */
+    public boolean deleteFile(final String serverFile) throws IOException {
+        return ftpClient.deleteFile(serverFile);
+    }
+
+    /**
+     * Löscht ein leeres Verzeichnis auf dem Server.
+     *
+     * @param directoryName Der Name des Verzeichnisses.
+     * @return true, alles in Ordnung; false, sonst.
      * @throws IOException Da ging was schief.
+     */
+    public boolean removeDirectory(final String directoryName)
+        throws IOException {
+
+        clearDirectoryCache();
+        return ftpClient.removeDirectory(directoryName);
+    }
+
+    /**
+     * Wechselt in das angegebene Verzeichnis unterhalb des
+     * Wurzelverzeichnisses. Fehlende Verzeichnisse unterhalb des
+     * Wurzelverzeichnisses werden angelegt. Das Wurzelverzeichnis selbst
+     * wird nie angelegt: Existiert es nicht, gibt es eine
+     * <code>IOException</code>. Zuerst wird mit einem absoluten CWD direkt in
+     * das Zielverzeichnis gewechselt. Für einen bereits existierenden Pfad
+     * ist das das einzige Kommando. Schlägt das fehl, geht es ab dem
+     * tiefsten bekannten Verzeichnis, höchstens aber ab dem
+     * Wurzelverzeichnis, Segment für Segment weiter: Erst CWD, und nur wenn
+     * das fehlschlägt, MKD und CWD. Die Verbindung merkt sich alle
+     * Verzeichnisse, die bereits besucht oder angelegt wurden. Schlägt ein
+     * CWD nach MKD fehl, wird der Cache verworfen und der Pfad einmal ab dem
+     * Wurzelverzeichnis neu aufgebaut.
+     *
+     * @param rootDirectory Das Wurzelverzeichnis. Relativ zu '/'.
+     * @param directory Das Verzeichnis.
+     * @throws IOException Da ging was schief, z.B. das Wurzelverzeichnis
+     *             existiert nicht.
      *
      * @since 1.6
      */
     public void changeOrCreateDirectory(final String rootDirectory,
         final String directory) throws IOException {
 
-        boolean ok = true;
+        PathSlice root = PathSlice.of('/' + rootDirectory);
+        PathSlice target = PathSlice.of(root.toString() + '/' + directory);
+        if (!changeOrCreateDirectory(root, target)) {
+            clearDirectoryCache();
+            if (!changeOrCreateDirectory(root, target)) {
+                clearDirectoryCache();
+                throw new IOException("Unable to change to directory "
+                    + target + ": " + ftpClient.getReplyString());
+            }
+        }
+    }
+
+    private boolean changeOrCreateDirectory(final PathSlice root,
+        final PathSlice target) throws IOException {
+
+        int rootSegments = root.getSegmentCount();
+        PathSlice known = target;
+        while (known.getSegmentCount() > rootSegments
+            && !knownDirectories.contains(known.toString())) {
+            known = known.getParent();
+        }
 
-        ok = ok && changeWorkingDirectory("/");
-        ok = ok && changeWorkingDirectory(rootDirectory);
+        int segments = target.getSegmentCount();
+        if (known.getSegmentCount() < segments
+            && changeWorkingDirectory(target.toString())) {
 
-        if (!ok) {
-            throw new IOException("Unable to change to the root directory.");
+            rememberDirectories(target);
+            return true;
         }
 
-        String[] dirs = StringUtils.split(directory, '/');
-        for (int i = 0; i < dirs.length; i++) {
-            if (changeWorkingDirectory(dirs[i])) {
-                checkReplyCode();
-            } else {
-                makeDirectory(dirs[i]);
-                checkReplyCode();
-                changeWorkingDirectory(dirs[i]);
-                checkReplyCode();
+        if (!changeWorkingDirectory(known.isRoot() ? "/" : known.toString())) {
+            if (known.getSegmentCount() == rootSegments) {
+                throw new IOException("Unable to change to the root directory "
+                    + known + ": " + ftpClient.getReplyString());
+            }
+            return false;
+        }
+
+        for (int i = known.getSegmentCount(); i < segments; i++) {
+            String segment = target.getSegment(i).toString();
+            if (!changeWorkingDirectory(segment)) {
+                makeDirectory(segment);
+                if (!changeWorkingDirectory(segment)) {
+                    return false;
+                }
             }
         }
+        rememberDirectories(target);
+        return true;
+    }
+
+    private void rememberDirectories(final PathSlice target) {
+        PathSlice directory = target;
+        while (!directory.isRoot()) {
+            knownDirectories.add(directory.toString());
+            directory = directory.getParent();
+        }
+    }
+
+    /**
+     * Verwirft den Cache der bekannten Verzeichnisse. Notwendig, wenn
+     * Verzeichnisse auf dem Server an {@link FTPWrapper} vorbei gelöscht
+     * werden.
+     */
+    public void clearDirectoryCache() {
+        knownDirectories.clear();
     }
 
     /**
@@ -329,6 +1206,7 @@ public class FTPWrapper {
      * @since 1.6
      */
     public void close() {
+        clearDirectoryCache();
         if (ftpClient.isConnected()) {
             try {
                 ftpClient.logout();
@@ -339,4 +1217,89 @@ public class FTPWrapper {
         }
     }
 
+    /**
+     * Iteriert blockweise über die Einträge eines
+     * <code>FTPListParseEngine</code>.
+     */
+    private static final class EntryIterator implements Iterator<FTPEntry> {
+
+        /** Die Anzahl der Einträge, die auf einmal geparst werden. */
+        private static final int BATCH_SIZE = 1000;
+
+        private final FTPListParseEngine engine;
+
+        private final Predicate<? super FTPEntry> filter;
+
+        private FTPFile[] batch = new FTPFile[0];
+
+        private int index;
+
+        private FTPEntry next;
+
+        private EntryIterator(final FTPListParseEngine _engine,
+            final Predicate<? super FTPEntry> _filter) {
+
+            engine = _engine;
+            filter = _filter;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null) {
+                if (index >= batch.length) {
+                    if (!engine.hasNext()) {
+                        return false;
+                    }
+                    batch = engine.getNext(BATCH_SIZE);
+                    index = 0;
+                    continue;
+                }
+
+                FTPFile file = batch[index];
+                batch[index++] = null;
+                if (file == null || isSelfOrParent(file)) {
+                    continue;
+                }
+                FTPEntry entry = FTPEntry.of(file);
+                if (filter == null || filter.test(entry)) {
+                    next = entry;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public FTPEntry next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            FTPEntry entry = next;
+            next = null;
+            return entry;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        private static boolean isSelfOrParent(final FTPFile file) {
+            String name = file.getName();
+            if (".".equals(name) || "..".equals(name)) {
+                return true;
+            }
+            // MLSD liefert das Verzeichnis selbst als type=cdir bzw. pdir.
+            String raw = file.getRawListing();
+            if (raw != null) {
+                String facts = raw.toLowerCase(Locale.ENGLISH);
+                return facts.startsWith("type=cdir;")
+                    || facts.contains(";type=cdir;")
+                    || facts.startsWith("type=pdir;")
+                    || facts.contains(";type=pdir;");
+            }
+            return false;
+        }
+
+    }
+
 }
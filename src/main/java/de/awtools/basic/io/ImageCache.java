@@ -0,0 +1,488 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.io;
+
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.imageio.ImageIO;
+
+import org.apache.commons.lang.UnhandledException;
+import org.apache.commons.lang.Validate;
+import org.slf4j.Logger;
+
+import de.awtools.basic.LoggerFactory;
+
+/**
+ * Ein Cache für dekodierte Bilder aus dem Klassenpfad. Der Schlüssel ist
+ * der Klassenlader und der aufgelöste Name der Resource. Die Auflösung
+ * entspricht <code>Class#getResource(String)</code>: Relative Namen
+ * beziehen sich auf das Package der Klasse.<br/>
+ *
+ * Gleichzeitige Anfragen nach demselben Bild warten auf denselben
+ * Ladevorgang. Ein Bild wird also nur einmal dekodiert. Der Cache ist
+ * durch die Größe der dekodierten Pixeldaten begrenzt. Wird die Grenze
+ * überschritten, werden die am längsten nicht verwendeten Bilder
+ * entfernt.<br/>
+ *
+ * Der Cache hält die Klassenlader nur über eine <code>WeakReference</code>.
+ * Eine Webanwendung oder ein Plugin, das Bilder über den Cache lädt, kann
+ * deshalb entladen werden. Die Bilder eines eingesammelten Klassenladers
+ * werden beim nächsten Speichern eines Bildes entfernt.<br/>
+ *
+ * Die gelieferten Bilder werden von allen Aufrufern geteilt und dürfen
+ * nicht verändert werden. Die Klasse ist thread-sicher.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public class ImageCache {
+
+    /** Der private Logger der Klasse. */
+    private static final Logger log = LoggerFactory.make();
+
+    /** Die Default-Größe des Caches: 32 MByte Pixeldaten. */
+    public static final long DEFAULT_MAX_PIXEL_BYTES = 32L * 1024 * 1024;
+
+    /** Die maximale Größe der Pixeldaten im Cache. */
+    private final long maxPixelBytes;
+
+    /** Die geladenen Bilder in LRU Reihenfolge. */
+    private final LinkedHashMap<Key, Entry> entries =
+            new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Die laufenden Ladevorgänge. */
+    private final ConcurrentMap<Key, CompletableFuture<Image>> loading =
+            new ConcurrentHashMap<>();
+
+    /** Die Größe der Pixeldaten im Cache. Geschützt durch entries. */
+    private long pixelBytes;
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    private volatile Executor executor = ForkJoinPool.commonPool();
+
+    /**
+     * Konstruktor. Verwendet {@link #DEFAULT_MAX_PIXEL_BYTES}.
+     */
+    public ImageCache() {
+        this(DEFAULT_MAX_PIXEL_BYTES);
+    }
+
+    /**
+     * Konstruktor.
+     *
+     * @param _maxPixelBytes Die maximale Größe der Pixeldaten im Cache.
+     */
+    public ImageCache(final long _maxPixelBytes) {
+        Validate.isTrue(_maxPixelBytes >= 0,
+            "maxPixelBytes must not be negative.");
+        maxPixelBytes = _maxPixelBytes;
+    }
+
+    /**
+     * Liefert ein Bild aus dem Cache oder lädt es.
+     *
+     * @param resource Eine Resource die im Klassenpfad liegt.
+     * @param clazz Die Klasse, über die die Resource aufgelöst wird.
+     * @return Das Bild oder <code>null</code>, wenn kein passender
+     *         <code>ImageReader</code> gefunden wurde.
+     */
+    public Image getImage(final String resource, final Class<?> clazz) {
+        Key key = Key.of(resource, clazz);
+        Image image = lookup(key);
+        if (image != null) {
+            return image;
+        }
+
+        CompletableFuture<Image> future = new CompletableFuture<>();
+        CompletableFuture<Image> running = loading.putIfAbsent(key, future);
+        if (running == null) {
+            load(key, future);
+            running = future;
+        } else {
+            hitCount.incrementAndGet();
+        }
+
+        try {
+            return running.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new UnhandledException(ex.getCause());
+        }
+    }
+
+    /**
+     * Lädt mehrere Bilder parallel über den {@link #setExecutor(Executor)}.
+     * Bereits geladene Bilder werden nicht erneut geladen.
+     *
+     * @param resources Resourcen die im Klassenpfad liegen.
+     * @param clazz Die Klasse, über die die Resourcen aufgelöst werden.
+     * @return Ein Future, das nach dem Laden aller Bilder erfüllt ist.
+     *         Schlägt ein Ladevorgang fehl, schlägt auch das Future fehl.
+     * @throws java.util.concurrent.RejectedExecutionException Der Executor
+     *             nimmt keine Aufträge an. Das betroffene Bild kann danach
+     *             normal über {@link #getImage(String, Class)} geladen
+     *             werden.
+     */
+    public CompletableFuture<Void> preload(
+        final Collection<String> resources, final Class<?> clazz) {
+
+        List<CompletableFuture<Image>> futures =
+                new ArrayList<>(resources.size());
+        for (String resource : resources) {
+            final Key key = Key.of(resource, clazz);
+            if (lookup(key) != null) {
+                continue;
+            }
+
+            final CompletableFuture<Image> future = new CompletableFuture<>();
+            CompletableFuture<Image> running = loading.putIfAbsent(key, future);
+            if (running == null) {
+                try {
+                    executor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            load(key, future);
+                        }
+                    });
+                } catch (RuntimeException ex) {
+                    // Sonst wartet jedes getImage() ewig auf das Future.
+                    loading.remove(key, future);
+                    future.completeExceptionally(ex);
+                    throw ex;
+                }
+                running = future;
+            }
+            futures.add(running);
+        }
+        return CompletableFuture.allOf(futures
+            .toArray(new CompletableFuture<?>[futures.size()]));
+    }
+
+    /**
+     * Entfernt alle Bilder aus dem Cache.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            pixelBytes = 0;
+        }
+    }
+
+    /**
+     * Die Anzahl der Bilder im Cache.
+     *
+     * @return Die Anzahl der Bilder im Cache.
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Die Größe der Pixeldaten im Cache.
+     *
+     * @return Die Größe der Pixeldaten in Bytes.
+     */
+    public long getPixelBytes() {
+        synchronized (entries) {
+            return pixelBytes;
+        }
+    }
+
+    /**
+     * Die maximale Größe der Pixeldaten im Cache.
+     *
+     * @return Die maximale Größe der Pixeldaten in Bytes.
+     */
+    public long getMaxPixelBytes() {
+        return maxPixelBytes;
+    }
+
+    /**
+     * Die Anzahl der Anfragen, die ohne Dekodieren beantwortet wurden.
+     *
+     * @return Die Anzahl der Treffer.
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Die Anzahl der Anfragen, für die ein Bild dekodiert wurde.
+     *
+     * @return Die Anzahl der Fehlschläge.
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Die Anzahl der verdrängten Bilder.
+     *
+     * @return Die Anzahl der verdrängten Bilder.
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * Setzt den Executor für {@link #preload(Collection, Class)}. Default
+     * ist <code>ForkJoinPool.commonPool()</code>.
+     *
+     * @param _executor Der Executor.
+     */
+    public void setExecutor(final Executor _executor) {
+        Validate.notNull(_executor, "executor is null.");
+        executor = _executor;
+    }
+
+    private Image lookup(final Key key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                hitCount.incrementAndGet();
+                return entry.image;
+            }
+        }
+        return null;
+    }
+
+    private void load(final Key key, final CompletableFuture<Image> future) {
+        try {
+            Image image;
+            synchronized (entries) {
+                // Eventuell wurde das Bild gerade erst gespeichert.
+                Entry entry = entries.get(key);
+                image = (entry == null) ? null : entry.image;
+            }
+            if (image != null) {
+                hitCount.incrementAndGet();
+            } else {
+                missCount.incrementAndGet();
+                image = decode(key);
+                if (image != null) {
+                    store(key, image);
+                }
+            }
+            future.complete(image);
+        } catch (IOException ex) {
+            log.error("Fehler: ", ex);
+            future.completeExceptionally(new UnhandledException(ex));
+        } catch (RuntimeException ex) {
+            future.completeExceptionally(ex);
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    private void store(final Key key, final Image image) {
+        long weight = weigh(image);
+        if (weight > maxPixelBytes) {
+            return;
+        }
+
+        synchronized (entries) {
+            Entry old = entries.put(key, new Entry(image, weight));
+            if (old != null) {
+                pixelBytes -= old.weight;
+            }
+            pixelBytes += weight;
+
+            // Die Bilder entladener Klassenlader entfernen.
+            Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Key, Entry> entry = it.next();
+                if (entry.getKey().isStale()) {
+                    pixelBytes -= entry.getValue().weight;
+                    it.remove();
+                }
+            }
+
+            it = entries.entrySet().iterator();
+            while (pixelBytes > maxPixelBytes && it.hasNext()) {
+                Map.Entry<Key, Entry> eldest = it.next();
+                if (eldest.getKey().equals(key)) {
+                    continue;
+                }
+                pixelBytes -= eldest.getValue().weight;
+                it.remove();
+                evictionCount.incrementAndGet();
+            }
+        }
+    }
+
+    private static Image decode(final Key key) throws IOException {
+        URL url = null;
+        if (key.loader == null) {
+            url = ClassLoader.getSystemResource(key.name);
+        } else {
+            ClassLoader loader = key.loader.get();
+            if (loader != null) {
+                url = loader.getResource(key.name);
+            }
+        }
+        if (url == null) {
+            throw new IllegalArgumentException("Resource not found: "
+                + key.name);
+        }
+        return ImageIO.read(url);
+    }
+
+    /**
+     * Ermittelt die Größe der Pixeldaten eines Bildes.
+     *
+     * @param image Ein Bild.
+     * @return Die Größe der Pixeldaten in Bytes.
+     */
+    static long weigh(final Image image) {
+        if (image instanceof BufferedImage) {
+            DataBuffer buffer = ((BufferedImage) image).getRaster()
+                .getDataBuffer();
+            return (long) buffer.getSize() * buffer.getNumBanks()
+                * DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+        }
+        // Unbekannter Typ: 4 Bytes pro Pixel.
+        return 4L * Math.max(0, image.getWidth(null))
+            * Math.max(0, image.getHeight(null));
+    }
+
+    /**
+     * Der Schlüssel eines Bildes: Klassenlader und absoluter Name der
+     * Resource. Der Klassenlader wird nur schwach referenziert und über
+     * seine Identität verglichen.
+     */
+    private static final class Key {
+
+        /** <code>null</code> für den Bootstrap-Klassenlader. */
+        private final WeakReference<ClassLoader> loader;
+
+        private final String name;
+
+        private final int hash;
+
+        private Key(final ClassLoader _loader, final String _name) {
+            loader = (_loader == null) ? null : new WeakReference<>(_loader);
+            name = _name;
+            hash = 31 * System.identityHashCode(_loader) + name.hashCode();
+        }
+
+        /**
+         * Wurde der Klassenlader bereits eingesammelt?
+         *
+         * @return <code>true</code>, wenn der Schlüssel nicht mehr
+         *         verwendet werden kann.
+         */
+        private boolean isStale() {
+            return loader != null && loader.get() == null;
+        }
+
+        private static Key of(final String resource, final Class<?> clazz) {
+            Validate.notNull(resource, "resource is null.");
+            Validate.notNull(clazz, "clazz is null.");
+
+            String name;
+            if (resource.startsWith("/")) {
+                name = resource.substring(1);
+            } else {
+                String className = clazz.getName();
+                int index = className.lastIndexOf('.');
+                name = (index < 0) ? resource
+                        : className.substring(0, index).replace('.', '/')
+                            + '/' + resource;
+            }
+            return new Key(clazz.getClassLoader(), name);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object object) {
+            if (this == object) {
+                return true;
+            }
+            if (!(object instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) object;
+            if (hash != other.hash || !name.equals(other.name)) {
+                return false;
+            }
+            if (loader == null || other.loader == null) {
+                return loader == other.loader;
+            }
+            // Ein eingesammelter Klassenlader ist nur sich selbst gleich.
+            ClassLoader classLoader = loader.get();
+            return classLoader != null && classLoader == other.loader.get();
+        }
+
+    }
+
+    /**
+     * Ein Bild im Cache mit der Größe seiner Pixeldaten.
+     */
+    private static final class Entry {
+
+        private final Image image;
+
+        private final long weight;
+
+        private Entry(final Image _image, final long _weight) {
+            image = _image;
+            weight = _weight;
+        }
+
+    }
+
+}
@@ -0,0 +1,316 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.io;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang.Validate;
+import org.slf4j.Logger;
+
+import de.awtools.basic.LoggerFactory;
+
+/**
+ * Löscht einen Verzeichnisbaum. Der Baum wird mit
+ * {@link Files#walkFileTree(Path, java.nio.file.FileVisitor)} durchlaufen.
+ * Die Dateien werden parallel von einer begrenzten Anzahl Threads gelöscht.
+ * Danach werden die Verzeichnisse in Post-Order, also von innen nach außen,
+ * entfernt. Fehler brechen das Löschen nicht ab, sondern werden mit dem
+ * betroffenen Pfad gesammelt:
+ * <pre>
+ * ParallelDelete delete = new ParallelDelete(Paths.get("/var/cache/build"));
+ * if (!delete.execute()) {
+ *     log.warn("Failures: {}", delete.getFailures());
+ * }
+ * </pre>
+ * Der Fortschritt kann während des Löschens von anderen Threads abgefragt
+ * werden. Mit {@link #cancel()} wird das Löschen abgebrochen. Symbolischen
+ * Links wird nicht gefolgt, es wird nur der Link gelöscht. Eine Instanz
+ * löscht genau einmal.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ *
+ * @see AWToolsIOUtils#recursiveDelete(java.io.File)
+ */
+public class ParallelDelete {
+
+    /** Der private Logger der Klasse. */
+    private static final Logger log = LoggerFactory.make();
+
+    /** Die Anzahl der wartenden Aufträge pro Thread. */
+    private static final int QUEUE_SIZE_PER_THREAD = 256;
+
+    /** Das zu löschende Verzeichnis oder die zu löschende Datei. */
+    private final Path root;
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    private final AtomicLong deletedFiles = new AtomicLong();
+
+    private final AtomicLong deletedDirectories = new AtomicLong();
+
+    private final AtomicLong deletedBytes = new AtomicLong();
+
+    private final Map<Path, IOException> failures = new ConcurrentHashMap<>();
+
+    private volatile boolean cancelled;
+
+    private volatile boolean executed;
+
+    /**
+     * Konstruktor.
+     *
+     * @param _root Das zu löschende Verzeichnis oder die zu löschende Datei.
+     */
+    public ParallelDelete(final Path _root) {
+        Validate.notNull(_root, "root is null.");
+        root = _root;
+    }
+
+    /**
+     * Die Anzahl der Threads, die Dateien löschen. Default ist die Anzahl
+     * der Prozessoren.
+     *
+     * @param _threads Die Anzahl der Threads.
+     */
+    public void setThreads(final int _threads) {
+        Validate.isTrue(_threads > 0, "threads must be positive.");
+        threads = _threads;
+    }
+
+    /**
+     * Startet das Löschen und wartet, bis alle Dateien und Verzeichnisse
+     * gelöscht sind.
+     *
+     * @return <code>true</code>, wenn alles gelöscht wurde;
+     *  <code>false</code>, wenn Fehler auftraten oder abgebrochen wurde.
+     * @throws InterruptedException Der wartende Thread wurde unterbrochen.
+     *  Das Löschen wird in diesem Fall abgebrochen.
+     */
+    public boolean execute() throws InterruptedException {
+        Validate.isTrue(!executed, "ParallelDelete was already executed.");
+        executed = true;
+
+        ThreadPoolExecutor executor =
+                new ThreadPoolExecutor(threads, threads, 0L,
+                    TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(
+                        threads * QUEUE_SIZE_PER_THREAD),
+                    new ThreadPoolExecutor.CallerRunsPolicy());
+
+        List<Path> directories = new ArrayList<>();
+        try {
+            Files.walkFileTree(root, new DeleteVisitor(executor, directories));
+        } catch (IOException ex) {
+            failures.put(root, ex);
+        } finally {
+            executor.shutdown();
+            try {
+                while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                    log.debug("Deleted {} files.", deletedFiles.get());
+                }
+            } catch (InterruptedException ex) {
+                cancel();
+                executor.shutdownNow();
+                throw ex;
+            }
+        }
+
+        // Die Verzeichnisse liegen in Post-Order vor.
+        for (Path dir : directories) {
+            if (cancelled) {
+                break;
+            }
+            try {
+                Files.delete(dir);
+                deletedDirectories.incrementAndGet();
+            } catch (NoSuchFileException ex) {
+                // Wurde bereits von außen gelöscht.
+            } catch (IOException ex) {
+                failures.put(dir, ex);
+            }
+        }
+
+        return !cancelled && failures.isEmpty();
+    }
+
+    /**
+     * Bricht das Löschen ab. Bereits gestartete Löschvorgänge werden noch
+     * beendet.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Wurde das Löschen abgebrochen?
+     *
+     * @return <code>true</code>, wenn abgebrochen wurde.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Die Anzahl der bisher gelöschten Dateien.
+     *
+     * @return Die Anzahl der gelöschten Dateien.
+     */
+    public long getDeletedFiles() {
+        return deletedFiles.get();
+    }
+
+    /**
+     * Die Anzahl der bisher gelöschten Verzeichnisse.
+     *
+     * @return Die Anzahl der gelöschten Verzeichnisse.
+     */
+    public long getDeletedDirectories() {
+        return deletedDirectories.get();
+    }
+
+    /**
+     * Die Größe der bisher gelöschten Dateien in Bytes.
+     *
+     * @return Die Anzahl der gelöschten Bytes.
+     */
+    public long getDeletedBytes() {
+        return deletedBytes.get();
+    }
+
+    /**
+     * Die Pfade, die nicht gelöscht werden konnten, mit dem jeweiligen
+     * Fehler.
+     *
+     * @return Eine Kopie der aufgetretenen Fehler.
+     */
+    public Map<Path, IOException> getFailures() {
+        return Collections.unmodifiableMap(new HashMap<>(failures));
+    }
+
+    @Override
+    public String toString() {
+        return "ParallelDelete[root=" + root + ", files=" + deletedFiles
+            + ", directories=" + deletedDirectories + ", bytes="
+            + deletedBytes + ", failures=" + failures.size() + "]";
+    }
+
+    private void deleteFile(final Path file, final long size) {
+        if (cancelled) {
+            return;
+        }
+        try {
+            Files.delete(file);
+            deletedFiles.incrementAndGet();
+            deletedBytes.addAndGet(size);
+        } catch (NoSuchFileException ex) {
+            // Wurde bereits von außen gelöscht.
+        } catch (IOException ex) {
+            failures.put(file, ex);
+        }
+    }
+
+    /**
+     * Verteilt die Dateien auf den Executor und merkt sich die Verzeichnisse
+     * in Post-Order.
+     */
+    private final class DeleteVisitor extends SimpleFileVisitor<Path> {
+
+        private final ThreadPoolExecutor executor;
+
+        private final List<Path> directories;
+
+        private DeleteVisitor(final ThreadPoolExecutor _executor,
+            final List<Path> _directories) {
+
+            executor = _executor;
+            directories = _directories;
+        }
+
+        @Override
+        public FileVisitResult preVisitDirectory(final Path dir,
+            final BasicFileAttributes attrs) {
+
+            return cancelled ? FileVisitResult.TERMINATE
+                    : FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(final Path file,
+            final BasicFileAttributes attrs) {
+
+            if (cancelled) {
+                return FileVisitResult.TERMINATE;
+            }
+
+            final long size = attrs.size();
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    deleteFile(file, size);
+                }
+            });
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(final Path file,
+            final IOException ex) {
+
+            failures.put(file, ex);
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult postVisitDirectory(final Path dir,
+            final IOException ex) {
+
+            if (ex != null) {
+                failures.put(dir, ex);
+            }
+            directories.add(dir);
+            return cancelled ? FileVisitResult.TERMINATE
+                    : FileVisitResult.CONTINUE;
+        }
+
+    }
+
+}
@@ -0,0 +1,267 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.Validate;
+import org.slf4j.Logger;
+
+import de.awtools.basic.LoggerFactory;
+
+/**
+ * Ein Pool von temporären Verzeichnissen. Ein kleiner Vorrat an
+ * Verzeichnissen wird von einem Hintergrund-Thread vorab angelegt.
+ * Zurückgegebene Verzeichnisse werden im Hintergrund geleert und wieder in
+ * den Vorrat gelegt:
+ * <pre>
+ * TempDirPool pool = new TempDirPool();
+ * Path dir = pool.acquire();
+ * try {
+ *     ...
+ * } finally {
+ *     pool.release(dir);
+ * }
+ * </pre>
+ * Die Verzeichnisnamen werden wie bei {@link AWToolsIOUtils#createTempDir()}
+ * ohne <code>SecureRandom</code> gebildet. {@link #close()} löscht alle
+ * Verzeichnisse im Vorrat. Die Klasse ist thread-sicher.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public class TempDirPool implements Closeable {
+
+    /** Der private Logger der Klasse. */
+    private static final Logger log = LoggerFactory.make();
+
+    /** Die Default-Größe des Vorrats. */
+    public static final int DEFAULT_STOCK_SIZE = 4;
+
+    /** Der Präfix der Verzeichnisnamen. */
+    private static final String PREFIX = "awtools-";
+
+    /** Das übergeordnete Verzeichnis. */
+    private final Path parent;
+
+    /** Die Größe des Vorrats. */
+    private final int stockSize;
+
+    /** Der Vorrat an leeren Verzeichnissen. */
+    private final BlockingQueue<Path> stock;
+
+    /** Die ausgegebenen und noch nicht zurückgegebenen Verzeichnisse. */
+    private final Set<Path> issued = ConcurrentHashMap.newKeySet();
+
+    /** Legt Verzeichnisse an und räumt zurückgegebene Verzeichnisse auf. */
+    private final ExecutorService background;
+
+    /** Ist das Auffüllen des Vorrats bereits beauftragt? */
+    private final AtomicBoolean refillScheduled = new AtomicBoolean();
+
+    private volatile boolean closed;
+
+    /**
+     * Konstruktor. Die Verzeichnisse werden unterhalb von
+     * <code>java.io.tmpdir</code> angelegt.
+     */
+    public TempDirPool() {
+        this(Paths.get(System.getProperty("java.io.tmpdir")),
+            DEFAULT_STOCK_SIZE);
+    }
+
+    /**
+     * Konstruktor.
+     *
+     * @param _parent Das übergeordnete Verzeichnis.
+     * @param _stockSize Die Anzahl der vorab angelegten Verzeichnisse.
+     */
+    public TempDirPool(final Path _parent, final int _stockSize) {
+        Validate.notNull(_parent, "parent is null.");
+        Validate.isTrue(_stockSize >= 0, "stockSize must not be negative.");
+
+        parent = _parent;
+        stockSize = _stockSize;
+        stock = new LinkedBlockingQueue<>(Math.max(1, _stockSize));
+        background = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                Thread thread = new Thread(runnable, "TempDirPool");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        scheduleRefill();
+    }
+
+    /**
+     * Liefert ein leeres, temporäres Verzeichnis. Ist der Vorrat leer, wird
+     * das Verzeichnis sofort angelegt.
+     *
+     * @return Ein temporäres Verzeichnis.
+     * @throws IOException Im Fehlerfall.
+     */
+    public Path acquire() throws IOException {
+        Validate.isTrue(!closed, "TempDirPool is closed.");
+
+        Path dir = stock.poll();
+        scheduleRefill();
+        if (dir == null) {
+            dir = AWToolsIOUtils.createUniqueDirectory(parent, PREFIX);
+        }
+        issued.add(dir);
+        return dir;
+    }
+
+    /**
+     * Gibt ein Verzeichnis zurück. Das Verzeichnis wird im Hintergrund
+     * geleert und wieder verwendet. Ist der Vorrat voll, wird es gelöscht.
+     * Jedes Verzeichnis darf nur einmal zurückgegeben werden, sonst könnte
+     * es zweimal in den Vorrat gelangen.
+     *
+     * @param dir Ein Verzeichnis aus {@link #acquire()}.
+     * @throws IllegalArgumentException Das Verzeichnis stammt nicht aus
+     *             diesem Pool oder wurde bereits zurückgegeben.
+     */
+    public void release(final Path dir) {
+        Validate.notNull(dir, "dir is null.");
+        Validate.isTrue(issued.remove(dir),
+            "Not an acquired directory of this pool: ", dir);
+
+        try {
+            background.execute(new Runnable() {
+                @Override
+                public void run() {
+                    recycle(dir);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            // Der Pool ist bereits geschlossen.
+            FileUtils.deleteQuietly(dir.toFile());
+        }
+    }
+
+    /**
+     * Die Anzahl der Verzeichnisse im Vorrat.
+     *
+     * @return Die Anzahl der Verzeichnisse im Vorrat.
+     */
+    public int getStockCount() {
+        return stock.size();
+    }
+
+    /**
+     * Schließt den Pool. Wartet auf laufende Aufräumarbeiten und löscht alle
+     * Verzeichnisse im Vorrat. Ausgegebene Verzeichnisse, die danach
+     * zurückgegeben werden, werden sofort gelöscht.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        background.shutdown();
+        try {
+            if (!background.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.warn("TempDirPool cleanup did not finish.");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        Path dir;
+        while ((dir = stock.poll()) != null) {
+            FileUtils.deleteQuietly(dir.toFile());
+        }
+    }
+
+    private void scheduleRefill() {
+        if (closed || stock.size() >= stockSize
+            || !refillScheduled.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            background.execute(new Runnable() {
+                @Override
+                public void run() {
+                    refillScheduled.set(false);
+                    refill();
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            refillScheduled.set(false);
+        }
+    }
+
+    private void refill() {
+        try {
+            while (!closed && stock.size() < stockSize) {
+                Path dir = AWToolsIOUtils.createUniqueDirectory(parent, PREFIX);
+                if (!stock.offer(dir)) {
+                    FileUtils.deleteQuietly(dir.toFile());
+                    return;
+                }
+            }
+        } catch (IOException ex) {
+            log.warn("Unable to create temp dir in {}: {}", parent,
+                ex.toString());
+        }
+    }
+
+    private void recycle(final Path dir) {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+
+        if (!closed && stock.size() < stockSize) {
+            try {
+                FileUtils.cleanDirectory(dir.toFile());
+                if (stock.offer(dir)) {
+                    return;
+                }
+            } catch (IOException ex) {
+                log.debug("Unable to clean temp dir {}: {}", dir,
+                    ex.toString());
+            }
+        }
+        FileUtils.deleteQuietly(dir.toFile());
+    }
+
+}
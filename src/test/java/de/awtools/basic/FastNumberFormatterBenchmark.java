@@ -0,0 +1,132 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic;
+
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Vergleicht {@link FastNumberFormatter} mit <code>DecimalFormat</code>.
+ * Jede Operation formatiert 1024 Werte. Start über die <code>main</code>
+ * Methode, z.B. mit <code>-prof gc</code> für die Allokationen.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FastNumberFormatterBenchmark {
+
+    @Param({ NumberUtils.DEFAULT_DECIMAL_FORMAT,
+            NumberUtils.DEFAULT_ZERO_FORMAT })
+    public String pattern;
+
+    private double[] values;
+
+    private DecimalFormat decimalFormat;
+
+    private FastNumberFormatter fastFormatter;
+
+    private final StringBuilder sb = new StringBuilder(64);
+
+    private char[] buffer;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(4711);
+        values = new double[1024];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(100000000) / 100.0;
+        }
+        decimalFormat =
+                (DecimalFormat) NumberFormat.getNumberInstance(Locale.GERMANY);
+        decimalFormat.applyPattern(pattern);
+        fastFormatter = FastNumberFormatter.of(decimalFormat);
+        buffer = new char[fastFormatter.getMaxLength()];
+    }
+
+    @Benchmark
+    public void decimalFormat(final Blackhole blackhole) {
+        for (double value : values) {
+            blackhole.consume(decimalFormat.format(value));
+        }
+    }
+
+    @Benchmark
+    public void fastToString(final Blackhole blackhole) {
+        for (double value : values) {
+            blackhole.consume(fastFormatter.format(value));
+        }
+    }
+
+    @Benchmark
+    public void fastToStringBuilder(final Blackhole blackhole) {
+        for (double value : values) {
+            sb.setLength(0);
+            blackhole.consume(fastFormatter.format(value, sb));
+        }
+    }
+
+    @Benchmark
+    public void fastToCharArray(final Blackhole blackhole) {
+        for (double value : values) {
+            blackhole.consume(fastFormatter.format(value, buffer, 0));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options =
+                new OptionsBuilder().include(
+                    FastNumberFormatterBenchmark.class.getSimpleName())
+                    .build();
+        new Runner(options).run();
+    }
+
+}
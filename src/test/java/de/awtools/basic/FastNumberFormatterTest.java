@@ -0,0 +1,155 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Testet die Klasse {@link FastNumberFormatter} gegen
+ * <code>DecimalFormat</code>.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public class FastNumberFormatterTest {
+
+    private static final Locale[] LOCALES = { Locale.GERMANY, Locale.US,
+            Locale.FRANCE, new Locale("de", "CH"), new Locale("ar", "EG"),
+            new Locale("hi", "IN") };
+
+    private static final String[] PATTERNS = {
+            NumberUtils.DEFAULT_DECIMAL_FORMAT, NumberUtils.DEFAULT_ZERO_FORMAT,
+            "0", "#,##0.000", "00000.##", "#.#########" };
+
+    private static final double[] SPECIAL = { 0, -0.0, 0.5, -0.001, 0.004,
+            0.005, 0.015, 0.125, 0.135, 1.005, 2.675, 999.995, 1234567.891,
+            -1234.5, 0.0049999, 1e-300, Double.MIN_VALUE, 1e9 + 0.005,
+            9999999.995, 1e11, 1e15, 1e20, -1e20, Double.MAX_VALUE,
+            Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY };
+
+    private static final long[] SPECIAL_LONGS = { 0, 1, -1, 999, 1000, -1000,
+            123456789, Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE + 1 };
+
+    private static DecimalFormat decimalFormat(final Locale locale,
+        final String pattern) {
+
+        DecimalFormat format =
+                (DecimalFormat) NumberFormat.getNumberInstance(locale);
+        format.applyPattern(pattern);
+        return format;
+    }
+
+    @Test
+    public void testDefaultPattern() {
+        FastNumberFormatter formatter =
+                FastNumberFormatter.of(Locale.GERMANY,
+                    NumberUtils.DEFAULT_DECIMAL_FORMAT);
+        assertThat(formatter.format(1234567.891)).isEqualTo("1.234.567,89");
+        assertThat(formatter.format(0.125)).isEqualTo("0,12");
+        assertThat(formatter.format(-0.001)).isEqualTo("-0");
+        assertThat(formatter.format(1234L)).isEqualTo("1.234");
+
+        formatter = FastNumberFormatter.of(Locale.GERMANY,
+            NumberUtils.DEFAULT_ZERO_FORMAT);
+        assertThat(formatter.format(1.005)).isEqualTo("1,00");
+        assertThat(formatter.format(999.995)).isEqualTo("1.000,00");
+        assertThat(formatter.format(-1234L)).isEqualTo("-1.234,00");
+    }
+
+    @Test
+    public void testAppendAndCharArray() {
+        FastNumberFormatter formatter =
+                FastNumberFormatter.of(Locale.US,
+                    NumberUtils.DEFAULT_ZERO_FORMAT);
+        StringBuilder sb = new StringBuilder("Summe: ");
+        formatter.format(1234.5, sb).append(" EUR");
+        assertThat(sb.toString()).isEqualTo("Summe: 1,234.50 EUR");
+
+        char[] buffer = new char[formatter.getMaxLength() + 2];
+        int end = formatter.format(-42L, buffer, 2);
+        assertThat(new String(buffer, 2, end - 2)).isEqualTo("-42.00");
+        end = formatter.format(Long.MIN_VALUE, buffer, 0);
+        assertThat(new String(buffer, 0, end)).isEqualTo(
+            "-9,223,372,036,854,775,808.00");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedPattern() {
+        FastNumberFormatter.of(Locale.GERMANY, "#,##0.00 EUR");
+    }
+
+    @Test
+    public void testSameAsDecimalFormat() {
+        Random random = new Random(4711);
+        for (Locale locale : LOCALES) {
+            for (String pattern : PATTERNS) {
+                DecimalFormat format = decimalFormat(locale, pattern);
+                if (!FastNumberFormatter.isSupported(format)) {
+                    continue;
+                }
+                FastNumberFormatter formatter =
+                        FastNumberFormatter.of(format);
+
+                for (double value : SPECIAL) {
+                    assertSame(format, formatter, value);
+                }
+                for (long value : SPECIAL_LONGS) {
+                    assertThat(formatter.format(value)).as(
+                        pattern + " " + locale + " " + value).isEqualTo(
+                        format.format(value));
+                }
+                for (int i = 0; i < 20000; i++) {
+                    // Werte mit wenigen Nachkommastellen erzeugen viele
+                    // Grenzfälle bei der Rundung.
+                    double value = random.nextInt(2000000) / 1000.0;
+                    assertSame(format, formatter, value);
+                    assertSame(format, formatter, -value);
+                    assertSame(format, formatter, random.nextDouble()
+                        * Math.pow(10, random.nextInt(14)));
+                    long longValue = random.nextLong()
+                        >> random.nextInt(64);
+                    assertThat(formatter.format(longValue)).isEqualTo(
+                        format.format(longValue));
+                }
+            }
+        }
+    }
+
+    private static void assertSame(final DecimalFormat format,
+        final FastNumberFormatter formatter, final double value) {
+
+        assertThat(formatter.format(value)).as(
+            format.toPattern() + " " + value).isEqualTo(format.format(value));
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+/**
+ * Testet die Klasse {@link NumberFormatSpec}.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public class NumberFormatSpecTest {
+
+    @Test
+    public void testRegistry() {
+        NumberFormatSpec spec =
+                NumberFormatSpec.of(Locale.GERMANY,
+                    NumberUtils.DEFAULT_ZERO_FORMAT);
+        assertThat(NumberFormatSpec.of(new Locale("de", "DE"),
+            new String(NumberUtils.DEFAULT_ZERO_FORMAT))).isSameAs(spec);
+        assertThat(NumberFormatSpec.of(Locale.US,
+            NumberUtils.DEFAULT_ZERO_FORMAT)).isNotSameAs(spec);
+        assertThat(spec.getLocale()).isEqualTo(Locale.GERMANY);
+        assertThat(spec.getPattern()).isEqualTo(NumberUtils.DEFAULT_ZERO_FORMAT);
+        assertThat(spec.toString()).isEqualTo("de_DE / ##,##0.00");
+    }
+
+    @Test
+    public void testFormatAndParse() throws Exception {
+        NumberFormatSpec spec =
+                NumberFormatSpec.of(Locale.GERMANY,
+                    NumberUtils.DEFAULT_ZERO_FORMAT);
+        assertThat(spec.format(1234.5)).isEqualTo("1.234,50");
+        assertThat(spec.format(-7L)).isEqualTo("-7,00");
+        assertThat(spec.format(Integer.valueOf(3))).isEqualTo("3,00");
+        assertThat(spec.format(0.5, new StringBuilder("x")).toString())
+            .isEqualTo("x0,50");
+        assertThat(spec.parse("1.234,5").doubleValue()).isEqualTo(1234.5);
+
+        // Das Pattern wird nicht vom FastNumberFormatter unterstützt.
+        spec = NumberFormatSpec.of(Locale.GERMANY, "#,##0.00 EUR");
+        assertThat(spec.format(1234.5)).isEqualTo("1.234,50 EUR");
+
+        // Eine Kopie kann verändert werden, ohne das Format zu ändern.
+        spec.newDecimalFormat().setMaximumFractionDigits(0);
+        assertThat(spec.format(0.5)).isEqualTo("0,50 EUR");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPattern() {
+        NumberFormatSpec.of(Locale.GERMANY, "#,##0.00.00");
+    }
+
+    @Test
+    public void testNumberUtils() {
+        NumberFormatSpec spec =
+                NumberFormatSpec.of(Locale.GERMANY,
+                    NumberUtils.DEFAULT_ZERO_FORMAT);
+        NumberUtils numberUtils = new NumberUtils(spec);
+        assertThat(numberUtils.formatDouble(5)).isEqualTo("5,00");
+
+        numberUtils.setPattern(NumberUtils.DEFAULT_DECIMAL_FORMAT);
+        assertThat(numberUtils.getSpec().getLocale()).isEqualTo(
+            Locale.GERMANY);
+        assertThat(numberUtils.getSpec().getPattern()).isEqualTo(
+            NumberUtils.DEFAULT_DECIMAL_FORMAT);
+        numberUtils.setSpec(spec);
+        assertThat(numberUtils.formatDouble(5)).isEqualTo("5,00");
+    }
+
+    @Test
+    public void testSharedSpec() throws Exception {
+        final NumberFormatSpec spec =
+                NumberFormatSpec.of(Locale.GERMANY, "#,##0.000 'kg'");
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                final int offset = t;
+                results.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        for (int i = 0; i < 10000; i++) {
+                            long value = offset * 100000L + i;
+                            String text = spec.format(value / 1000.0);
+                            if (Math.round(spec.parse(text).doubleValue()
+                                * 1000) != value) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    }
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
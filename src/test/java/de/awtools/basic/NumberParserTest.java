@@ -0,0 +1,202 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+import java.text.ParsePosition;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Testet die Klasse {@link NumberParser} gegen <code>DecimalFormat</code>.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public class NumberParserTest {
+
+    private static final Locale[] LOCALES = { Locale.GERMANY, Locale.US,
+            Locale.FRANCE, new Locale("de", "CH"), new Locale("hi", "IN") };
+
+    private static DecimalFormat decimalFormat(final Locale locale,
+        final String pattern) {
+
+        DecimalFormat format =
+                (DecimalFormat) NumberFormat.getNumberInstance(locale);
+        format.applyPattern(pattern);
+        return format;
+    }
+
+    @Test
+    public void testParseLong() {
+        NumberParser parser = NumberParser.of(Locale.GERMANY);
+        assertThat(parser.parseLong("0")).isEqualTo(0);
+        assertThat(parser.parseLong("-42")).isEqualTo(-42);
+        assertThat(parser.parseLong("1.234.567")).isEqualTo(1234567);
+        assertThat(parser.parseLong("12.34")).isEqualTo(1234);
+        assertThat(parser.parseLong("9.223.372.036.854.775.807")).isEqualTo(
+            Long.MAX_VALUE);
+        assertThat(parser.parseLong("-9223372036854775808")).isEqualTo(
+            Long.MIN_VALUE);
+        assertThat(parser.parseLong("a;1.234;b", 2, 7)).isEqualTo(1234);
+        assertThat(parser.parseLong("x", 0, 1, -1)).isEqualTo(-1);
+    }
+
+    @Test
+    public void testParseLongFail() {
+        NumberParser parser = NumberParser.of(Locale.GERMANY);
+        assertError(parser, "", 0, true);
+        assertError(parser, "-", 1, true);
+        assertError(parser, "5a", 1, true);
+        assertError(parser, "a5", 0, true);
+        assertError(parser, "+5", 0, true);
+        assertError(parser, " 5", 0, true);
+        assertError(parser, ".5", 0, true);
+        assertError(parser, "5.", 2, true);
+        assertError(parser, "5..0", 2, true);
+        assertError(parser, "5,0", 1, true);
+        assertError(parser, "9223372036854775808", 0, true);
+    }
+
+    @Test
+    public void testParseDouble() {
+        NumberParser parser = NumberParser.of(Locale.GERMANY);
+        assertThat(parser.parseDouble("5,01")).isEqualTo(5.01);
+        assertThat(parser.parseDouble("-1.234,5")).isEqualTo(-1234.5);
+        assertThat(parser.parseDouble("0,000001")).isEqualTo(0.000001);
+        assertThat(parser.parseDouble("-0")).isEqualTo(-0.0);
+        assertThat(parser.parseDouble("123456789012345678901234567890"))
+            .isEqualTo(123456789012345678901234567890.0);
+        assertThat(parser.parseDouble("0,1000000000000000055511151231257827"))
+            .isEqualTo(0.1);
+        assertThat(parser.parseDouble("12;3,5", 3, 6)).isEqualTo(3.5);
+        assertThat(Double.isNaN(parser.parseDouble("x", 0, 1, Double.NaN)))
+            .isTrue();
+
+        parser = NumberParser.of(Locale.US);
+        assertThat(parser.parseDouble("1,234.5")).isEqualTo(1234.5);
+    }
+
+    @Test
+    public void testParseDoubleFail() {
+        NumberParser parser = NumberParser.of(Locale.GERMANY);
+        assertError(parser, "", 0, false);
+        assertError(parser, "5,", 2, false);
+        assertError(parser, "5,0,1", 3, false);
+        assertError(parser, "5,0.1", 3, false);
+        assertError(parser, "1e5", 1, false);
+        assertError(parser, "NaN", 0, false);
+    }
+
+    @Test
+    public void testWithoutGrouping() {
+        NumberParser parser = NumberParser.of(Locale.GERMANY, "0.00");
+        assertThat(parser.parseDouble("1234,5")).isEqualTo(1234.5);
+        assertError(parser, "1.234", 1, false);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedPattern() {
+        NumberParser.of(Locale.GERMANY, "#,##0.00 EUR");
+    }
+
+    @Test
+    public void testSameAsDecimalFormat() {
+        Random random = new Random(4711);
+        for (Locale locale : LOCALES) {
+            DecimalFormat format =
+                    decimalFormat(locale, NumberUtils.DEFAULT_DECIMAL_FORMAT);
+            NumberParser parser = NumberParser.of(format);
+            char[] alphabet = { '0', '1', '5', '9', '0',
+                    format.getDecimalFormatSymbols().getGroupingSeparator(),
+                    format.getDecimalFormatSymbols().getDecimalSeparator(),
+                    format.getDecimalFormatSymbols().getMinusSign(), 'E' };
+
+            for (int i = 0; i < 50000; i++) {
+                // Zufällige Texte: Alles, was der Parser akzeptiert, muss
+                // DecimalFormat genauso lesen.
+                char[] chars = new char[1 + random.nextInt(25)];
+                for (int j = 0; j < chars.length; j++) {
+                    chars[j] = alphabet[random.nextInt(alphabet.length)];
+                }
+                assertSame(format, parser, new String(chars));
+
+                // Formatierte Zahlen müssen immer akzeptiert werden.
+                format.setMaximumFractionDigits(random.nextInt(20));
+                String text = format.format((random.nextDouble() - 0.5)
+                    * Math.pow(10, random.nextInt(30)));
+                assertThat(Double.isNaN(parser.parseDouble(text, 0,
+                    text.length(), Double.NaN))).as(text).isFalse();
+                assertSame(format, parser, text);
+                text = format.format(random.nextLong());
+                assertThat(parser.parseLong(text)).isEqualTo(
+                    format.parse(text, new ParsePosition(0)).longValue());
+            }
+        }
+    }
+
+    private static void assertSame(final DecimalFormat format,
+        final NumberParser parser, final String text) {
+
+        ParsePosition position = new ParsePosition(0);
+        Number expected = format.parse(text, position);
+
+        double value = parser.parseDouble(text, 0, text.length(), Double.NaN);
+        if (!Double.isNaN(value)) {
+            assertThat(position.getIndex()).as(text).isEqualTo(text.length());
+            assertThat(Double.doubleToLongBits(value)).as(text).isEqualTo(
+                Double.doubleToLongBits(expected.doubleValue()));
+        }
+
+        long longValue = parser.parseLong(text, 0, text.length(), 4711);
+        if (longValue != 4711) {
+            assertThat(position.getIndex()).as(text).isEqualTo(text.length());
+            assertThat(longValue).as(text).isEqualTo(expected.longValue());
+        }
+    }
+
+    private static void assertError(final NumberParser parser,
+        final String text, final int errorIndex, final boolean asLong) {
+
+        try {
+            if (asLong) {
+                parser.parseLong(text);
+            } else {
+                parser.parseDouble(text);
+            }
+            fail("NumberParseException erwartet: " + text);
+        } catch (NumberParseException ex) {
+            assertThat(ex.getErrorIndex()).as(text).isEqualTo(errorIndex);
+        }
+    }
+
+}
@@ -28,7 +28,16 @@ package de.awtools.basic;
 import static org.fest.assertions.Assertions.assertThat;
 import static org.fest.assertions.Fail.fail;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.fest.assertions.Delta;
 import org.junit.Test;
@@ -109,6 +118,78 @@ public class NumberUtilsTest {
         }
     }
 
+    @Test
+    public void testNumberUtilsToLongAndFloat() {
+        NumberUtils numberUtils = new NumberUtils();
+        numberUtils.setLocale(Locale.GERMANY);
+        assertThat(numberUtils.toLong("-9.223.372.036.854.775.808"))
+            .isEqualTo(Long.MIN_VALUE);
+        assertThat(numberUtils.toLong("99.999.999.999.999.999.999"))
+            .isEqualTo(Long.MAX_VALUE);
+        assertThat(numberUtils.toInt("3.000.000.000")).isEqualTo(
+            (int) 3000000000L);
+        assertThat(numberUtils.toInt("3.000.000.000,5")).isEqualTo(
+            Integer.MAX_VALUE);
+        assertThat(numberUtils.toFloat("16.777.217")).isEqualTo(16777216f);
+        assertThat(numberUtils.toDouble("1.234,5 EUR")).isEqualTo(1234.5);
+
+        try {
+            numberUtils.toLong("a5");
+            fail("Exception erwartet!");
+        } catch (NumberParseException ex) {
+            assertThat(ex.getErrorIndex()).isEqualTo(0);
+        }
+    }
+
+    @Test
+    public void testToLongsAndDoubles() {
+        NumberUtils numberUtils = new NumberUtils();
+        numberUtils.setLocale(Locale.GERMANY);
+
+        String[] values = { "1.234", "5,5", "a5", null, "5a", "-7" };
+        long[] longs = new long[values.length];
+        BitSet failed = numberUtils.toLongs(values, longs);
+        assertThat(longs).isEqualTo(new long[] { 1234, 5, 0, 0, 5, -7 });
+        assertThat(failed.toString()).isEqualTo("{2, 3}");
+
+        double[] doubles = new double[values.length];
+        failed = numberUtils.toDoubles(
+            new LinkedList<>(Arrays.asList(values)), doubles);
+        assertThat(doubles[1]).isEqualTo(5.5);
+        assertThat(Double.isNaN(doubles[2])).isTrue();
+        assertThat(failed.toString()).isEqualTo("{2, 3}");
+    }
+
+    @Test
+    public void testToLongsParallel() {
+        NumberUtils numberUtils = new NumberUtils();
+        numberUtils.setLocale(Locale.GERMANY);
+
+        List<String> values = new ArrayList<>();
+        BitSet expectedFailures = new BitSet();
+        for (int i = 0; i < 10 * NumberUtils.BULK_CHUNK_SIZE + 17; i++) {
+            if (i % 1000 == 999) {
+                values.add("x" + i);
+                expectedFailures.set(i);
+            } else {
+                values.add(numberUtils.formatLong(i * 31L - 50000));
+            }
+        }
+
+        long[] longs = new long[values.size()];
+        double[] doubles = new double[values.size()];
+        assertThat(numberUtils.toLongs(values, longs)).isEqualTo(
+            expectedFailures);
+        assertThat(numberUtils.toDoubles(values, doubles)).isEqualTo(
+            expectedFailures);
+        for (int i = 0; i < values.size(); i++) {
+            if (!expectedFailures.get(i)) {
+                assertThat(longs[i]).isEqualTo(i * 31L - 50000);
+                assertThat(doubles[i]).isEqualTo(i * 31.0 - 50000);
+            }
+        }
+    }
+
     // ------------------------------------------------------------------------
 
     @Test
@@ -118,4 +199,71 @@ public class NumberUtilsTest {
         assertThat(numberUtils.format(new Double(10.))).isEqualTo("10");
     }
 
+    @Test
+    public void testFormatAfterPatternChange() {
+        NumberUtils numberUtils = new NumberUtils();
+        numberUtils.setPatternAndLocale(Locale.GERMANY,
+            NumberUtils.DEFAULT_DECIMAL_FORMAT);
+        assertThat(numberUtils.formatDouble(1234.5)).isEqualTo("1.234,5");
+
+        numberUtils.setPattern(NumberUtils.DEFAULT_ZERO_FORMAT);
+        assertThat(numberUtils.formatDouble(1234.5)).isEqualTo("1.234,50");
+
+        numberUtils.setLocale(Locale.US);
+        assertThat(numberUtils.formatDouble(1234.5)).isEqualTo("1,234.50");
+        assertThat(numberUtils.toDouble("1,234.5")).isEqualTo(1234.5,
+            FEST_DELTA);
+    }
+
+    @Test
+    public void testSettersDoNotFillRegistry() {
+        NumberUtils numberUtils = new NumberUtils();
+        numberUtils.setPatternAndLocale(Locale.GERMANY, "#,##0.0 'Setter'");
+        NumberFormatSpec spec = numberUtils.getSpec();
+        assertThat(numberUtils.formatDouble(1234.5)).isEqualTo(
+            "1.234,5 Setter");
+
+        // Nicht in der Registry: of() legt ein neues Format an.
+        assertThat(NumberFormatSpec.of(Locale.GERMANY, "#,##0.0 'Setter'"))
+            .isNotSameAs(spec);
+
+        // Ein Format aus der Registry wird wiederverwendet.
+        numberUtils.setLocale(Locale.GERMANY);
+        assertThat(numberUtils.getSpec()).isSameAs(
+            NumberFormatSpec.of(Locale.GERMANY, "#,##0.0 'Setter'"));
+    }
+
+    @Test
+    public void testSharedInstance() throws Exception {
+        final NumberUtils numberUtils = new NumberUtils();
+        numberUtils.setPatternAndLocale(Locale.GERMANY,
+            NumberUtils.DEFAULT_ZERO_FORMAT);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                final int offset = i * 100000;
+                futures.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        for (int j = 0; j < 20000; j++) {
+                            long value = offset + j;
+                            String text = numberUtils.formatLong(value);
+                            if (numberUtils.toLong(text) != value) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    }
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                assertThat(future.get()).isTrue();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
 }
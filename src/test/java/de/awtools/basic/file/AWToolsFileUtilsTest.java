@@ -100,12 +100,34 @@ public class AWToolsFileUtilsTest {
             "/home/awinkler2/test");
     }
 
+    @Test
+    public void testNormalizePathCollapsesSeparators() {
+        assertThat(AWToolsFileUtils.normalizePath("////")).isEqualTo("");
+        assertThat(AWToolsFileUtils.normalizePath("/")).isEqualTo("");
+        assertThat(AWToolsFileUtils.normalizePath("")).isEqualTo("");
+        assertThat(AWToolsFileUtils.normalizePath("test////andre")).isEqualTo(
+            "/test/andre");
+        assertThat(AWToolsFileUtils.normalizePath("test\\\\/andre\\")).isEqualTo(
+            "/test/andre");
+        assertThat(AWToolsFileUtils.normalizePath("./test/././andre/.")).isEqualTo(
+            "/test/andre");
+        assertThat(AWToolsFileUtils.normalizePath("C:test.xml")).isEqualTo(
+            "/test.xml");
+        assertThat(AWToolsFileUtils.normalizePath("../test/..ab/.ab")).isEqualTo(
+            "/../test/..ab/.ab");
+    }
+
     @Test
     public void testPathToRoot() {
         assertThat(AWToolsFileUtils.pathToRoot(0)).isEqualTo("./");
         assertThat(AWToolsFileUtils.pathToRoot(1)).isEqualTo("./../");
         assertThat(AWToolsFileUtils.pathToRoot(2)).isEqualTo("./../../");
         assertThat(AWToolsFileUtils.pathToRoot(3)).isEqualTo("./../../../");
+        assertThat(AWToolsFileUtils.pathToRoot(-1)).isEqualTo("./");
+        assertThat(AWToolsFileUtils.pathToRoot(65)).isEqualTo(
+            AWToolsFileUtils.pathToRoot(64) + "../");
+        assertThat(AWToolsFileUtils.pathToRoot(65).length()).isEqualTo(
+            2 + 65 * 3);
     }
 
     @Test
@@ -0,0 +1,121 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.file;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.awtools.basic.io.AWToolsIOUtils;
+
+/**
+ * Testet die Klasse {@link DirectoryCreator}.
+ * 
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public class DirectoryCreatorTest {
+
+    private File tempDir;
+
+    @Before
+    public void setUp() throws IOException {
+        tempDir = AWToolsIOUtils.createTempDir();
+    }
+
+    @After
+    public void tearDown() {
+        AWToolsIOUtils.recursiveDelete(tempDir);
+    }
+
+    @Test
+    public void testCreateParentDirectories() throws IOException {
+        DirectoryCreator creator = new DirectoryCreator(tempDir.toPath());
+        Path dir = creator.createParentDirectories("test/winkler/arbeit/a.txt");
+
+        assertThat(Files.isDirectory(dir)).isTrue();
+        assertThat(dir).isEqualTo(tempDir.toPath().resolve("test/winkler/arbeit"));
+        assertThat(creator.isKnown("test/winkler/arbeit")).isTrue();
+        assertThat(creator.isKnown("test/winkler")).isTrue();
+        assertThat(creator.isKnown("test")).isTrue();
+        assertThat(creator.isKnown("other")).isFalse();
+        assertThat(new File(tempDir, "test/winkler/arbeit/a.txt")).doesNotExist();
+    }
+
+    @Test
+    public void testCreateParentDirectoriesBatch() throws IOException {
+        DirectoryCreator creator = new DirectoryCreator(tempDir.toPath());
+        List<String> names =
+                Arrays.asList("a/b/c/1.txt", "a/b/c/2.txt", "a\\b\\3.txt",
+                    "a/4.txt", "5.txt", "d/e/6.txt");
+
+        // Nur 'a/b/c' und 'd/e' müssen angelegt werden.
+        assertThat(creator.createParentDirectories(names)).isEqualTo(2);
+        assertThat(new File(tempDir, "a/b/c")).isDirectory();
+        assertThat(new File(tempDir, "d/e")).isDirectory();
+
+        assertThat(creator.createParentDirectories(names)).isEqualTo(0);
+    }
+
+    @Test
+    public void testCreateParentDirectoriesConcurrent() throws Exception {
+        final DirectoryCreator creator =
+                new DirectoryCreator(tempDir.toPath());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Path>> futures = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                final String name = "x/" + (i % 10) + "/y/" + i + ".txt";
+                futures.add(executor.submit(new Callable<Path>() {
+                    @Override
+                    public Path call() throws Exception {
+                        return creator.createParentDirectories(name);
+                    }
+                }));
+            }
+            for (Future<Path> future : futures) {
+                assertThat(Files.isDirectory(future.get())).isTrue();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
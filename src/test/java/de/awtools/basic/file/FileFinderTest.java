@@ -0,0 +1,178 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.file;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.awtools.basic.io.AWToolsIOUtils;
+
+/**
+ * Testet die Klasse {@link FileFinder}.
+ * 
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public class FileFinderTest {
+
+    private File tempDir;
+
+    private Path root;
+
+    @Before
+    public void setUp() throws IOException {
+        tempDir = AWToolsIOUtils.createTempDir();
+        root = tempDir.toPath();
+
+        createFile("index.html");
+        createFile("logo.png");
+        createFile("a/index.html");
+        createFile("a/b/index.html");
+        createFile("a/b/c/icon.png");
+        createFile("d/readme.txt");
+    }
+
+    @After
+    public void tearDown() {
+        AWToolsIOUtils.recursiveDelete(tempDir);
+    }
+
+    @Test
+    public void testFindAll() {
+        FileFinder finder = new FileFinder(root);
+        assertThat(finder.find()).hasSize(6);
+    }
+
+    @Test
+    public void testFindGlob() {
+        FileFinder finder = new FileFinder(root);
+        finder.setGlob("**/*.html");
+        assertThat(toStrings(finder.find())).containsOnly("a/index.html",
+            "a/b/index.html");
+
+        finder.setGlob("{*.png,**/*.png}");
+        assertThat(toStrings(finder.find())).containsOnly("logo.png",
+            "a/b/c/icon.png");
+    }
+
+    @Test
+    public void testFindRegexAndMatcher() {
+        FileFinder finder = new FileFinder(root);
+        finder.setRegex(".*\\.txt");
+        assertThat(toStrings(finder.find())).containsOnly("d/readme.txt");
+
+        finder.setMatcher(path -> path.getFileName().toString().startsWith("i"));
+        assertThat(finder.find()).hasSize(4);
+    }
+
+    @Test
+    public void testFindMaxDepth() {
+        FileFinder finder = new FileFinder(root);
+        finder.setMaxDepth(1);
+        assertThat(toStrings(finder.find())).containsOnly("index.html",
+            "logo.png");
+
+        finder.setMaxDepth(2);
+        finder.setIncludeDirectories(true);
+        assertThat(toStrings(finder.find())).containsOnly("index.html",
+            "logo.png", "a", "d", "a/index.html", "a/b", "d/readme.txt");
+    }
+
+    @Test
+    public void testFindLimit() {
+        FileFinder finder = new FileFinder(root);
+        finder.setLimit(2);
+        assertThat(finder.find()).hasSize(2);
+    }
+
+    @Test
+    public void testFindEarlyClose() {
+        FileFinder finder = new FileFinder(root);
+        finder.setQueueCapacity(1);
+        try (Stream<Path> paths = finder.stream()) {
+            Iterator<Path> iterator = paths.iterator();
+            assertThat(iterator.hasNext()).isTrue();
+            iterator.next();
+        }
+    }
+
+    @Test
+    public void testFindAbandoned() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            createFile("e/" + i + ".txt");
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            FileFinder finder = new FileFinder(root);
+            finder.setPool(pool);
+            finder.setQueueCapacity(1);
+
+            // Der Stream wird weder vollständig gelesen noch geschlossen.
+            assertThat(finder.stream().findFirst().isPresent()).isTrue();
+
+            long timeout = System.currentTimeMillis() + 10000;
+            while (!pool.isQuiescent()
+                && System.currentTimeMillis() < timeout) {
+
+                System.gc();
+                Thread.sleep(50);
+            }
+            assertThat(pool.isQuiescent()).isTrue();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void createFile(final String name) throws IOException {
+        Path file = root.resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.createFile(file);
+    }
+
+    private List<String> toStrings(final List<Path> paths) {
+        List<String> strings = new ArrayList<>();
+        for (Path path : paths) {
+            strings.add(root.relativize(path).toString().replace(
+                File.separatorChar, '/'));
+        }
+        return strings;
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.file;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Vergleicht {@link AWToolsFileUtils#normalizePath(String)} mit der alten
+ * Implementierung über <code>StringUtils#replace()</code>. Start über die
+ * <code>main</code> Methode.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NormalizePathBenchmark {
+
+    @Param({ "test/winkler/arbeit/test.txt",
+            "C:\\test\\andre\\./web/WEB-INF//classes\\index.html",
+            "/home/awinkler2/site/2015/01/13/index.html" })
+    public String path;
+
+    @Benchmark
+    public String normalizePath() {
+        return AWToolsFileUtils.normalizePath(path);
+    }
+
+    @Benchmark
+    public String normalizePathLegacy() {
+        return legacyNormalizePath(path);
+    }
+
+    /**
+     * Die alte Implementierung von
+     * {@link AWToolsFileUtils#normalizePath(String)}.
+     *
+     * @param fileName Der zu normalisierende Dateiname.
+     * @return Der normalisierte Dateiname.
+     */
+    static String legacyNormalizePath(final String fileName) {
+        String newFileName = StringUtils.replace(fileName, "\\", "/");
+        newFileName = StringUtils.replace(newFileName, "//", "/");
+        newFileName = StringUtils.replace(newFileName, "///", "/");
+        newFileName = StringUtils.replace(newFileName, "/./", "/");
+
+        if (newFileName.startsWith("./")) {
+            newFileName = StringUtils.replace(newFileName, ".", "", 1);
+        }
+
+        if (AWToolsFileUtils.WINDOWS_ROOT_PATTERN.matcher(newFileName).find()) {
+            newFileName = newFileName.substring(2);
+        }
+
+        if (!newFileName.startsWith("/")) {
+            newFileName = "/" + newFileName;
+        }
+
+        if (newFileName.endsWith("/")) {
+            newFileName = StringUtils.removeEnd(newFileName, "/");
+        }
+
+        return newFileName;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options =
+                new OptionsBuilder().include(
+                    NormalizePathBenchmark.class.getSimpleName()).build();
+        new Runner(options).run();
+    }
+
+}
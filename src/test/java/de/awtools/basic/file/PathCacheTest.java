@@ -0,0 +1,91 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.file;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import org.junit.Test;
+
+/**
+ * Testet die Klasse {@link PathCache}.
+ * 
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public class PathCacheTest {
+
+    @Test
+    public void testPathCache() {
+        PathCache cache = new PathCache(100);
+        assertThat(cache.pathToRoot("test/winkler/andre.txt")).isEqualTo(
+            "./../../");
+        assertThat(cache.normalizePath("test/winkler/andre.txt")).isEqualTo(
+            "/test/winkler/andre.txt");
+        assertThat(cache.countDirLevel("test/winkler/andre.txt")).isEqualTo(2);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+        assertThat(cache.getHitCount()).isEqualTo(2);
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.getPathSlice("test/winkler/andre.txt")).isSameAs(
+            cache.getPathSlice("test/winkler/andre.txt"));
+    }
+
+    @Test
+    public void testPathCacheEviction() {
+        PathCache cache = new PathCache(4, 1);
+        for (int i = 0; i < 10; i++) {
+            cache.getPathSlice("test/" + i + ".txt");
+        }
+        assertThat(cache.size()).isEqualTo(4);
+        assertThat(cache.getEvictionCount()).isEqualTo(6);
+
+        // LRU: Der Zugriff auf 6 verhindert dessen Verdrängung.
+        cache.getPathSlice("test/6.txt");
+        cache.getPathSlice("test/10.txt");
+        cache.getPathSlice("test/6.txt");
+        assertThat(cache.getHitCount()).isEqualTo(2);
+
+        cache.clear();
+        assertThat(cache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testPathCacheMaximumSize() {
+        // 17 Einträge auf 16 Segmente: Insgesamt nie mehr als 17.
+        PathCache cache = new PathCache(17, 16);
+        for (int i = 0; i < 1000; i++) {
+            cache.getPathSlice("test/" + i + ".txt");
+            assertThat(cache.size()).isLessThanOrEqualTo(17);
+        }
+
+        cache = new PathCache(3, 16);
+        for (int i = 0; i < 100; i++) {
+            cache.getPathSlice("test/" + i + ".txt");
+        }
+        assertThat(cache.size()).isLessThanOrEqualTo(3);
+        assertThat(cache.size()).isGreaterThan(0);
+    }
+
+}
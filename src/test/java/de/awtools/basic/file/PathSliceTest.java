@@ -0,0 +1,88 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.file;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import org.junit.Test;
+
+/**
+ * Testet die Klasse {@link PathSlice}.
+ * 
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public class PathSliceTest {
+
+    @Test
+    public void testPathSlice() {
+        PathSlice slice = PathSlice.of("C:\\temp\\ab/./db//text.txt");
+        assertThat(slice.toString()).isEqualTo("/temp/ab/db/text.txt");
+        assertThat(slice.getSegmentCount()).isEqualTo(4);
+        assertThat(slice.getDirLevel()).isEqualTo(3);
+        assertThat(slice.getName().toString()).isEqualTo("text.txt");
+        assertThat(slice.getSegment(0).toString()).isEqualTo("temp");
+        assertThat(slice.getSegment(2).toString()).isEqualTo("db");
+        assertThat(slice.getPathToRoot()).isEqualTo("./../../../");
+        assertThat(slice.isRoot()).isFalse();
+    }
+
+    @Test
+    public void testPathSliceParent() {
+        PathSlice slice = PathSlice.of("temp/ab/text.txt");
+        PathSlice parent = slice.getParent();
+        assertThat(parent.toString()).isEqualTo("/temp/ab");
+        assertThat(parent.getName().toString()).isEqualTo("ab");
+        assertThat(parent.getParent().toString()).isEqualTo("/temp");
+        assertThat(parent.getParent().getParent().toString()).isEqualTo("");
+        assertThat(parent.getParent().getParent().isRoot()).isTrue();
+        assertThat(parent).isEqualTo(PathSlice.of("/temp/ab/"));
+        assertThat(parent.hashCode()).isEqualTo(
+            PathSlice.of("/temp/ab/").hashCode());
+    }
+
+    @Test
+    public void testPathSliceRoot() {
+        PathSlice root = PathSlice.of("/");
+        assertThat(root.toString()).isEqualTo("");
+        assertThat(root.getParent()).isSameAs(root);
+        assertThat(root.getName().toString()).isEqualTo("");
+        assertThat(root.getDirLevel()).isEqualTo(-1);
+        assertThat(root.getPathToRoot()).isEqualTo("./");
+    }
+
+    @Test
+    public void testPathSliceCharSequence() {
+        PathSlice slice = PathSlice.of("temp/text.txt");
+        assertThat(slice.length()).isEqualTo(14);
+        assertThat(slice.charAt(0)).isEqualTo('/');
+        assertThat(slice.subSequence(6, 14).toString()).isEqualTo(
+            "text.txt");
+        assertThat(slice.getName().subSequence(0, 4).toString()).isEqualTo(
+            "text");
+    }
+
+}
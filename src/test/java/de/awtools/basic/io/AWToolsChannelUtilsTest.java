@@ -0,0 +1,224 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.io;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Testet die Klasse {@link AWToolsChannelUtils}.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public class AWToolsChannelUtilsTest {
+
+    private File tempDir;
+
+    private byte[] data;
+
+    private Path source;
+
+    @Before
+    public void setUp() throws IOException {
+        tempDir = AWToolsIOUtils.createTempDir();
+        data = new byte[200 * 1024 + 17];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i % 251);
+        }
+        source = tempDir.toPath().resolve("source.bin");
+        Files.write(source, data);
+    }
+
+    @After
+    public void tearDown() {
+        AWToolsIOUtils.recursiveDelete(tempDir);
+    }
+
+    @Test
+    public void testCopyFile() throws Exception {
+        Path target = tempDir.toPath().resolve("target.bin");
+        Files.write(target, new byte[300 * 1024]);
+
+        assertThat(AWToolsChannelUtils.copyFile(source, target)).isEqualTo(
+            data.length);
+        assertThat(Arrays.equals(Files.readAllBytes(target), data)).isTrue();
+    }
+
+    @Test
+    public void testCopyFileToItself() throws Exception {
+        Path link = tempDir.toPath().resolve("link.bin");
+        Files.createLink(link, source);
+        for (Path target : new Path[] { source, link }) {
+            try {
+                AWToolsChannelUtils.copyFile(source, target);
+                fail("IOException erwartet!");
+            } catch (IOException ex) {
+                assertThat(Arrays.equals(Files.readAllBytes(source), data))
+                    .isTrue();
+            }
+        }
+    }
+
+    @Test
+    public void testTransferToChannel() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThat(
+            AWToolsChannelUtils.transferTo(source, Channels.newChannel(out)))
+            .isEqualTo(data.length);
+        assertThat(Arrays.equals(out.toByteArray(), data)).isTrue();
+    }
+
+    @Test
+    public void testTransferToRange() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (FileChannel in = FileChannel.open(source)) {
+            assertThat(
+                AWToolsChannelUtils.transferTo(in, 10, 100,
+                    Channels.newChannel(out))).isEqualTo(100);
+            assertThat(in.position()).isEqualTo(0);
+        }
+        assertThat(
+            Arrays.equals(out.toByteArray(), Arrays.copyOfRange(data, 10, 110)))
+            .isTrue();
+    }
+
+    @Test
+    public void testTransferFrom() throws Exception {
+        Path target = tempDir.toPath().resolve("target.bin");
+        try (FileChannel out =
+                FileChannel.open(target, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE)) {
+
+            out.write(ByteBuffer.wrap(new byte[] { 9, 9 }));
+            long count =
+                    AWToolsChannelUtils.transferFrom(
+                        Channels.newChannel(new ByteArrayInputStream(data)),
+                        out, Long.MAX_VALUE);
+            assertThat(count).isEqualTo(data.length);
+            assertThat(out.position()).isEqualTo(data.length + 2);
+        }
+        byte[] result = Files.readAllBytes(target);
+        assertThat(result.length).isEqualTo(data.length + 2);
+        assertThat(
+            Arrays.equals(Arrays.copyOfRange(result, 2, result.length), data))
+            .isTrue();
+    }
+
+    @Test
+    public void testCopyStream() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThat(
+            AWToolsChannelUtils.copy(new ByteArrayInputStream(data),
+                Channels.newChannel(out))).isEqualTo(data.length);
+        assertThat(Arrays.equals(out.toByteArray(), data)).isTrue();
+        assertThat(DirectBufferPool.SHARED.getPooledCount()).isGreaterThan(0);
+    }
+
+    @Test
+    public void testCopyFileInputStream() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (FileInputStream in = new FileInputStream(source.toFile())) {
+            assertThat(in.skip(7)).isEqualTo(7);
+            assertThat(AWToolsChannelUtils.copy(in, Channels.newChannel(out)))
+                .isEqualTo(data.length - 7);
+            assertThat(in.read()).isEqualTo(-1);
+        }
+        assertThat(
+            Arrays.equals(out.toByteArray(),
+                Arrays.copyOfRange(data, 7, data.length))).isTrue();
+    }
+
+    @Test
+    public void testCopyFifo() throws Exception {
+        final Path fifo = tempDir.toPath().resolve("fifo");
+        try {
+            if (new ProcessBuilder("mkfifo", fifo.toString()).start()
+                .waitFor() != 0) {
+                return;
+            }
+        } catch (IOException ex) {
+            // Kein mkfifo, z.B. unter Windows.
+            return;
+        }
+
+        Thread writer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Files.write(fifo, data);
+                } catch (IOException ex) {
+                    throw new RuntimeException(ex);
+                }
+            }
+        };
+        writer.start();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (FileInputStream in = new FileInputStream(fifo.toFile())) {
+            assertThat(AWToolsChannelUtils.copy(in, Channels.newChannel(out)))
+                .isEqualTo(data.length);
+        }
+        writer.join();
+        assertThat(Arrays.equals(out.toByteArray(), data)).isTrue();
+    }
+
+    @Test
+    public void testMap() throws Exception {
+        List<MappedByteBuffer> slices = AWToolsChannelUtils.map(source, 65536);
+        assertThat(slices).hasSize(4);
+
+        byte[] result = new byte[data.length];
+        int pos = 0;
+        for (MappedByteBuffer slice : slices) {
+            int length = slice.remaining();
+            slice.get(result, pos, length);
+            pos += length;
+        }
+        assertThat(pos).isEqualTo(data.length);
+        assertThat(Arrays.equals(result, data)).isTrue();
+    }
+
+}
@@ -0,0 +1,167 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.io;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Testet die Klasse {@link CharSequenceInputStream}.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public class CharSequenceInputStreamTest {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+    @Test
+    public void testReadUtf8() throws Exception {
+        String text = createText();
+        InputStream is = new CharSequenceInputStream(text, UTF8, 16);
+        assertThat(Arrays.equals(readAll(is), text.getBytes(UTF8))).isTrue();
+        assertThat(is.read()).isEqualTo(-1);
+    }
+
+    @Test
+    public void testReadSingleBytes() throws Exception {
+        String text = "Grüße 😀 aus Köln";
+        InputStream is = new CharSequenceInputStream(text, UTF8, 8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int b;
+        while ((b = is.read()) != -1) {
+            out.write(b);
+        }
+        assertThat(Arrays.equals(out.toByteArray(), text.getBytes(UTF8)))
+            .isTrue();
+    }
+
+    @Test
+    public void testUnmappableCharacter() throws Exception {
+        String text = "Preis: 5€";
+        InputStream is = new CharSequenceInputStream(text, ISO_8859_1);
+        assertThat(Arrays.equals(readAll(is), text.getBytes(ISO_8859_1)))
+            .isTrue();
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        InputStream is = new CharSequenceInputStream("", UTF8);
+        assertThat(is.read()).isEqualTo(-1);
+        assertThat(is.read(new byte[10], 0, 10)).isEqualTo(-1);
+    }
+
+    @Test
+    public void testMarkAndReset() throws Exception {
+        String text = createText();
+        byte[] expected = text.getBytes(UTF8);
+        InputStream is = new CharSequenceInputStream(text, UTF8, 16);
+        assertThat(is.markSupported()).isTrue();
+
+        byte[] head = new byte[37];
+        assertThat(is.read(head, 0, head.length)).isEqualTo(head.length);
+        is.mark(0);
+
+        byte[] first = new byte[100];
+        assertThat(is.read(first, 0, first.length)).isEqualTo(first.length);
+        is.reset();
+        byte[] second = new byte[100];
+        assertThat(is.read(second, 0, second.length)).isEqualTo(
+            second.length);
+
+        assertThat(Arrays.equals(first, second)).isTrue();
+        assertThat(
+            Arrays.equals(first, Arrays.copyOfRange(expected, 37, 137)))
+            .isTrue();
+    }
+
+    @Test
+    public void testSkip() throws Exception {
+        String text = createText();
+        byte[] expected = text.getBytes(UTF8);
+        InputStream is = new CharSequenceInputStream(text, UTF8, 16);
+        assertThat(is.skip(50)).isEqualTo(50);
+        assertThat(is.read()).isEqualTo(expected[50] & 0xFF);
+        assertThat(is.skip(Long.MAX_VALUE)).isEqualTo(expected.length - 51);
+    }
+
+    @Test(expected = IOException.class)
+    public void testResetWithoutMark() throws Exception {
+        new CharSequenceInputStream("abc", UTF8).reset();
+    }
+
+    @Test
+    public void testStringToInputStream() throws Exception {
+        StringBuilder text = new StringBuilder("Äpfel und Birnen");
+        InputStream is = AWToolsIOUtils.stringToInputStream(text, UTF8);
+        assertThat(
+            Arrays.equals(readAll(is), text.toString().getBytes(UTF8)))
+            .isTrue();
+    }
+
+    @Test
+    public void testStringToInputStreamAvailable() throws Exception {
+        String text = createText();
+        InputStream is = AWToolsIOUtils.stringToInputStream(text);
+        byte[] buffer = new byte[is.available()];
+        assertThat(is.read(buffer)).isEqualTo(buffer.length);
+        assertThat(Arrays.equals(buffer, text.getBytes())).isTrue();
+
+        // Die Zeichenkette wird erst beim Lesen kodiert.
+        is = AWToolsIOUtils.stringToInputStream(new StringBuilder(text), UTF8);
+        assertThat(is.available()).isEqualTo(0);
+        assertThat(is.read()).isEqualTo('Z');
+        assertThat(is.available()).isGreaterThan(0);
+    }
+
+    private static String createText() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            sb.append("Zeile ").append(i).append(": äöü ß € 😀\n");
+        }
+        return sb.toString();
+    }
+
+    private static byte[] readAll(final InputStream is) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[7];
+        int n;
+        while ((n = is.read(buffer, 0, buffer.length)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+}
@@ -0,0 +1,177 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.io;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.mockftpserver.fake.FakeFtpServer;
+import org.mockftpserver.fake.UserAccount;
+import org.mockftpserver.fake.filesystem.DirectoryEntry;
+import org.mockftpserver.fake.filesystem.UnixFakeFileSystem;
+
+/**
+ * Testet die Klasse {@link FTPAsyncWrapper}.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public class FTPAsyncWrapperTest {
+
+    @Test
+    public void testOperationsAreSerialized() throws Exception {
+        FTPAsyncWrapper ftp = new FTPAsyncWrapper();
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final List<Integer> order = new ArrayList<>();
+
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            final int index = i;
+            futures.add(ftp.submit(new FTPAsyncWrapper.FTPOperation<Integer>() {
+                @Override
+                public Integer execute(final FTPWrapper wrapper) {
+                    int current = running.incrementAndGet();
+                    maxRunning.set(Math.max(maxRunning.get(), current));
+                    Thread.yield();
+                    order.add(index);
+                    running.decrementAndGet();
+                    return index;
+                }
+            }));
+        }
+
+        for (int i = 0; i < 50; i++) {
+            assertThat(futures.get(i).get(10, TimeUnit.SECONDS)).isEqualTo(i);
+        }
+        assertThat(maxRunning.get()).isEqualTo(1);
+        for (int i = 0; i < 50; i++) {
+            assertThat(order.get(i)).isEqualTo(i);
+        }
+    }
+
+    @Test
+    public void testFailureDoesNotBlockQueue() throws Exception {
+        FTPAsyncWrapper ftp = new FTPAsyncWrapper();
+        CompletableFuture<Void> failed =
+                ftp.submit(new FTPAsyncWrapper.FTPOperation<Void>() {
+                    @Override
+                    public Void execute(final FTPWrapper wrapper)
+                        throws IOException {
+
+                        throw new IOException("Test");
+                    }
+                });
+        CompletableFuture<String> next =
+                ftp.submit(new FTPAsyncWrapper.FTPOperation<String>() {
+                    @Override
+                    public String execute(final FTPWrapper wrapper) {
+                        return "ok";
+                    }
+                });
+
+        assertThat(next.get(10, TimeUnit.SECONDS)).isEqualTo("ok");
+        try {
+            failed.get();
+            fail("Expected an ExecutionException.");
+        } catch (ExecutionException ex) {
+            assertThat(ex.getCause()).isInstanceOf(IOException.class);
+        }
+    }
+
+    @Test
+    public void testConnectionsRunInParallel() throws Exception {
+        final CyclicBarrier barrier = new CyclicBarrier(3);
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(new FTPAsyncWrapper()
+                .submit(new FTPAsyncWrapper.FTPOperation<Integer>() {
+                    @Override
+                    public Integer execute(final FTPWrapper wrapper)
+                        throws IOException {
+
+                        try {
+                            // Nur erreichbar, wenn alle drei gleichzeitig
+                            // laufen.
+                            return barrier.await(10, TimeUnit.SECONDS);
+                        } catch (Exception ex) {
+                            throw new IOException(ex);
+                        }
+                    }
+                }));
+        }
+        for (CompletableFuture<Integer> future : futures) {
+            assertThat(future.get(20, TimeUnit.SECONDS)).isNotNull();
+        }
+    }
+
+    @Test
+    public void testUploadAndList() throws Exception {
+        UnixFakeFileSystem fileSystem = new UnixFakeFileSystem();
+        fileSystem.add(new DirectoryEntry("/data"));
+        FakeFtpServer server = new FakeFtpServer();
+        server.setServerControlPort(0);
+        server.addUserAccount(new UserAccount("user", "password", "/data"));
+        server.setFileSystem(fileSystem);
+        server.start();
+
+        File tempDir = AWToolsIOUtils.createTempDir();
+        try {
+            File file = new File(tempDir, "test.txt");
+            Files.write(file.toPath(), "Inhalt".getBytes("UTF-8"));
+
+            FTPAsyncWrapper ftp = new FTPAsyncWrapper();
+            ftp.connect(new FTPAccount("localhost",
+                server.getServerControlPort(), "user", "password"));
+            ftp.makeDirectories("/data", "sub");
+            CompletableFuture<Boolean> upload =
+                    ftp.uploadFile(file.getPath(), "/data/sub/test.txt");
+            CompletableFuture<List<FTPEntry>> list =
+                    ftp.listEntries("/data/sub");
+            ftp.close();
+
+            assertThat(upload.get(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(list.get(10, TimeUnit.SECONDS)).hasSize(1);
+            assertThat(list.get().get(0).getName()).isEqualTo("test.txt");
+        } finally {
+            server.stop();
+            AWToolsIOUtils.recursiveDelete(tempDir);
+        }
+    }
+
+}
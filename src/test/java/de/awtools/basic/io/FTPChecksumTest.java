@@ -0,0 +1,116 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.io;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+/**
+ * Testet die Klasse {@link FTPChecksum}.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public class FTPChecksumTest {
+
+    private static final byte[] CHECK =
+            "123456789".getBytes(StandardCharsets.US_ASCII);
+
+    @Test
+    public void testCrc32() {
+        FTPChecksum checksum = new FTPChecksum(FTPChecksum.Algorithm.CRC32);
+        checksum.update(CHECK, 0, CHECK.length);
+        assertThat(checksum.getValue()).isEqualTo("cbf43926");
+        assertThat(checksum.getBytes()).isEqualTo(9);
+        assertThat(checksum.matches("CBF43926")).isTrue();
+        assertThat(checksum.matches("0xcbf43926")).isTrue();
+        assertThat(checksum.matches("cbf43927")).isFalse();
+        assertThat(checksum.matches("no checksum")).isFalse();
+        assertThat(checksum.matches(null)).isFalse();
+    }
+
+    @Test
+    public void testCrc32WithoutLeadingZeros() {
+        FTPChecksum checksum = new FTPChecksum(FTPChecksum.Algorithm.CRC32);
+        byte[] data = "a".getBytes(StandardCharsets.US_ASCII);
+        checksum.update(data, 0, data.length);
+        assertThat(checksum.getValue()).isEqualTo("e8b7be43");
+
+        checksum = new FTPChecksum(FTPChecksum.Algorithm.CRC32);
+        assertThat(checksum.getValue()).isEqualTo("00000000");
+        assertThat(checksum.matches("0")).isTrue();
+    }
+
+    @Test
+    public void testSha256() {
+        FTPChecksum checksum =
+                new FTPChecksum(FTPChecksum.Algorithm.SHA_256);
+        byte[] data = "abc".getBytes(StandardCharsets.US_ASCII);
+        checksum.update(data, 0, data.length);
+        String expected = "ba7816bf8f01cfea414140de5dae2223"
+            + "b00361a396177a9cb410ff61f20015ad";
+        assertThat(checksum.getValue()).isEqualTo(expected);
+        assertThat(checksum.matches(expected.toUpperCase())).isTrue();
+        assertThat(checksum.toString()).isEqualTo("SHA-256:" + expected);
+    }
+
+    @Test
+    public void testWrapStreams() throws Exception {
+        FTPChecksum read = new FTPChecksum(FTPChecksum.Algorithm.CRC32);
+        ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        try (InputStream in = read.wrap(new ByteArrayInputStream(CHECK))) {
+            assertThat(in.read()).isEqualTo('1');
+            IOUtils.copy(in, copy);
+        }
+        assertThat(read.getValue()).isEqualTo("cbf43926");
+        assertThat(copy.size()).isEqualTo(8);
+
+        FTPChecksum write = new FTPChecksum(FTPChecksum.Algorithm.CRC32);
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        try (OutputStream out = write.wrap(target)) {
+            out.write(CHECK[0]);
+            out.write(CHECK, 1, CHECK.length - 1);
+        }
+        assertThat(write.getValue()).isEqualTo("cbf43926");
+        assertThat(target.toByteArray()).isEqualTo(CHECK);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUpdateAfterGetValue() {
+        FTPChecksum checksum = new FTPChecksum(FTPChecksum.Algorithm.CRC32);
+        checksum.getValue();
+        checksum.update(CHECK, 0, 1);
+    }
+
+}
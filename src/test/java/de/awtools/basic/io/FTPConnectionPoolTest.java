@@ -0,0 +1,201 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.io;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockftpserver.fake.FakeFtpServer;
+import org.mockftpserver.fake.UserAccount;
+import org.mockftpserver.fake.filesystem.DirectoryEntry;
+import org.mockftpserver.fake.filesystem.UnixFakeFileSystem;
+
+/**
+ * Testet die Klasse {@link FTPConnectionPool} gegen einen lokalen
+ * {@link FakeFtpServer}.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public class FTPConnectionPoolTest {
+
+    private FakeFtpServer server;
+
+    private FTPAccount account;
+
+    private FTPConnectionPool pool;
+
+    @Before
+    public void setUp() {
+        UnixFakeFileSystem fileSystem = new UnixFakeFileSystem();
+        fileSystem.add(new DirectoryEntry("/data"));
+        fileSystem.add(new DirectoryEntry("/data/sub"));
+
+        server = new FakeFtpServer();
+        server.setServerControlPort(0);
+        server.addUserAccount(new UserAccount("user", "password", "/data"));
+        server.setFileSystem(fileSystem);
+        server.start();
+
+        account =
+                new FTPAccount("localhost", server.getServerControlPort(),
+                    "user", "password");
+        pool = new FTPConnectionPool();
+    }
+
+    @After
+    public void tearDown() {
+        pool.close();
+        server.stop();
+    }
+
+    @Test
+    public void testBorrowAndRelease() throws Exception {
+        FTPWrapper ftp = pool.borrow(account);
+        assertThat(ftp.isConnected()).isTrue();
+        assertThat(pool.getActiveCount(account)).isEqualTo(1);
+
+        pool.release(ftp);
+        assertThat(pool.getActiveCount(account)).isEqualTo(0);
+        assertThat(pool.getIdleCount(account)).isEqualTo(1);
+
+        // Die Verbindung wird wiederverwendet.
+        assertThat(pool.borrow(account)).isSameAs(ftp);
+        pool.release(ftp);
+    }
+
+    @Test
+    public void testReleaseResetsSession() throws Exception {
+        FTPWrapper ftp = pool.borrow(account);
+        assertThat(ftp.changeWorkingDirectory("sub")).isTrue();
+        assertThat(ftp.binary()).isTrue();
+        ftp.setPassiveMode(true);
+        pool.release(ftp);
+
+        // Der nächste Benutzer startet im Verzeichnis nach dem Login.
+        assertThat(pool.borrow(account)).isSameAs(ftp);
+        assertThat(ftp.printWorkingDirectory()).isEqualTo("/data");
+
+        // Das Verzeichnis nach dem Login steht schon fest: Kein PWD vor CWD.
+        final AtomicInteger replies = new AtomicInteger();
+        ftp.setListener(new FTPListener() {
+            @Override
+            public void replyReceived(final String host, final int replyCode) {
+                replies.incrementAndGet();
+            }
+        });
+        assertThat(ftp.changeWorkingDirectory("sub")).isTrue();
+        assertThat(replies.get()).isEqualTo(1);
+        assertThat(ftp.resetSession()).isTrue();
+        assertThat(ftp.printWorkingDirectory()).isEqualTo("/data");
+        pool.release(ftp);
+    }
+
+    @Test
+    public void testBorrowTimeout() throws Exception {
+        pool.setMaxTotal(1);
+        pool.setBorrowTimeout(100);
+
+        FTPWrapper ftp = pool.borrow(account);
+        try {
+            pool.borrow(account);
+            throw new AssertionError("IOException expected.");
+        } catch (IOException ex) {
+            assertThat(ex.getMessage()).contains("No FTP connection");
+        }
+        pool.release(ftp);
+        assertThat(pool.borrow(account)).isSameAs(ftp);
+    }
+
+    @Test
+    public void testBrokenConnectionIsDiscarded() throws Exception {
+        FTPWrapper ftp = pool.borrow(account);
+        ftp.close();
+        pool.release(ftp);
+
+        assertThat(pool.getIdleCount(account)).isEqualTo(0);
+        FTPWrapper other = pool.borrow(account);
+        assertThat(other).isNotSameAs(ftp);
+        pool.release(other);
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+        FTPWrapper ftp = pool.borrow(account);
+        pool.invalidate(ftp);
+
+        assertThat(ftp.isConnected()).isFalse();
+        assertThat(pool.getIdleCount(account)).isEqualTo(0);
+        assertThat(pool.getActiveCount(account)).isEqualTo(0);
+    }
+
+    @Test
+    public void testMaxIdle() throws Exception {
+        pool.setMaxIdle(1);
+        FTPWrapper ftp1 = pool.borrow(account);
+        FTPWrapper ftp2 = pool.borrow(account);
+        pool.release(ftp1);
+        pool.release(ftp2);
+
+        assertThat(pool.getIdleCount(account)).isEqualTo(1);
+        assertThat(ftp2.isConnected()).isFalse();
+    }
+
+    @Test
+    public void testEvictAndMinIdle() throws Exception {
+        pool.setIdleTimeout(0);
+        pool.setMinIdle(1);
+        FTPWrapper ftp1 = pool.borrow(account);
+        FTPWrapper ftp2 = pool.borrow(account);
+        pool.release(ftp1);
+        pool.release(ftp2);
+        Thread.sleep(5);
+
+        pool.evict();
+        assertThat(pool.getIdleCount(account)).isEqualTo(1);
+
+        pool.setMinIdle(2);
+        pool.evict();
+        assertThat(pool.getIdleCount(account)).isEqualTo(2);
+    }
+
+    @Test(expected = IOException.class)
+    public void testLoginFailed() throws Exception {
+        pool.borrow(new FTPAccount("localhost", server.getServerControlPort(),
+            "user", "wrong"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReleaseForeignConnection() {
+        pool.release(new FTPWrapper());
+    }
+
+}
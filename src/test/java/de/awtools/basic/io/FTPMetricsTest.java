@@ -0,0 +1,162 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.io;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+/**
+ * Testet die Klasse {@link FTPMetrics}.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public class FTPMetricsTest {
+
+    private static final long MILLIS = 1000000L;
+
+    @Test
+    public void testCounters() {
+        FTPMetrics metrics = new FTPMetrics();
+        metrics.connected("ftp.example.com", 20 * MILLIS, true);
+        metrics.connected("ftp.example.com", 3 * MILLIS, false);
+        metrics.transferred("ftp.example.com", true, "/a.txt", 1000000,
+            500 * MILLIS, true);
+        metrics.transferred("ftp.example.com", false, "/b.txt", 300,
+            2 * MILLIS, true);
+        metrics.transferred("ftp.example.com", false, "/c.txt", 0, MILLIS,
+            false);
+        metrics.replyReceived("ftp.example.com", 226);
+        metrics.replyReceived("ftp.example.com", 226);
+        metrics.replyReceived("ftp.example.com", 550);
+        metrics.retried("ftp.example.com", "/c.txt", 2);
+
+        assertThat(metrics.getHostMetrics("other")).isNull();
+        FTPMetrics.HostMetrics host = metrics.getHostMetrics("ftp.example.com");
+        assertThat(host.getConnects()).isEqualTo(2);
+        assertThat(host.getConnectFailures()).isEqualTo(1);
+        assertThat(host.getUploads()).isEqualTo(1);
+        assertThat(host.getDownloads()).isEqualTo(2);
+        assertThat(host.getTransferFailures()).isEqualTo(1);
+        assertThat(host.getBytesUploaded()).isEqualTo(1000000);
+        assertThat(host.getBytesDownloaded()).isEqualTo(300);
+        assertThat(host.getRetries()).isEqualTo(1);
+        assertThat(host.getReplyCodes().get(226)).isEqualTo(2L);
+        assertThat(host.getReplyCodes().get(550)).isEqualTo(1L);
+
+        // Fehlgeschlagene Übertragungen zählen nicht zur Dauer.
+        assertThat(host.getTransferMillis().getCount()).isEqualTo(2);
+        assertThat(host.getTransferMillis().getSum()).isEqualTo(502);
+        assertThat(host.getThroughput().getCount()).isEqualTo(2);
+
+        // 1.000.000 Bytes in 0,5 Sekunden: 2 MB/s, also <= 10 MB/s.
+        long[] counts = host.getThroughput().getBucketCounts();
+        assertThat(counts[3]).isEqualTo(1);
+
+        metrics.reset();
+        assertThat(metrics.getHostMetrics()).isEmpty();
+    }
+
+    @Test
+    public void testHistogramBuckets() {
+        FTPMetrics metrics = new FTPMetrics();
+        metrics.connected("host", 0, true);
+        metrics.connected("host", MILLIS, true);
+        metrics.connected("host", 2 * MILLIS, true);
+        metrics.connected("host", 120000 * MILLIS, true);
+
+        FTPMetrics.Histogram histogram =
+                metrics.getHostMetrics("host").getConnectMillis();
+        long[] counts = histogram.getBucketCounts();
+        assertThat(counts.length).isEqualTo(histogram.getBounds().length + 1);
+        assertThat(counts[0]).isEqualTo(2);
+        assertThat(counts[1]).isEqualTo(1);
+        assertThat(counts[counts.length - 1]).isEqualTo(1);
+        assertThat(histogram.getCount()).isEqualTo(4);
+    }
+
+    @Test
+    public void testExport() {
+        FTPMetrics metrics = new FTPMetrics();
+        metrics.transferred("ftp.example.com", true, "/a.txt", 100,
+            30 * MILLIS, true);
+        metrics.replyReceived("ftp.example.com", 226);
+
+        String text = metrics.toString();
+        assertThat(text).contains("# TYPE ftp_bytes_total counter\n");
+        assertThat(text).contains(
+            "ftp_bytes_total{host=\"ftp.example.com\",direction=\"upload\"} 100\n");
+        assertThat(text).contains(
+            "ftp_replies_total{host=\"ftp.example.com\",code=\"226\"} 1\n");
+        assertThat(text).contains("ftp_transfer_duration_ms_bucket"
+            + "{host=\"ftp.example.com\",le=\"25\"} 0\n");
+        assertThat(text).contains("ftp_transfer_duration_ms_bucket"
+            + "{host=\"ftp.example.com\",le=\"50\"} 1\n");
+        assertThat(text).contains("ftp_transfer_duration_ms_bucket"
+            + "{host=\"ftp.example.com\",le=\"+Inf\"} 1\n");
+        assertThat(text).contains(
+            "ftp_transfer_duration_ms_count{host=\"ftp.example.com\"} 1\n");
+    }
+
+    @Test
+    public void testConcurrentUpdates() throws Exception {
+        final FTPMetrics metrics = new FTPMetrics();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int j = 0; j < 10000; j++) {
+                            metrics.transferred("host", true, "/a.txt", 10,
+                                MILLIS, true);
+                            metrics.replyReceived("host", 226);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        FTPMetrics.HostMetrics host = metrics.getHostMetrics("host");
+        assertThat(host.getUploads()).isEqualTo(80000);
+        assertThat(host.getBytesUploaded()).isEqualTo(800000);
+        assertThat(host.getReplyCodes().get(226)).isEqualTo(80000L);
+    }
+
+}
@@ -0,0 +1,207 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.io;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockftpserver.fake.FakeFtpServer;
+import org.mockftpserver.fake.UserAccount;
+import org.mockftpserver.fake.filesystem.DirectoryEntry;
+import org.mockftpserver.fake.filesystem.FileEntry;
+import org.mockftpserver.fake.filesystem.UnixFakeFileSystem;
+
+/**
+ * Testet die Klasse {@link FTPMirror}.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public class FTPMirrorTest {
+
+    private static final long NOW = 1400000000000L;
+
+    private FTPConnectionPool pool;
+
+    @Before
+    public void setUp() {
+        pool = new FTPConnectionPool();
+    }
+
+    @After
+    public void tearDown() {
+        pool.close();
+    }
+
+    private FTPMirror createMirror() {
+        return new FTPMirror(pool, new FTPAccount("localhost", "user",
+            "password"), Paths.get("/local"), "/www/");
+    }
+
+    private static FTPEntry file(final String name, final long size,
+        final long lastModified) {
+
+        return new FTPEntry(name, FTPEntry.Type.FILE, size, lastModified);
+    }
+
+    @Test
+    public void testCompare() {
+        Map<String, FTPEntry> local = new HashMap<>();
+        local.put("/new.txt", file("new.txt", 10, NOW));
+        local.put("/same.txt", file("same.txt", 10, NOW));
+        local.put("/size.txt", file("size.txt", 11, NOW));
+        local.put("/sub/newer.txt", file("newer.txt", 10, NOW + 120000));
+        local.put("/sub/minute.txt", file("minute.txt", 10, NOW + 30000));
+        Set<String> localDirs = new HashSet<>(Arrays.asList("/sub"));
+
+        Map<String, FTPEntry> remote = new HashMap<>();
+        remote.put("/same.txt", file("same.txt", 10, NOW));
+        remote.put("/size.txt", file("size.txt", 10, NOW));
+        remote.put("/sub/newer.txt", file("newer.txt", 10, NOW));
+        remote.put("/sub/minute.txt", file("minute.txt", 10, NOW));
+        remote.put("/orphan.txt", file("orphan.txt", 1, NOW));
+        remote.put("/old/deep/orphan.txt", file("orphan.txt", 1, NOW));
+        Set<String> remoteDirs =
+                new HashSet<>(Arrays.asList("/sub", "/old", "/old/deep"));
+
+        FTPMirror mirror = createMirror();
+        FTPMirrorPlan plan = mirror.compare(local, localDirs, remote,
+            remoteDirs);
+        assertThat(plan.getUploads()).hasSize(3);
+        assertThat(plan.getUploads().get(0).getServerFile()).isEqualTo(
+            "/www/new.txt");
+        assertThat(plan.getUploads().get(0).getLocalFile()).isEqualTo(
+            new File("/local/new.txt").getPath());
+        assertThat(plan.getUploads().get(1).getServerFile()).isEqualTo(
+            "/www/size.txt");
+        assertThat(plan.getUploads().get(2).getServerFile()).isEqualTo(
+            "/www/sub/newer.txt");
+        assertThat(plan.getUnchangedCount()).isEqualTo(2);
+        assertThat(plan.getDeletedFiles()).isEmpty();
+        assertThat(plan.getDeletedDirectories()).isEmpty();
+
+        mirror.setDeleteOrphans(true);
+        plan = mirror.compare(local, localDirs, remote, remoteDirs);
+        assertThat(plan.getDeletedFiles()).containsExactly(
+            "/www/old/deep/orphan.txt", "/www/orphan.txt");
+        assertThat(plan.getDeletedDirectories()).containsExactly(
+            "/www/old/deep", "/www/old");
+        assertThat(plan.toString()).contains("RMDIR /www/old/deep");
+    }
+
+    @Test
+    public void testCompareWithoutTimestamps() {
+        Map<String, FTPEntry> local = new HashMap<>();
+        local.put("/a.txt", file("a.txt", 10, NOW));
+        Map<String, FTPEntry> remote = new HashMap<>();
+        remote.put("/a.txt", file("a.txt", 10, -1));
+
+        FTPMirrorPlan plan = createMirror().compare(local,
+            new HashSet<String>(), remote, new HashSet<String>());
+        assertThat(plan.isEmpty()).isTrue();
+        assertThat(plan.getUnchangedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testCompareCreatesEmptyDirectories() {
+        Map<String, FTPEntry> local = new HashMap<>();
+        local.put("/d/new.txt", file("new.txt", 10, NOW));
+        Set<String> localDirs =
+                new HashSet<>(Arrays.asList("/a", "/a/b", "/a/b/c", "/d",
+                    "/e"));
+        Set<String> remoteDirs = new HashSet<>(Arrays.asList("/e"));
+
+        // "/d" entsteht durch den Upload, "/a" und "/a/b" durch MKD von
+        // "/a/b/c".
+        FTPMirrorPlan plan = createMirror().compare(local, localDirs,
+            new HashMap<String, FTPEntry>(), remoteDirs);
+        assertThat(plan.getCreatedDirectories()).containsExactly("/www/a/b/c");
+        assertThat(plan.toString()).contains("MKDIR /www/a/b/c");
+    }
+
+    @Test
+    public void testMirror() throws Exception {
+        UnixFakeFileSystem fileSystem = new UnixFakeFileSystem();
+        fileSystem.add(new DirectoryEntry("/www"));
+        fileSystem.add(new FileEntry("/www/orphan.txt", "weg"));
+
+        FakeFtpServer server = new FakeFtpServer();
+        server.setServerControlPort(0);
+        server.addUserAccount(new UserAccount("user", "password", "/www"));
+        server.setFileSystem(fileSystem);
+        server.start();
+
+        File tempDir = AWToolsIOUtils.createTempDir();
+        try {
+            new File(tempDir, "sub").mkdirs();
+            new File(tempDir, "empty/deep").mkdirs();
+            Files.write(new File(tempDir, "index.html").toPath(),
+                "index".getBytes("UTF-8"));
+            Files.write(new File(tempDir, "sub/page.html").toPath(),
+                "page".getBytes("UTF-8"));
+
+            FTPMirror mirror = new FTPMirror(pool, new FTPAccount("localhost",
+                server.getServerControlPort(), "user", "password"),
+                tempDir.toPath(), "/www");
+            mirror.setPassiveMode(true);
+            mirror.setDeleteOrphans(true);
+
+            FTPMirrorPlan plan = mirror.plan();
+            assertThat(plan.getUploads()).hasSize(2);
+            assertThat(plan.getCreatedDirectories()).containsExactly(
+                "/www/empty/deep");
+            assertThat(plan.getDeletedFiles()).containsExactly(
+                "/www/orphan.txt");
+
+            assertThat(mirror.execute(plan).isSuccess()).isTrue();
+            assertThat(fileSystem.isFile("/www/sub/page.html")).isTrue();
+            assertThat(fileSystem.isDirectory("/www/empty/deep")).isTrue();
+            assertThat(fileSystem.exists("/www/orphan.txt")).isFalse();
+
+            assertThat(mirror.plan().isEmpty()).isTrue();
+
+            // Ohne MLSD zählt nur die Größe.
+            new File(tempDir, "index.html").setLastModified(
+                System.currentTimeMillis() + 3600000);
+            assertThat(mirror.plan().isEmpty()).isTrue();
+        } finally {
+            server.stop();
+            AWToolsIOUtils.recursiveDelete(tempDir);
+        }
+    }
+
+}
@@ -0,0 +1,153 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.mockftpserver.fake.FakeFtpServer;
+import org.mockftpserver.fake.UserAccount;
+import org.mockftpserver.fake.filesystem.DirectoryEntry;
+import org.mockftpserver.fake.filesystem.FileEntry;
+import org.mockftpserver.fake.filesystem.UnixFakeFileSystem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Misst Upload und Download einer 8 MByte Datei gegen einen lokalen
+ * {@link FakeFtpServer} mit verschiedenen {@link FTPTransferOptions}.
+ * <code>bufferSize=1024</code> und <code>fileChannel=false</code>
+ * entspricht ungefähr dem alten Verhalten von {@link FTPWrapper}. Start über
+ * die <code>main</code> Methode.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FTPTransferBenchmark {
+
+    private static final int FILE_SIZE = 8 * 1024 * 1024;
+
+    @Param({ "1024", "65536", "262144" })
+    public int bufferSize;
+
+    @Param({ "false", "true" })
+    public boolean fileChannel;
+
+    private FakeFtpServer server;
+
+    private FTPWrapper ftp;
+
+    private File tempDir;
+
+    private String localFile;
+
+    private String downloadFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        byte[] data = new byte[FILE_SIZE];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+
+        UnixFakeFileSystem fileSystem = new UnixFakeFileSystem();
+        fileSystem.add(new DirectoryEntry("/data"));
+        FileEntry entry = new FileEntry("/data/download.bin");
+        entry.setContents(data);
+        fileSystem.add(entry);
+
+        server = new FakeFtpServer();
+        server.setServerControlPort(0);
+        server.addUserAccount(new UserAccount("user", "password", "/data"));
+        server.setFileSystem(fileSystem);
+        server.start();
+
+        tempDir = AWToolsIOUtils.createTempDir();
+        localFile = new File(tempDir, "upload.bin").getPath();
+        downloadFile = new File(tempDir, "download.bin").getPath();
+        Files.write(new File(localFile).toPath(), data);
+
+        FTPTransferOptions options = new FTPTransferOptions();
+        options.setBufferSize(bufferSize);
+        options.setFileChannel(fileChannel);
+        options.setSendBufferSize(bufferSize);
+        options.setReceiveBufferSize(bufferSize);
+
+        ftp = new FTPWrapper();
+        ftp.setTransferOptions(options);
+        ftp.connectAndLogin("localhost", server.getServerControlPort(), "user",
+            "password");
+        ftp.setPassiveMode(true);
+        ftp.binary();
+    }
+
+    @TearDown
+    public void tearDown() {
+        ftp.close();
+        server.stop();
+        AWToolsIOUtils.recursiveDelete(tempDir);
+    }
+
+    @Benchmark
+    public boolean upload() throws IOException {
+        return ftp.uploadFile(localFile, "/data/upload.bin");
+    }
+
+    @Benchmark
+    public boolean download() throws IOException {
+        return ftp.downloadFile("/data/download.bin", downloadFile);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options =
+                new OptionsBuilder().include(
+                    FTPTransferBenchmark.class.getSimpleName()).build();
+        new Runner(options).run();
+    }
+
+}
@@ -0,0 +1,203 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.io;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockftpserver.fake.FakeFtpServer;
+import org.mockftpserver.fake.UserAccount;
+import org.mockftpserver.fake.filesystem.DirectoryEntry;
+import org.mockftpserver.fake.filesystem.FileEntry;
+import org.mockftpserver.fake.filesystem.UnixFakeFileSystem;
+
+/**
+ * Testet die Klasse {@link FTPTransferEngine} gegen einen lokalen
+ * {@link FakeFtpServer}.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public class FTPTransferEngineTest {
+
+    private FakeFtpServer server;
+
+    private UnixFakeFileSystem fileSystem;
+
+    private FTPConnectionPool pool;
+
+    private FTPTransferEngine engine;
+
+    private File tempDir;
+
+    @Before
+    public void setUp() throws Exception {
+        fileSystem = new UnixFakeFileSystem();
+        fileSystem.add(new DirectoryEntry("/data"));
+
+        server = new FakeFtpServer();
+        server.setServerControlPort(0);
+        server.addUserAccount(new UserAccount("user", "password", "/data"));
+        server.setFileSystem(fileSystem);
+        server.start();
+
+        pool = new FTPConnectionPool();
+        engine =
+                new FTPTransferEngine(pool, new FTPAccount("localhost",
+                    server.getServerControlPort(), "user", "password"));
+        engine.setConnections(4);
+        engine.setRetryBackoff(1);
+        engine.setPassiveMode(true);
+
+        tempDir = AWToolsIOUtils.createTempDir();
+    }
+
+    @After
+    public void tearDown() {
+        pool.close();
+        server.stop();
+        AWToolsIOUtils.recursiveDelete(tempDir);
+    }
+
+    @Test
+    public void testUploadAndDownload() throws Exception {
+        List<FTPTransferJob> uploads = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            File file = new File(tempDir, "file" + i + ".txt");
+            Files.write(file.toPath(), ("Inhalt " + i).getBytes("UTF-8"));
+            uploads.add(FTPTransferJob.upload(file.getPath(), "/data/dir"
+                + (i % 3) + "/sub/file" + i + ".txt"));
+        }
+
+        FTPTransferReport report = engine.execute(uploads);
+        assertThat(report.isSuccess()).isTrue();
+        assertThat(report.getResults()).hasSize(20);
+        assertThat(report.getBytes()).isGreaterThan(0);
+        assertThat(fileSystem.isFile("/data/dir1/sub/file7.txt")).isTrue();
+
+        List<FTPTransferJob> downloads = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            downloads.add(FTPTransferJob.download("/data/dir" + (i % 3)
+                + "/sub/file" + i + ".txt", new File(tempDir, "download/file"
+                + i + ".txt").getPath()));
+        }
+
+        report = engine.execute(downloads);
+        assertThat(report.isSuccess()).isTrue();
+        assertThat(
+            new String(Files.readAllBytes(new File(tempDir,
+                "download/file7.txt").toPath()), "UTF-8")).isEqualTo(
+            "Inhalt 7");
+    }
+
+    @Test
+    public void testPermanentFailureIsNotRetried() throws Exception {
+        fileSystem.add(new FileEntry("/data/ok.txt", "ok"));
+
+        FTPTransferReport report =
+                engine.execute(Arrays.asList(
+                    FTPTransferJob.download("/data/missing.txt", new File(
+                        tempDir, "missing.txt").getPath()),
+                    FTPTransferJob.download("/data/ok.txt", new File(tempDir,
+                        "ok.txt").getPath())));
+
+        assertThat(report.isSuccess()).isFalse();
+        assertThat(report.getFailures()).hasSize(1);
+        FTPTransferResult failure = report.getFailures().get(0);
+        assertThat(failure.getJob().getServerFile()).isEqualTo(
+            "/data/missing.txt");
+        assertThat(failure.getAttempts()).isEqualTo(1);
+        assertThat(report.getResults().get(1).isSuccess()).isTrue();
+    }
+
+    @Test
+    public void testRuntimeExceptionDoesNotStopWorker() throws Exception {
+        fileSystem.add(new FileEntry("/data/a.txt", "a"));
+        fileSystem.add(new FileEntry("/data/b.txt", "b"));
+
+        // Ein ungültiger lokaler Pfad wirft eine InvalidPathException.
+        engine.setConnections(1);
+        engine.setMaxRetries(1);
+        FTPTransferReport report =
+                engine.execute(Arrays.asList(
+                    FTPTransferJob.download("/data/a.txt", new File(tempDir,
+                        "a\0.txt").getPath()),
+                    FTPTransferJob.download("/data/b.txt", new File(tempDir,
+                        "b.txt").getPath())));
+
+        assertThat(report.getResults()).hasSize(2);
+        FTPTransferResult failed = report.getResults().get(0);
+        assertThat(failed.isSuccess()).isFalse();
+        assertThat(failed.getAttempts()).isEqualTo(2);
+        assertThat(failed.getException()).isInstanceOf(
+            InvalidPathException.class);
+        assertThat(report.getResults().get(1).isSuccess()).isTrue();
+    }
+
+    @Test
+    public void testThrowingListenerDoesNotFailTransfer() throws Exception {
+        fileSystem.add(new FileEntry("/data/a.txt", "a"));
+        pool.setListener(new FTPListener() {
+            @Override
+            public void transferred(final String host, final boolean upload,
+                final String serverFile, final long bytes, final long nanos,
+                final boolean success) {
+
+                throw new IllegalStateException("Test");
+            }
+        });
+
+        FTPTransferReport report =
+                engine.execute(Arrays.asList(FTPTransferJob.download(
+                    "/data/a.txt", new File(tempDir, "a.txt").getPath())));
+        assertThat(report.isSuccess()).isTrue();
+        assertThat(report.getResults().get(0).getAttempts()).isEqualTo(1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRelativeServerFile() throws Exception {
+        engine.execute(Arrays.asList(FTPTransferJob.upload("local.txt",
+            "relative.txt")));
+    }
+
+    @Test
+    public void testLeafDirectories() {
+        assertThat(
+            FTPTransferEngine.leafDirectories(Arrays.asList("/a", "/a-b",
+                "/a/b", "/a/b/c", "/d", "/e/f"))).isEqualTo(
+            Arrays.asList("/a-b", "/a/b/c", "/d", "/e/f"));
+    }
+
+}
@@ -0,0 +1,425 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.io;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockftpserver.core.command.StaticReplyCommandHandler;
+import org.mockftpserver.fake.FakeFtpServer;
+import org.mockftpserver.fake.UserAccount;
+import org.mockftpserver.fake.filesystem.DirectoryEntry;
+import org.mockftpserver.fake.filesystem.FileEntry;
+import org.mockftpserver.fake.filesystem.UnixFakeFileSystem;
+
+/**
+ * Testet die Klasse {@link FTPWrapper}.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public class FTPWrapperTest {
+
+    private File tempDir;
+
+    @Before
+    public void setUp() throws Exception {
+        tempDir = AWToolsIOUtils.createTempDir();
+    }
+
+    @After
+    public void tearDown() {
+        AWToolsIOUtils.recursiveDelete(tempDir);
+    }
+
+    @Test
+    public void testLocalStreamsWithFileChannel() throws Exception {
+        FTPTransferOptions options = new FTPTransferOptions();
+        options.setFileChannel(true);
+        roundTrip(options);
+    }
+
+    @Test
+    public void testLocalStreamsBuffered() throws Exception {
+        FTPTransferOptions options = new FTPTransferOptions();
+        options.setFileChannel(false);
+        options.setBufferSize(1024);
+        roundTrip(options);
+    }
+
+    @Test
+    public void testLocalStreamsWithOffsetAndAppend() throws Exception {
+        for (boolean channel : new boolean[] { true, false }) {
+            FTPTransferOptions options = new FTPTransferOptions();
+            options.setFileChannel(channel);
+            FTPWrapper ftp = new FTPWrapper();
+            ftp.setTransferOptions(options);
+
+            String file = new File(tempDir, "append.txt").getPath();
+            try (OutputStream out = ftp.openLocalOutput(file)) {
+                out.write("Hallo ".getBytes("UTF-8"));
+            }
+            try (OutputStream out = ftp.openLocalOutput(file, true)) {
+                out.write("Welt".getBytes("UTF-8"));
+            }
+            try (InputStream in = ftp.openLocalInput(file, 6)) {
+                assertThat(IOUtils.toString(in, "UTF-8")).isEqualTo("Welt");
+            }
+        }
+    }
+
+    @Test
+    public void testResumeUploadAndDownload() throws Exception {
+        UnixFakeFileSystem fileSystem = new UnixFakeFileSystem();
+        fileSystem.add(new DirectoryEntry("/data"));
+        fileSystem.add(new FileEntry("/data/upload.txt", "0123"));
+        fileSystem.add(new FileEntry("/data/download.txt", "0123456789"));
+
+        FakeFtpServer server = new FakeFtpServer();
+        server.setServerControlPort(0);
+        server.addUserAccount(new UserAccount("user", "password", "/data"));
+        server.setFileSystem(fileSystem);
+        server.start();
+
+        FTPWrapper ftp = new FTPWrapper();
+        try {
+            assertThat(
+                ftp.connectAndLogin("localhost", server.getServerControlPort(),
+                    "user", "password")).isTrue();
+            ftp.setPassiveMode(true);
+            ftp.binary();
+
+            assertThat(ftp.getRemoteSize("/data/download.txt")).isEqualTo(10);
+            assertThat(ftp.getRemoteSize("/data/missing.txt")).isEqualTo(-1);
+
+            // Der Server hat die ersten 4 Bytes, der Rest wird angehängt.
+            File local = new File(tempDir, "upload.txt");
+            Files.write(local.toPath(), "0123456789".getBytes("UTF-8"));
+            assertThat(
+                ftp.resumeUploadFile(local.getPath(), "/data/upload.txt"))
+                .isTrue();
+            assertThat(ftp.getRemoteSize("/data/upload.txt")).isEqualTo(10);
+
+            // Eine vollständige Datei wird nicht erneut geladen.
+            File download = new File(tempDir, "download.txt");
+            Files.write(download.toPath(), "0123456789".getBytes("UTF-8"));
+            assertThat(
+                ftp.resumeDownloadFile("/data/download.txt",
+                    download.getPath())).isTrue();
+
+            // Fehlt die Datei auf dem Server, bleibt die lokale Datei.
+            File partial = new File(tempDir, "partial.txt");
+            Files.write(partial.toPath(), "01234".getBytes("UTF-8"));
+            assertThat(
+                ftp.resumeDownloadFile("/data/missing.txt",
+                    partial.getPath())).isFalse();
+            assertThat(
+                new String(Files.readAllBytes(partial.toPath()), "UTF-8"))
+                .isEqualTo("01234");
+
+            // Eine zu große lokale Datei wird vollständig ersetzt.
+            Files.write(download.toPath(),
+                "0123456789abcdef".getBytes("UTF-8"));
+            assertThat(
+                ftp.resumeDownloadFile("/data/download.txt",
+                    download.getPath())).isTrue();
+            assertThat(
+                new String(Files.readAllBytes(download.toPath()), "UTF-8"))
+                .isEqualTo("0123456789");
+        } finally {
+            ftp.close();
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testRemoteSizeFileNotFound() throws Exception {
+        UnixFakeFileSystem fileSystem = new UnixFakeFileSystem();
+        fileSystem.add(new DirectoryEntry("/data"));
+        fileSystem.add(new FileEntry("/data/file.txt", "0123456789"));
+
+        // Ein 550 auf SIZE ist endgültig: kein Rückfall auf LIST.
+        FakeFtpServer server = new FakeFtpServer();
+        server.setServerControlPort(0);
+        server.addUserAccount(new UserAccount("user", "password", "/data"));
+        server.setFileSystem(fileSystem);
+        server.setCommandHandler("SIZE", new StaticReplyCommandHandler(550,
+            "No such file."));
+        server.start();
+
+        FTPWrapper ftp = new FTPWrapper();
+        try {
+            assertThat(
+                ftp.connectAndLogin("localhost", server.getServerControlPort(),
+                    "user", "password")).isTrue();
+            ftp.setPassiveMode(true);
+            assertThat(ftp.getRemoteSize("/data/file.txt")).isEqualTo(-1);
+        } finally {
+            ftp.close();
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testVerifiedTransfers() throws Exception {
+        FTPChecksum expected = new FTPChecksum(FTPChecksum.Algorithm.SHA_256);
+        byte[] content = "0123456789".getBytes("UTF-8");
+        expected.update(content, 0, content.length);
+
+        UnixFakeFileSystem fileSystem = new UnixFakeFileSystem();
+        fileSystem.add(new DirectoryEntry("/data"));
+        fileSystem.add(new FileEntry("/data/good.txt", "0123456789"));
+        fileSystem.add(new FileEntry("/data/good.txt.sha256",
+            expected.getValue() + "  good.txt\n"));
+        fileSystem.add(new FileEntry("/data/bad.txt", "0123456789"));
+        fileSystem.add(new FileEntry("/data/bad.txt.sha256",
+            "0000000000000000000000000000000000000000000000000000000000000000"
+                + "  bad.txt\n"));
+
+        FakeFtpServer server = new FakeFtpServer();
+        server.setServerControlPort(0);
+        server.addUserAccount(new UserAccount("user", "password", "/data"));
+        server.setFileSystem(fileSystem);
+        server.start();
+
+        FTPWrapper ftp = new FTPWrapper();
+        try {
+            assertThat(
+                ftp.connectAndLogin("localhost", server.getServerControlPort(),
+                    "user", "password")).isTrue();
+            ftp.setPassiveMode(true);
+            ftp.binary();
+
+            // Der Server kennt weder HASH noch XSHA256: Prüfung über SIZE.
+            File local = new File(tempDir, "upload.txt");
+            Files.write(local.toPath(), content);
+            FTPChecksum checksum =
+                    new FTPChecksum(FTPChecksum.Algorithm.SHA_256);
+            assertThat(
+                ftp.uploadFileVerified(local.getPath(), "/data/upload.txt",
+                    checksum)).isEqualTo(FTPChecksum.Verification.SIZE);
+            assertThat(checksum.getValue()).isEqualTo(expected.getValue());
+
+            checksum = new FTPChecksum(FTPChecksum.Algorithm.SHA_256);
+            assertThat(
+                ftp.downloadFileVerified("/data/good.txt", new File(tempDir,
+                    "good.txt").getPath(), checksum)).isEqualTo(
+                FTPChecksum.Verification.CHECKSUM_FILE);
+
+            try {
+                ftp.downloadFileVerified("/data/bad.txt", new File(tempDir,
+                    "bad.txt").getPath(), new FTPChecksum(
+                    FTPChecksum.Algorithm.SHA_256));
+                fail("Expected a FTPChecksumException.");
+            } catch (FTPChecksumException ex) {
+                assertThat(ex.getServerFile()).isEqualTo("/data/bad.txt");
+            }
+
+            assertThat(
+                ftp.downloadFileVerified("/data/missing.txt", new File(
+                    tempDir, "missing.txt").getPath(), new FTPChecksum(
+                    FTPChecksum.Algorithm.CRC32))).isNull();
+        } finally {
+            ftp.close();
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testChangeOrCreateDirectory() throws Exception {
+        UnixFakeFileSystem fileSystem = new UnixFakeFileSystem();
+        fileSystem.add(new DirectoryEntry("/data"));
+
+        FakeFtpServer server = new FakeFtpServer();
+        server.setServerControlPort(0);
+        server.addUserAccount(new UserAccount("user", "password", "/data"));
+        server.setFileSystem(fileSystem);
+        server.start();
+
+        FTPWrapper ftp = new FTPWrapper();
+        try {
+            assertThat(
+                ftp.connectAndLogin("localhost", server.getServerControlPort(),
+                    "user", "password")).isTrue();
+
+            ftp.changeOrCreateDirectory("/", "data/a/b/c");
+            assertThat(fileSystem.isDirectory("/data/a/b/c")).isTrue();
+
+            ftp.changeOrCreateDirectory("/data/a", "b/d");
+            assertThat(fileSystem.isDirectory("/data/a/b/d")).isTrue();
+
+            // Das Wurzelverzeichnis wird nie angelegt.
+            try {
+                ftp.changeOrCreateDirectory("/data/typo", "b/c");
+                fail("IOException erwartet!");
+            } catch (IOException ex) {
+                assertThat(fileSystem.exists("/data/typo")).isFalse();
+            }
+
+            // Der Cache ist veraltet. Der Pfad wird neu aufgebaut.
+            fileSystem.delete("/data/a/b/c");
+            fileSystem.delete("/data/a/b/d");
+            fileSystem.delete("/data/a/b");
+            ftp.changeOrCreateDirectory("/", "data/a/b/c");
+            assertThat(fileSystem.isDirectory("/data/a/b/c")).isTrue();
+        } finally {
+            ftp.close();
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testChangeOrCreateExistingDirectory() throws Exception {
+        UnixFakeFileSystem fileSystem = new UnixFakeFileSystem();
+        fileSystem.add(new DirectoryEntry("/data/a/b/c"));
+
+        FakeFtpServer server = new FakeFtpServer();
+        server.setServerControlPort(0);
+        server.addUserAccount(new UserAccount("user", "password", "/data"));
+        server.setFileSystem(fileSystem);
+        server.start();
+
+        final AtomicInteger replies = new AtomicInteger();
+        FTPWrapper ftp = new FTPWrapper();
+        try {
+            assertThat(
+                ftp.connectAndLogin("localhost", server.getServerControlPort(),
+                    "user", "password")).isTrue();
+            assertThat(ftp.changeWorkingDirectory("/")).isTrue();
+            ftp.setListener(new FTPListener() {
+                @Override
+                public void replyReceived(final String host,
+                    final int replyCode) {
+
+                    replies.incrementAndGet();
+                }
+            });
+
+            // Ein existierender Pfad kostet genau ein CWD.
+            ftp.changeOrCreateDirectory("/", "data/a/b/c");
+            assertThat(replies.get()).isEqualTo(1);
+            assertThat(ftp.printWorkingDirectory()).isEqualTo("/data/a/b/c");
+
+            // Neben einem bekannten Pfad: CWD, CWD, CWD, MKD und CWD.
+            replies.set(0);
+            ftp.changeOrCreateDirectory("/", "data/a/b/d");
+            assertThat(replies.get()).isEqualTo(5);
+            assertThat(fileSystem.isDirectory("/data/a/b/d")).isTrue();
+
+            replies.set(0);
+            ftp.changeOrCreateDirectory("/data", "a/b/c");
+            assertThat(replies.get()).isEqualTo(1);
+        } finally {
+            ftp.close();
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testListEntries() throws Exception {
+        UnixFakeFileSystem fileSystem = new UnixFakeFileSystem();
+        fileSystem.add(new DirectoryEntry("/data"));
+        fileSystem.add(new DirectoryEntry("/data/sub1"));
+        fileSystem.add(new DirectoryEntry("/data/sub2"));
+        for (int i = 0; i < 25; i++) {
+            fileSystem.add(new FileEntry("/data/file" + i + ".txt", "Inhalt"));
+        }
+
+        FakeFtpServer server = new FakeFtpServer();
+        server.setServerControlPort(0);
+        server.addUserAccount(new UserAccount("user", "password", "/data"));
+        server.setFileSystem(fileSystem);
+        server.start();
+
+        FTPWrapper ftp = new FTPWrapper();
+        try {
+            assertThat(
+                ftp.connectAndLogin("localhost", server.getServerControlPort(),
+                    "user", "password")).isTrue();
+            ftp.setPassiveMode(true);
+
+            List<FTPEntry> files = new ArrayList<>();
+            Iterator<FTPEntry> it =
+                    ftp.listEntries("/data", new Predicate<FTPEntry>() {
+                        @Override
+                        public boolean test(final FTPEntry entry) {
+                            return entry.isFile()
+                                && entry.getName().startsWith("file1");
+                        }
+                    });
+            while (it.hasNext()) {
+                files.add(it.next());
+            }
+            // file1.txt und file10.txt bis file19.txt
+            assertThat(files).hasSize(11);
+            assertThat(files.get(0).getSize()).isEqualTo(6);
+
+            assertThat(ftp.streamEntries("/data", null).count()).isEqualTo(27);
+            assertThat(ftp.listSubdirNames()).containsOnly("sub1", "sub2");
+            assertThat(ftp.listFileNames()).hasSize(25);
+            assertThat(ftp.listSubdirNamesString()).isEqualTo("sub1\nsub2");
+        } finally {
+            ftp.close();
+            server.stop();
+        }
+    }
+
+    private void roundTrip(final FTPTransferOptions options) throws Exception {
+        FTPWrapper ftp = new FTPWrapper();
+        ftp.setTransferOptions(options);
+
+        byte[] data = new byte[10000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+
+        String file = new File(tempDir, "file.bin").getPath();
+        Files.write(new File(file).toPath(), new byte[20000]);
+        try (OutputStream out = ftp.openLocalOutput(file)) {
+            out.write(data);
+        }
+        try (InputStream in = ftp.openLocalInput(file)) {
+            assertThat(Arrays.equals(IOUtils.toByteArray(in), data)).isTrue();
+        }
+    }
+
+}
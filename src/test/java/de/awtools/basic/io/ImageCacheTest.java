@@ -0,0 +1,209 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.io;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+
+import java.awt.Image;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Testet die Klasse {@link ImageCache}.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public class ImageCacheTest {
+
+    @Test
+    public void testGetImage() {
+        ImageCache cache = new ImageCache();
+        Image image = cache.getImage("icon16.png", ImageCacheTest.class);
+        assertThat(image).isNotNull();
+        assertThat(image.getWidth(null)).isEqualTo(16);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+        assertThat(cache.getPixelBytes()).isEqualTo(16 * 16 * 4);
+
+        // Relativer und absoluter Name liefern dasselbe Bild.
+        assertThat(
+            cache.getImage("/de/awtools/basic/io/icon16.png",
+                ImageCache.class)).isSameAs(image);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetImageMissing() {
+        new ImageCache().getImage("missing.png", ImageCacheTest.class);
+    }
+
+    @Test
+    public void testEvictionByPixelBytes() {
+        ImageCache cache = new ImageCache(32 * 32 * 4 + 16 * 16 * 4 - 1);
+        Image small = cache.getImage("icon16.png", ImageCacheTest.class);
+        cache.getImage("icon32.png", ImageCacheTest.class);
+
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.getEvictionCount()).isEqualTo(1);
+        assertThat(cache.getPixelBytes()).isEqualTo(32 * 32 * 4);
+        assertThat(cache.getImage("icon16.png", ImageCacheTest.class))
+            .isNotSameAs(small);
+    }
+
+    @Test
+    public void testTooLargeImageIsNotCached() {
+        ImageCache cache = new ImageCache(100);
+        assertThat(cache.getImage("icon16.png", ImageCacheTest.class))
+            .isNotNull();
+        assertThat(cache.size()).isEqualTo(0);
+        assertThat(cache.getPixelBytes()).isEqualTo(0);
+    }
+
+    @Test
+    public void testConcurrentLoadsDecodeOnce() throws Exception {
+        final ImageCache cache = new ImageCache();
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Image>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(new Callable<Image>() {
+                    @Override
+                    public Image call() throws Exception {
+                        start.await();
+                        return cache.getImage("icon32.png",
+                            ImageCacheTest.class);
+                    }
+                }));
+            }
+            start.countDown();
+
+            Image image = futures.get(0).get(10, TimeUnit.SECONDS);
+            for (Future<Image> future : futures) {
+                assertThat(future.get(10, TimeUnit.SECONDS)).isSameAs(image);
+            }
+            assertThat(cache.getMissCount()).isEqualTo(1);
+            assertThat(cache.getHitCount()).isEqualTo(7);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testPreloadRejected() throws Exception {
+        ImageCache cache = new ImageCache();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+        cache.setExecutor(executor);
+        try {
+            cache.preload(Arrays.asList("icon16.png"), ImageCacheTest.class);
+            fail("RejectedExecutionException erwartet!");
+        } catch (RejectedExecutionException ex) {
+            // erwartet
+        }
+
+        // Kein verwaistes Future: Das Bild wird direkt geladen.
+        assertThat(cache.getImage("icon16.png", ImageCacheTest.class))
+            .isNotNull();
+        assertThat(cache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testPreload() throws Exception {
+        ImageCache cache = new ImageCache();
+        cache.preload(Arrays.asList("icon16.png", "icon32.png"),
+            ImageCacheTest.class).get(10, TimeUnit.SECONDS);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getMissCount()).isEqualTo(2);
+        cache.getImage("icon32.png", ImageCacheTest.class);
+        assertThat(cache.getMissCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testLoadImage() {
+        Image image =
+                AWToolsIOUtils.loadImage("icon16.png", ImageCacheTest.class);
+        assertThat(image).isNotNull();
+        assertThat(AWToolsIOUtils.loadImage("icon16.png",
+            ImageCacheTest.class)).isSameAs(image);
+    }
+
+    @Test
+    public void testClassLoaderIsNotRetained() throws Exception {
+        ImageCache cache = new ImageCache();
+        URL classes =
+                ImageCacheTest.class.getProtectionDomain().getCodeSource()
+                    .getLocation();
+
+        // Ein eigener Klassenlader, z.B. der einer Webanwendung.
+        URLClassLoader loader =
+                new URLClassLoader(new URL[] { classes }, null);
+        Class<?> clazz = loader.loadClass(Anchor.class.getName());
+        assertThat(clazz.getClassLoader()).isSameAs(loader);
+        assertThat(cache.getImage("icon16.png", clazz)).isNotNull();
+        assertThat(cache.size()).isEqualTo(1);
+
+        WeakReference<ClassLoader> reference = new WeakReference<>(
+            (ClassLoader) loader);
+        loader.close();
+        loader = null;
+        clazz = null;
+
+        long timeout = System.currentTimeMillis() + 10000;
+        while (reference.get() != null
+            && System.currentTimeMillis() < timeout) {
+
+            System.gc();
+            Thread.sleep(50);
+        }
+        assertThat(reference.get()).isNull();
+
+        // Das Bild des entladenen Klassenladers wird beim Speichern entfernt.
+        cache.getImage("icon32.png", ImageCacheTest.class);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    /** Wird über einen eigenen Klassenlader geladen. */
+    public static final class Anchor {
+    }
+
+}
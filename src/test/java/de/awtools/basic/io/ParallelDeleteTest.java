@@ -0,0 +1,114 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.io;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Testet die Klasse {@link ParallelDelete}.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public class ParallelDeleteTest {
+
+    private File tempDir;
+
+    @Before
+    public void setUp() throws IOException {
+        tempDir = AWToolsIOUtils.createTempDir();
+    }
+
+    @After
+    public void tearDown() {
+        AWToolsIOUtils.recursiveDelete(tempDir);
+    }
+
+    @Test
+    public void testParallelDelete() throws Exception {
+        Path root = tempDir.toPath().resolve("cache");
+        for (int i = 0; i < 10; i++) {
+            Path dir = root.resolve("dir" + i).resolve("sub");
+            Files.createDirectories(dir);
+            for (int j = 0; j < 10; j++) {
+                Files.write(dir.resolve("file" + j), new byte[] { 1, 2, 3 });
+            }
+        }
+
+        ParallelDelete delete = new ParallelDelete(root);
+        delete.setThreads(4);
+        assertThat(delete.execute()).isTrue();
+        assertThat(delete.getDeletedFiles()).isEqualTo(100);
+        assertThat(delete.getDeletedBytes()).isEqualTo(300);
+        assertThat(delete.getDeletedDirectories()).isEqualTo(21);
+        assertThat(delete.getFailures()).isEmpty();
+        assertThat(Files.exists(root)).isFalse();
+    }
+
+    @Test
+    public void testParallelDeleteSingleFile() throws Exception {
+        Path file = tempDir.toPath().resolve("file.txt");
+        Files.write(file, new byte[] { 1 });
+
+        ParallelDelete delete = new ParallelDelete(file);
+        assertThat(delete.execute()).isTrue();
+        assertThat(delete.getDeletedFiles()).isEqualTo(1);
+        assertThat(delete.getDeletedDirectories()).isEqualTo(0);
+        assertThat(Files.exists(file)).isFalse();
+    }
+
+    @Test
+    public void testParallelDeleteMissingRoot() throws Exception {
+        Path missing = tempDir.toPath().resolve("missing");
+
+        ParallelDelete delete = new ParallelDelete(missing);
+        assertThat(delete.execute()).isFalse();
+        assertThat(delete.getFailures()).hasSize(1);
+    }
+
+    @Test
+    public void testParallelDeleteCancelled() throws Exception {
+        Path dir = tempDir.toPath().resolve("dir");
+        Files.createDirectories(dir);
+        Files.write(dir.resolve("file.txt"), new byte[] { 1 });
+
+        ParallelDelete delete = new ParallelDelete(dir);
+        delete.cancel();
+        assertThat(delete.execute()).isFalse();
+        assertThat(delete.isCancelled()).isTrue();
+        assertThat(Files.exists(dir.resolve("file.txt"))).isTrue();
+    }
+
+}
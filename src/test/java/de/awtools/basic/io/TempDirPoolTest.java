@@ -0,0 +1,146 @@
+/*
+ * $Id$
+ * ============================================================================
+ * Project awtools-basic
+ * Copyright (c) 2000-2015 by Andre Winkler. All rights reserved.
+ * ============================================================================
+ *          GNU LESSER GENERAL PUBLIC LICENSE
+ *  TERMS AND CONDITIONS FOR COPYING, DISTRIBUTION AND MODIFICATION
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package de.awtools.basic.io;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Testet die Klasse {@link TempDirPool}.
+ *
+ * @version $LastChangedRevision$ $LastChangedDate$
+ * @author by Andre Winkler, $LastChangedBy$
+ */
+public class TempDirPoolTest {
+
+    private File tempDir;
+
+    @Before
+    public void setUp() throws IOException {
+        tempDir = AWToolsIOUtils.createTempDir();
+    }
+
+    @After
+    public void tearDown() {
+        AWToolsIOUtils.recursiveDelete(tempDir);
+    }
+
+    @Test
+    public void testAcquireAndRelease() throws Exception {
+        TempDirPool pool = new TempDirPool(tempDir.toPath(), 2);
+        try {
+            Path dir1 = pool.acquire();
+            Path dir2 = pool.acquire();
+            assertThat(dir1).isNotEqualTo(dir2);
+            assertThat(Files.isDirectory(dir1)).isTrue();
+            assertThat(Files.isDirectory(dir2)).isTrue();
+
+            Files.write(dir1.resolve("file.txt"), new byte[] { 1, 2, 3 });
+            Files.createDirectories(dir1.resolve("sub"));
+            pool.release(dir1);
+
+            // Das Verzeichnis wird im Hintergrund geleert und wieder
+            // verwendet oder, bei vollem Vorrat, gelöscht.
+            for (int i = 0; i < 100 && !isEmptyOrDeleted(dir1); i++) {
+                Thread.sleep(10);
+            }
+            assertThat(isEmptyOrDeleted(dir1)).isTrue();
+        } finally {
+            pool.close();
+        }
+    }
+
+    private static boolean isEmptyOrDeleted(final Path dir) {
+        String[] files = dir.toFile().list();
+        return files == null || files.length == 0;
+    }
+
+    @Test
+    public void testCloseDeletesStock() throws Exception {
+        TempDirPool pool = new TempDirPool(tempDir.toPath(), 3);
+        Path dir = pool.acquire();
+        pool.release(dir);
+        pool.close();
+
+        assertThat(tempDir.list().length).isEqualTo(0);
+    }
+
+    @Test
+    public void testStockIsRefilled() throws Exception {
+        TempDirPool pool = new TempDirPool(tempDir.toPath(), 3);
+        try {
+            for (int i = 0; i < 100 && pool.getStockCount() < 3; i++) {
+                Thread.sleep(10);
+            }
+            assertThat(pool.getStockCount()).isEqualTo(3);
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReleaseForeignDirectory() throws Exception {
+        TempDirPool pool = new TempDirPool(tempDir.toPath(), 1);
+        try {
+            pool.release(tempDir.toPath());
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void testDoubleRelease() throws Exception {
+        TempDirPool pool = new TempDirPool(tempDir.toPath(), 2);
+        try {
+            Path dir = pool.acquire();
+            pool.release(dir);
+            try {
+                pool.release(dir);
+                fail("IllegalArgumentException erwartet!");
+            } catch (IllegalArgumentException ex) {
+                // erwartet
+            }
+
+            // Das Verzeichnis wird höchstens einmal wieder ausgegeben.
+            Thread.sleep(100);
+            Path dir1 = pool.acquire();
+            Path dir2 = pool.acquire();
+            assertThat(dir1).isNotEqualTo(dir2);
+        } finally {
+            pool.close();
+        }
+    }
+
+}